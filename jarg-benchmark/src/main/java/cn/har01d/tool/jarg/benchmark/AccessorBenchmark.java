@@ -0,0 +1,100 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.OptionKey;
+import cn.har01d.tool.jarg.ParseResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the option getters of a parsed <code>Jarg</code> and of a <code>ParseResult</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessorBenchmark {
+
+    @Param({"50"})
+    public int options;
+
+    private Jarg jarg;
+    private ParseResult result;
+    private OptionKey<Boolean> flag;
+    private OptionKey<Integer> option;
+
+    @Setup
+    public void setup() {
+        String[] args = Clis.large(options);
+        jarg = Clis.create(options, 0);
+        jarg.parse(args);
+        result = jarg.compile().parse(args);
+        flag = jarg.getOption("flag-0").key(Boolean.class);
+        option = jarg.getOption("option-2").key(Integer.class);
+    }
+
+    @Benchmark
+    public String jargGetValue() {
+        return jarg.getValue("option-1");
+    }
+
+    @Benchmark
+    public boolean jargIsPresent() {
+        return jarg.isPresent("flag-0");
+    }
+
+    @Benchmark
+    public int jargGetIntValue() {
+        return jarg.getIntValue("option-2");
+    }
+
+    @Benchmark
+    public List<Integer> jargGetIntValues() {
+        return jarg.getIntValues("ids");
+    }
+
+    @Benchmark
+    public String resultGetValue() {
+        return result.getValue("option-1");
+    }
+
+    @Benchmark
+    public boolean resultIsPresent() {
+        return result.isPresent("flag-0");
+    }
+
+    @Benchmark
+    public int resultGetIntValue() {
+        return result.getIntValue("option-2");
+    }
+
+    @Benchmark
+    public List<Integer> resultGetIntValues() {
+        return result.getIntValues("ids");
+    }
+
+    @Benchmark
+    public boolean jargIsPresentByKey() {
+        return jarg.isPresent(flag);
+    }
+
+    @Benchmark
+    public int jargGetValueByKey() {
+        return jarg.getValue(option);
+    }
+
+    @Benchmark
+    public boolean resultIsPresentByKey() {
+        return result.isPresent(flag);
+    }
+
+    @Benchmark
+    public int resultGetValueByKey() {
+        return result.getValue(option);
+    }
+
+}
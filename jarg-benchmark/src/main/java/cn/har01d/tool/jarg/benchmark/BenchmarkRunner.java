@@ -0,0 +1,89 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.Jarg;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.regex.Pattern;
+
+/**
+ * Run the benchmarks with the GC profiler, once for every thread count.
+ * <p>
+ * The {@link SnapshotBenchmark} and the {@link StartupBenchmark} run once with their own forks,
+ * and the run fails if the mean of the startup exceeds the startup budget.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        Jarg jarg = new Jarg("benchmarks", "Run the Jarg benchmarks");
+        jarg.autoHelp();
+        jarg.addOption("--threads|-t", "The thread counts to run with, separate by ','")
+                .defaultValue("1," + Runtime.getRuntime().availableProcessors());
+        jarg.addOption("--forks|-f", "The fork count").defaultValue(1);
+        jarg.addOption("--quick|-q", "Run short iterations for a smoke test", false);
+        jarg.addOption("--startup-budget", "The budget of StartupBenchmark in milliseconds").defaultValue(25);
+        jarg.addParameter("include").defaultValue(".*");
+
+        try {
+            jarg.parse(args);
+        } catch (Exception e) {
+            jarg.handleError(e);
+        }
+
+        String include = jarg.getArgument("include");
+        String startup = StartupBenchmark.class.getName();
+        String snapshot = SnapshotBenchmark.class.getName();
+        for (int threads : jarg.getIntValues("threads")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .exclude(startup)
+                    .exclude(snapshot)
+                    .addProfiler(GCProfiler.class)
+                    .threads(threads)
+                    .forks(jarg.getIntValue("forks"));
+            if (jarg.isPresent("quick")) {
+                options.warmupIterations(1)
+                        .warmupTime(TimeValue.milliseconds(200))
+                        .measurementIterations(1)
+                        .measurementTime(TimeValue.milliseconds(200));
+            }
+            try {
+                new Runner(options.build()).run();
+            } catch (NoBenchmarksException e) {
+                // only the benchmarks of fresh JVMs are included
+                break;
+            }
+        }
+
+        if (Pattern.compile(include).matcher(snapshot).find()) {
+            ChainedOptionsBuilder options = new OptionsBuilder().include(snapshot);
+            if (jarg.isPresent("quick")) {
+                options.forks(3);
+            }
+            new Runner(options.build()).run();
+        }
+
+        if (Pattern.compile(include).matcher(startup).find()) {
+            ChainedOptionsBuilder options = new OptionsBuilder().include(startup);
+            if (jarg.isPresent("quick")) {
+                options.forks(3);
+            }
+            for (RunResult result : new Runner(options.build()).run()) {
+                double mean = result.getPrimaryResult().getScore();
+                double budget = jarg.getDoubleValue("startup-budget");
+                System.out.printf("Startup: %.2f ms, budget: %.2f ms%n", mean, budget);
+                if (mean > budget) {
+                    System.err.println("Startup is over budget");
+                    System.exit(1);
+                }
+            }
+        }
+    }
+
+}
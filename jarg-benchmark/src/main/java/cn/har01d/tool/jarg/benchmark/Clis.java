@@ -0,0 +1,114 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.JCommand;
+import cn.har01d.tool.jarg.Jarg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated command line definitions and argument vectors used by the benchmarks.
+ */
+final class Clis {
+
+    static final int COMMAND_OPTIONS = 5;
+    static final int IDS = 100;
+    static final int HUGE_OPTIONS = 5000;
+    static final int HUGE_COMMANDS = 50;
+
+    private Clis() {
+    }
+
+    /**
+     * Create a <code>Jarg</code> with the number of root options and commands.
+     * Every third option is a flag, the others have a value.
+     */
+    static Jarg create(int options, int commands) {
+        Jarg jarg = new Jarg("bench", "A generated command line for benchmarks");
+        jarg.setDescription("Generated with " + options + " options and " + commands + " commands.\nUsed by the JMH benchmarks.");
+        jarg.addSection(Jarg.AUTHOR, "Jarg");
+        jarg.addOption("--verbose|-v", "Show more output", false);
+        jarg.addOption("--level|-l", "The level").defaultValue(1);
+        jarg.addOption("--ids|-i", "The ids, separate by ','");
+        for (int i = 0; i < options; ++i) {
+            if (i % 3 == 0) {
+                jarg.addOption("--flag-" + i + "|-f" + i, "The flag " + i, false);
+            } else {
+                jarg.addOption("--option-" + i + "|-o" + i, "The option " + i).defaultValue(i);
+            }
+        }
+        jarg.addParameter("source").required();
+        jarg.addParameter("target");
+
+        for (int c = 0; c < commands; ++c) {
+            JCommand command = jarg.addCommand("command-" + c, "The command " + c).aliases("c" + c);
+            for (int i = 0; i < COMMAND_OPTIONS; ++i) {
+                command.addOption("--command-option-" + i, "The command option " + i);
+            }
+            command.addParameter("name").required();
+        }
+        return jarg;
+    }
+
+    /**
+     * Create the <code>Jarg</code> of 5000 root options and 50 commands, also written as a snapshot at build time.
+     */
+    static Jarg huge() {
+        return create(HUGE_OPTIONS, HUGE_COMMANDS);
+    }
+
+    /**
+     * A typical short command line.
+     */
+    static String[] small() {
+        return new String[]{"-v", "--level=3", "--ids", ids(), "source", "target"};
+    }
+
+    /**
+     * A command line which uses every generated root option.
+     */
+    static String[] large(int options) {
+        List<String> args = new ArrayList<String>();
+        args.add("--ids=" + ids());
+        for (int i = 0; i < options; ++i) {
+            if (i % 3 == 0) {
+                args.add("-f" + i);
+            } else if (i % 2 == 0) {
+                args.add("--option-" + i + "=" + i);
+            } else {
+                args.add("--option-" + i);
+                args.add(String.valueOf(i));
+            }
+        }
+        args.add("source");
+        args.add("target");
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * A command line which selects the last generated command by its alias.
+     */
+    static String[] command(int commands) {
+        List<String> args = new ArrayList<String>();
+        args.add("-v");
+        args.add("c" + (commands - 1));
+        for (int i = 0; i < COMMAND_OPTIONS; ++i) {
+            args.add("--command-option-" + i);
+            args.add("value-" + i);
+        }
+        args.add("name");
+        return args.toArray(new String[args.size()]);
+    }
+
+    static String ids() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < IDS; ++i) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(i);
+        }
+        return sb.toString();
+    }
+
+}
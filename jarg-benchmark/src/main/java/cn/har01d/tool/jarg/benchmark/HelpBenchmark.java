@@ -0,0 +1,57 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.JCommand;
+import cn.har01d.tool.jarg.Jarg;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure <code>printHelp</code> for command lines of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HelpBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int options;
+
+    private Jarg jarg;
+    private JCommand command;
+    private PrintStream out;
+
+    @Setup
+    public void setup() {
+        jarg = Clis.create(options, options / 10);
+        jarg.parse(Clis.command(options / 10));
+        command = jarg.getCommand();
+        out = new PrintStream(new NullOutputStream());
+    }
+
+    @Benchmark
+    public void printHelp() {
+        jarg.printHelp(out);
+    }
+
+    @Benchmark
+    public void printCommandHelp() {
+        command.printHelp(out);
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.JSpec;
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseResult;
+import cn.har01d.tool.jarg.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure <code>Jarg.parse</code> and <code>JSpec.parse</code> on small, large and command-heavy argument vectors.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"small", "large", "commands"})
+    public String shape;
+
+    @Param({"50"})
+    public int options;
+
+    @Param({"200"})
+    public int commands;
+
+    private JSpec spec;
+    private String[] args;
+    private String line;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setup() {
+        spec = Clis.create(options, commands).compile();
+        if ("small".equals(shape)) {
+            args = Clis.small();
+        } else if ("large".equals(shape)) {
+            args = Clis.large(options);
+        } else if ("commands".equals(shape)) {
+            args = Clis.command(commands);
+        } else {
+            throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String arg : args) {
+            sb.append(sb.length() == 0 ? "" : " ").append(arg);
+        }
+        line = sb.toString();
+        bytes = ByteBuffer.allocateDirect(line.length() * 3);
+        bytes.put(line.getBytes(Charset.forName("UTF-8"))).flip();
+    }
+
+    @State(Scope.Thread)
+    public static class JargState {
+        Jarg jarg;
+
+        @Setup
+        public void setup(ParseBenchmark benchmark) {
+            jarg = Clis.create(benchmark.options, benchmark.commands);
+        }
+    }
+
+    /**
+     * Parse with a spec shared by all benchmark threads.
+     */
+    @Benchmark
+    public ParseResult specParse() {
+        return spec.parse(args);
+    }
+
+    /**
+     * Parse with a spec shared by all benchmark threads, and return the result to its pool.
+     */
+    @Benchmark
+    public boolean specParsePooled() {
+        ParseResult result = spec.parse(args);
+        boolean present = result.isPresent("help");
+        spec.release(result);
+        return present;
+    }
+
+    /**
+     * Split a command line to a <code>String[]</code> and parse it, the way a server did before parsing lines.
+     */
+    @Benchmark
+    public boolean splitAndParse() {
+        ParseResult result = spec.parse(Tokenizer.split(line));
+        boolean present = result.isPresent("help");
+        spec.release(result);
+        return present;
+    }
+
+    /**
+     * Parse the UTF-8 bytes of a command line, the tokens are ranges of the buffer.
+     */
+    @Benchmark
+    public boolean parseBytes() {
+        ParseResult result = spec.parse(bytes);
+        boolean present = result.isPresent("help");
+        spec.release(result);
+        return present;
+    }
+
+    /**
+     * Parse one <code>Jarg</code> of this thread again, {@link Jarg#parse(String[])} resets the last parse.
+     */
+    @Benchmark
+    public Jarg reparse(JargState state) {
+        state.jarg.parse(args);
+        return state.jarg;
+    }
+
+    /**
+     * Build a new <code>Jarg</code> and parse once, which is what the mutable API required before <code>reset()</code>.
+     */
+    @Benchmark
+    public Jarg buildAndParse() {
+        Jarg jarg = Clis.create(options, commands);
+        jarg.parse(args);
+        return jarg;
+    }
+
+}
@@ -0,0 +1,46 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.Jarg;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare building a huge <code>Jarg</code> with loading its snapshot, to the first parse result in a fresh JVM.
+ * <p>
+ * The snapshot of {@link Clis#huge()} is written at build time by the <code>jarg-maven-plugin</code>,
+ * so no Jarg class is loaded before the benchmark method.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private final String[] args = {"-v", "--option-1", "3", "-f3", "c1", "--command-option-0", "x", "name", "source"};
+
+    @Benchmark
+    public String build() {
+        return parse(Clis.huge());
+    }
+
+    @Benchmark
+    public String load() throws IOException {
+        InputStream in = SnapshotBenchmark.class.getResourceAsStream("/META-INF/jarg/huge.jarg");
+        try {
+            return parse(Jarg.loadSnapshot(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    private String parse(Jarg jarg) {
+        jarg.parse(args);
+        return jarg.getValue("option-1");
+    }
+
+}
@@ -0,0 +1,39 @@
+package cn.har01d.tool.jarg.benchmark;
+
+import cn.har01d.tool.jarg.Jarg;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time from loading the Jarg classes to the first parse result, in a fresh JVM for every sample.
+ * <p>
+ * No Jarg class is loaded before the benchmark method, so a sample covers class loading, initialization,
+ * building a typical command line definition, parsing and reading the values.
+ * {@link BenchmarkRunner} compares the mean with the startup budget.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private final String[] args = {"-u", "admin", "--verbose", "example.com", "8080"};
+
+    @Benchmark
+    public String firstParse() {
+        Jarg jarg = new Jarg("http-client", "A simple HTTP client");
+        jarg.autoHelp();
+        jarg.addOption("--username|-u", "The username");
+        jarg.addOption("--password|-p", "The password").interactive();
+        jarg.addOption("--verbose", "Print the details", false);
+        jarg.addOption("--version|-v", "Show the version", false);
+        jarg.addParameter("host").required();
+        jarg.addParameter("port").defaultValue(80);
+        jarg.parse(args);
+        return jarg.isPresent("verbose") ? jarg.getValue("username") + jarg.getArgument("port") : null;
+    }
+
+}
@@ -0,0 +1,140 @@
+package cn.har01d.tool.jarg.cds;
+
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Run {@link Training} in a child JVM, which writes the loaded classes to a class list and a dynamic class data
+ * sharing archive at exit, and check the archive can be mapped.
+ * <pre>
+ * java cn.har01d.tool.jarg.cds.ArchiveBuilder --classpath app.jar:jarg-cds.jar --factory com.example.Cli#create \
+ *     --samples samples.txt --output build/tool
+ * </pre>
+ * It writes <code>build/tool.jsa</code> and <code>build/tool.classlist</code>, the tool then starts with
+ * <code>-XX:SharedArchiveFile=build/tool.jsa</code> and the same classpath. The archive is only valid for the JVM
+ * which writes it, so build it with the JVM the tool runs with, and the classpath must only contain JAR files.
+ */
+public final class ArchiveBuilder {
+
+    private ArchiveBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Jarg jarg = new Jarg("archive", "Write a class data sharing archive of a Jarg based command line tool");
+        jarg.autoHelp();
+        jarg.addOption("--factory|-f", "The static method which creates the Jarg, class#method, the method is create if omitted");
+        jarg.addOption("--snapshot|-s", "The snapshot file of the Jarg");
+        jarg.addOption("--samples|-i", "The file of the sample command lines, one per line");
+        jarg.addOption("--classpath|-c", "The classpath of the tool, which must contain jarg-cds")
+                .defaultValue(System.getProperty("java.class.path"));
+        jarg.addOption("--output|-o", "The output file without extension").defaultValue("jarg");
+        jarg.addOption("--java", "The java command of the JVM the tool runs with")
+                .defaultValue(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        try {
+            jarg.parse(args);
+            if (jarg.isPresent("factory") == jarg.isPresent("snapshot")) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION, "One of --factory and --snapshot is required");
+            }
+            checkClasspath(jarg.getValue("classpath"));
+        } catch (ParseException e) {
+            jarg.handleError(e);
+        }
+
+        List<String> training = new ArrayList<String>();
+        for (String name : new String[]{"factory", "snapshot", "samples"}) {
+            if (jarg.isPresent(name)) {
+                training.add("--" + name);
+                training.add(jarg.getValue(name));
+            }
+        }
+
+        String output = jarg.getValue("output");
+        File archive = new File(output + ".jsa");
+        File classList = new File(output + ".classlist");
+        File directory = archive.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the directory: " + directory);
+        }
+
+        int status = build(jarg.getValue("java"), jarg.getValue("classpath"), archive, classList, training);
+        if (status != 0) {
+            System.err.println("The training failed with exit code " + status);
+            System.exit(status);
+        }
+        status = verify(jarg.getValue("java"), jarg.getValue("classpath"), archive);
+        if (status != 0) {
+            System.err.println("The archive cannot be used, exit code " + status);
+            System.exit(status);
+        }
+        System.out.println("Wrote " + archive + " (" + archive.length() + " bytes) and " + classList);
+    }
+
+    /**
+     * Run the training in a child JVM which writes the archive and the class list at exit.
+     *
+     * @param java      the java command
+     * @param classpath the classpath of the tool and jarg-cds
+     * @param archive   the archive file
+     * @param classList the class list file
+     * @param training  the arguments of {@link Training}
+     * @return the exit code of the child JVM
+     * @throws IOException          if the JVM cannot be started
+     * @throws InterruptedException if interrupted while waiting for the JVM
+     */
+    public static int build(String java, String classpath, File archive, File classList, List<String> training)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        command.add("-XX:ArchiveClassesAtExit=" + archive.getPath());
+        command.add("-XX:DumpLoadedClassList=" + classList.getPath());
+        command.add("-cp");
+        command.add(classpath);
+        command.add(Training.class.getName());
+        command.addAll(training);
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    /**
+     * Start a JVM which requires the archive, so it fails if the archive cannot be mapped.
+     *
+     * @param java      the java command
+     * @param classpath the classpath the archive is written with
+     * @param archive   the archive file
+     * @return the exit code of the JVM
+     * @throws IOException          if the JVM cannot be started
+     * @throws InterruptedException if interrupted while waiting for the JVM
+     */
+    public static int verify(String java, String classpath, File archive) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        command.add("-Xshare:on");
+        command.add("-XX:SharedArchiveFile=" + archive.getPath());
+        command.add("-cp");
+        command.add(classpath);
+        command.add("-version");
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start()
+                .waitFor();
+    }
+
+    /**
+     * The JVM only archives the classes of JAR files, it refuses to start if a directory of the classpath is not empty.
+     */
+    private static void checkClasspath(String classpath) throws ParseException {
+        for (String element : classpath.split(File.pathSeparator)) {
+            String[] files = new File(element).list();
+            if (files != null && files.length > 0) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION,
+                        "The classpath must only contain JAR files: " + element);
+            }
+        }
+    }
+
+}
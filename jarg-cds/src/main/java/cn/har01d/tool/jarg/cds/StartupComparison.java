@@ -0,0 +1,119 @@
+package cn.har01d.tool.jarg.cds;
+
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compare the cold start of a command line tool with and without a class data sharing archive,
+ * the runs alternate so both sides see the same machine load.
+ * <pre>
+ * java cn.har01d.tool.jarg.cds.StartupComparison --archive build/tool.jsa --classpath app.jar \
+ *     com.example.Tool -- --verbose list
+ * </pre>
+ * The wall time of every process, from start to exit, is measured.
+ */
+public final class StartupComparison {
+
+    private StartupComparison() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Jarg jarg = new Jarg("startup", "Compare the cold start of a command line tool with and without a class data sharing archive");
+        jarg.autoHelp();
+        jarg.addOption("--archive|-a", "The class data sharing archive");
+        jarg.addOption("--runs|-n", "The run count of each side").defaultValue(20);
+        jarg.addOption("--warmup|-w", "The warmup run count of each side, which fills the file cache").defaultValue(2);
+        jarg.addOption("--classpath|-c", "The classpath the archive is written with")
+                .defaultValue(System.getProperty("java.class.path"));
+        jarg.addOption("--java", "The java command")
+                .defaultValue(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        jarg.addParameter("main", true);
+        try {
+            jarg.parse(args);
+            if (!jarg.isPresent("archive")) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION, "The option --archive is required");
+            }
+            if (!new File(jarg.getValue("archive")).isFile()) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION, "The archive does not exist: " + jarg.getValue("archive"));
+            }
+            if (jarg.getIntValue("runs") <= 0) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION, "The run count must be positive");
+            }
+        } catch (ParseException e) {
+            jarg.handleError(e);
+        }
+
+        List<String> arguments = jarg.getArguments();
+        List<String> base = new ArrayList<String>();
+        base.add("-cp");
+        base.add(jarg.getValue("classpath"));
+        base.addAll(arguments);
+        List<String> plain = new ArrayList<String>();
+        plain.add(jarg.getValue("java"));
+        plain.add("-Xshare:auto");
+        plain.addAll(base);
+        List<String> shared = new ArrayList<String>();
+        shared.add(jarg.getValue("java"));
+        shared.add("-XX:SharedArchiveFile=" + jarg.getValue("archive"));
+        shared.addAll(base);
+
+        for (int i = 0; i < jarg.getIntValue("warmup"); ++i) {
+            time(plain);
+            time(shared);
+        }
+        int runs = jarg.getIntValue("runs");
+        long[] plainTimes = new long[runs];
+        long[] sharedTimes = new long[runs];
+        for (int i = 0; i < runs; ++i) {
+            plainTimes[i] = time(plain);
+            sharedTimes[i] = time(shared);
+        }
+
+        System.out.printf("%-16s %10s %10s %10s%n", "", "mean(ms)", "median(ms)", "min(ms)");
+        print("default CDS", plainTimes);
+        print("archive", sharedTimes);
+        System.out.printf("speedup %.2fx (median)%n", (double) median(plainTimes) / median(sharedTimes));
+    }
+
+    /**
+     * Run the command and measure the wall time.
+     *
+     * @param command the command
+     * @return the wall time in nanoseconds
+     * @throws IOException          if the process cannot be started
+     * @throws InterruptedException if interrupted while waiting for the process
+     */
+    static long time(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        process.waitFor();
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, long[] times) {
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        for (long time : times) {
+            sum += time;
+            min = Math.min(min, time);
+        }
+        System.out.printf("%-16s %10.1f %10.1f %10.1f%n", name, sum / 1e6 / times.length, median(times) / 1e6, min / 1e6);
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = Arrays.copyOf(times, times.length);
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 0 ? (sorted[middle - 1] + sorted[middle]) / 2 : sorted[middle];
+    }
+
+}
@@ -0,0 +1,154 @@
+package cn.har01d.tool.jarg.cds;
+
+import cn.har01d.tool.jarg.JCommand;
+import cn.har01d.tool.jarg.JOption;
+import cn.har01d.tool.jarg.JSpec;
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseException;
+import cn.har01d.tool.jarg.ParseResult;
+import cn.har01d.tool.jarg.Tokenizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A training run of a <code>Jarg</code>, which loads the classes a command line tool loads at runtime,
+ * so the JVM running it can write them to a class list and a class data sharing archive, see {@link ArchiveBuilder}.
+ * <p>
+ * The <code>Jarg</code> is created by a static method without parameters, "class#method", or loaded from a snapshot.
+ * Every sample command line is parsed by the <code>JSpec</code> and by the <code>Jarg</code>, the help is printed if
+ * it is asked, otherwise the option values are read, and the errors are printed like {@link Jarg#handleError},
+ * without exiting. The help of every command, the completion scripts and an unknown option are also trained.
+ * All the output is discarded.
+ * <pre>
+ * java cn.har01d.tool.jarg.cds.Training --factory com.example.Cli#create --samples samples.txt
+ * </pre>
+ * A samples file has a command line per line, split like a POSIX shell, empty lines and lines starting with '#'
+ * are skipped.
+ */
+public final class Training {
+
+    private static final String UNKNOWN_OPTION = "--jarg-training-unknown-option";
+    private static final String[] SHELLS = {"bash", "zsh"};
+
+    private Training() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Jarg jarg = new Jarg("training", "Run the command lines of a Jarg to train a class data sharing archive");
+        jarg.autoHelp();
+        jarg.addOption("--factory|-f", "The static method which creates the Jarg, class#method, the method is create if omitted");
+        jarg.addOption("--snapshot|-s", "The snapshot file of the Jarg");
+        jarg.addOption("--samples|-i", "The file of the sample command lines, one per line");
+        try {
+            jarg.parse(args);
+            if (jarg.isPresent("factory") == jarg.isPresent("snapshot")) {
+                throw new ParseException(ParseException.CONSTRAINT_VIOLATION, "One of --factory and --snapshot is required");
+            }
+        } catch (ParseException e) {
+            jarg.handleError(e);
+        }
+
+        Jarg target = jarg.isPresent("factory") ? create(jarg.getValue("factory"))
+                : Jarg.loadSnapshot(new File(jarg.getValue("snapshot")));
+        List<String[]> samples = jarg.isPresent("samples") ? readSamples(jarg.getValue("samples")) : new ArrayList<String[]>();
+        train(target, samples);
+    }
+
+    /**
+     * Run the sample command lines and the help of the <code>Jarg</code>, the output is discarded.
+     *
+     * @param jarg    the <code>Jarg</code>
+     * @param samples the sample command lines, an empty command line is always run
+     */
+    public static void train(Jarg jarg, List<String[]> samples) {
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+        List<String[]> lines = new ArrayList<String[]>(samples);
+        lines.add(new String[0]);
+        lines.add(new String[]{UNKNOWN_OPTION});
+
+        JSpec spec = jarg.compile();
+        for (String[] line : lines) {
+            try {
+                ParseResult result = spec.parse(line);
+                if (jarg.printHelp(result, sink)) {
+                    continue;
+                }
+                jarg.parse(line);
+                readValues(jarg);
+            } catch (ParseException e) {
+                jarg.printError(e, sink, sink);
+            }
+        }
+
+        jarg.printHelp(sink);
+        printHelp(jarg, sink);
+        for (String shell : SHELLS) {
+            jarg.printCompletionScript(shell, sink);
+        }
+        sink.flush();
+    }
+
+    private static void readValues(Jarg jarg) {
+        JCommand command = jarg.getCommand() == null ? jarg : jarg.getCommand();
+        for (JCommand c = command; c != null; c = c.getParent()) {
+            for (JOption option : c.getOptions()) {
+                String name = option.getName().replaceFirst("^-+", "");
+                jarg.isPresent(name);
+                jarg.getValue(name);
+            }
+        }
+        for (int i = 0; i < jarg.getArgumentSize(); ++i) {
+            jarg.getArgument(i);
+        }
+    }
+
+    private static void printHelp(JCommand command, PrintStream sink) {
+        for (JCommand subcommand : command.getCommands()) {
+            subcommand.printHelp(sink);
+            printHelp(subcommand, sink);
+        }
+    }
+
+    /**
+     * Create the <code>Jarg</code> by the static method.
+     *
+     * @param factory "class#method", the method is "create" if omitted
+     * @return the <code>Jarg</code>
+     */
+    static Jarg create(String factory) {
+        int hash = factory.indexOf('#');
+        String className = hash < 0 ? factory : factory.substring(0, hash);
+        String methodName = hash < 0 ? "create" : factory.substring(hash + 1);
+        try {
+            Method method = Class.forName(className).getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            return (Jarg) method.invoke(null);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot call the factory method: " + factory, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("The factory method failed: " + factory, e.getCause());
+        }
+    }
+
+    static List<String[]> readSamples(String file) throws IOException {
+        List<String[]> samples = new ArrayList<String[]>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                samples.add(Tokenizer.split(trimmed));
+            }
+        }
+        return samples;
+    }
+
+}
@@ -0,0 +1,107 @@
+package cn.har01d.tool.jarg.cds;
+
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseException;
+import cn.har01d.tool.jarg.ParseStatistics;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TrainingTest {
+
+    static Jarg create() {
+        Jarg jarg = new Jarg("tool");
+        jarg.autoHelp();
+        jarg.addOption("--verbose|-v", "Verbose", false);
+        jarg.addCommand("run", "Run a job").addParameter("job", true);
+        return jarg;
+    }
+
+    static Jarg broken() {
+        throw new IllegalStateException("broken");
+    }
+
+    @Test
+    public void runsTheSamplesQuietly() {
+        Jarg jarg = create();
+        ParseStatistics statistics = new ParseStatistics();
+        jarg.addParseListener(statistics);
+        List<String[]> samples = Arrays.asList(new String[]{"-v", "run", "build"}, new String[]{"--help"},
+                new String[]{"--bad"}, new String[]{"run"});
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true));
+        System.setErr(new PrintStream(bytes, true));
+        try {
+            Training.train(jarg, samples);
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+
+        assertEquals("", bytes.toString());
+        // each sample is parsed by the spec, and again by the Jarg unless it asks the help or fails,
+        // then the empty command line and an unknown option
+        assertEquals(2 + 1 + 1 + 1 + 2 + 1, statistics.getParses());
+        assertEquals(2, statistics.getErrors(ParseException.UNKNOWN_OPTION));
+        assertEquals(1, statistics.getErrors(ParseException.ARG_REQUIRED));
+    }
+
+    @Test
+    public void callsTheFactoryMethod() {
+        assertEquals("tool", Training.create(TrainingTest.class.getName()).getName());
+        assertEquals("tool", Training.create(TrainingTest.class.getName() + "#create").getName());
+    }
+
+    @Test
+    public void reportsAFailedFactory() {
+        try {
+            Training.create("com.example.Missing");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot call the factory method: com.example.Missing", e.getMessage());
+        }
+        try {
+            Training.create(TrainingTest.class.getName() + "#missing");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot call the factory method: " + TrainingTest.class.getName() + "#missing", e.getMessage());
+        }
+        try {
+            Training.create(TrainingTest.class.getName() + "#broken");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("broken", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void readsTheSamples() throws IOException {
+        Path file = Files.createTempFile("jarg", ".txt");
+        try {
+            Files.write(file, "# samples\n\nrun build\n  -v run 'a job'  \n#run skipped\n".getBytes(StandardCharsets.UTF_8));
+
+            List<String[]> samples = Training.readSamples(file.toString());
+
+            assertEquals(2, samples.size());
+            assertArrayEquals(new String[]{"run", "build"}, samples.get(0));
+            assertArrayEquals(new String[]{"-v", "run", "a job"}, samples.get(1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
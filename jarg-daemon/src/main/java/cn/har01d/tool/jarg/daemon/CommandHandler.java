@@ -0,0 +1,20 @@
+package cn.har01d.tool.jarg.daemon;
+
+import cn.har01d.tool.jarg.ParseResult;
+
+/**
+ * Run a parsed command line of a session.
+ */
+public interface CommandHandler {
+
+    /**
+     * Run the command. The result is reused by another session after this method returns, so it must not be kept.
+     *
+     * @param result  the parsed arguments of the session
+     * @param session the session
+     * @return the exit code of the client
+     * @throws Exception the error is printed like <code>Jarg.handleError</code>, and the exit code is 1
+     */
+    int run(ParseResult result, Session session) throws Exception;
+
+}
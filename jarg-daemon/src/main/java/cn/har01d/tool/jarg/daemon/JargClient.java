@@ -0,0 +1,88 @@
+package cn.har01d.tool.jarg.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A client of {@link JargDaemon}.
+ * <p>
+ * It still starts a JVM, so it is mainly a reference of the protocol and a way to test the daemon,
+ * a native client gets the full benefit of the daemon.
+ * <pre>
+ * java cn.har01d.tool.jarg.daemon.JargClient /tmp/tool.sock arguments...
+ * </pre>
+ */
+public final class JargClient {
+
+    private JargClient() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JargClient SOCKET [ARGUMENT]...");
+            System.exit(2);
+        }
+        int status = run(Paths.get(args[0]), Arrays.copyOfRange(args, 1, args.length),
+                System.getenv(), System.getProperty("user.dir"), System.out, System.err);
+        System.out.flush();
+        System.exit(status);
+    }
+
+    /**
+     * Run the command line in the daemon.
+     *
+     * @param socket the socket file of the daemon
+     * @param args   the arguments
+     * @param env    the environment variables
+     * @param cwd    the working directory
+     * @param out    receive the output stream
+     * @param err    receive the error stream
+     * @return the exit code
+     * @throws IOException if the daemon cannot be reached or the session is broken
+     */
+    public static int run(Path socket, String[] args, Map<String, String> env, String cwd,
+                          OutputStream out, OutputStream err) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            Protocol.writeRequest(request, args, env, cwd);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    throw new IOException("Session closed without exit code", e);
+                }
+                int length = in.readInt();
+                if (type == Protocol.EXIT) {
+                    return in.readInt();
+                }
+                OutputStream target = type == Protocol.STDERR ? err : out;
+                while (length > 0) {
+                    int n = in.read(buffer, 0, Math.min(buffer.length, length));
+                    if (n < 0) {
+                        throw new EOFException();
+                    }
+                    target.write(buffer, 0, n);
+                    length -= n;
+                }
+                target.flush();
+            }
+        }
+    }
+
+}
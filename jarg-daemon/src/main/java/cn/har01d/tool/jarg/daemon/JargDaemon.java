@@ -0,0 +1,199 @@
+package cn.har01d.tool.jarg.daemon;
+
+import cn.har01d.tool.jarg.Dispatcher;
+import cn.har01d.tool.jarg.JSpec;
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseResult;
+import cn.har01d.tool.jarg.ValueSource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keep a compiled <code>Jarg</code> and its handler in a long-lived JVM and serve clients over a Unix domain socket,
+ * so an invocation does not pay for the JVM startup.
+ * <p>
+ * Every connection is one session: the client sends its arguments, environment and working directory,
+ * the daemon parses the arguments with the shared <code>JSpec</code>, runs the handler on its own thread,
+ * a virtual thread if the JVM supports it, streams back the output and error streams and ends with the exit code.
+ * The help asked by {@link Jarg#autoHelp()} exits with 0, and a parse error is printed like
+ * {@link Jarg#handleError(Exception)} and exits with 1, without stopping the daemon.
+ * Interactive options cannot be prompted, they must have a value in the command line.
+ * <p>
+ * A relative "@file" argument of {@link Jarg#expandArgFiles()} is resolved against the working directory of the client.
+ * The value sources are resolved once in the daemon JVM, so a <code>Jarg</code> with an environment source is rejected,
+ * the handler reads the environment of the client by {@link Session#getEnv(String)} instead.
+ * See {@link Protocol} for the wire format, and {@link JargClient} for a client.
+ */
+public final class JargDaemon implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(JargDaemon.class.getName());
+
+    private final Jarg jarg;
+    private final JSpec spec;
+    private final CommandHandler handler;
+    private final ExecutorService executor;
+    private ServerSocketChannel server;
+    private Path socket;
+
+    /**
+     * Create a daemon, the <code>Jarg</code> is compiled once, later changes are not visible to the sessions.
+     *
+     * @param jarg    the command line definition
+     * @param handler the handler of the sessions
+     * @throws IllegalArgumentException if the <code>Jarg</code> has an environment source
+     */
+    public JargDaemon(Jarg jarg, CommandHandler handler) {
+        for (ValueSource source : jarg.getSources()) {
+            if (source.isEnvironment()) {
+                throw new IllegalArgumentException("Environment source is not supported by the daemon: " + source);
+            }
+        }
+        this.jarg = jarg;
+        this.spec = jarg.compile();
+        this.handler = handler;
+        ExecutorService virtual = Dispatcher.newVirtualThreadExecutor();
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(new SessionThreadFactory());
+    }
+
+    /**
+     * Listen on the socket file and serve the clients until the daemon is closed.
+     * An existing socket file is replaced. The socket is bound to a temporary file which is renamed when it listens,
+     * so a client never finds a socket file which refuses the connection.
+     *
+     * @param socket the socket file
+     * @throws IOException if the socket cannot be bound
+     */
+    public void serve(Path socket) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        Path bound = socket.resolveSibling(socket.getFileName() + ".tmp");
+        try {
+            Files.deleteIfExists(bound);
+            channel.bind(UnixDomainSocketAddress.of(bound));
+            Files.move(bound, socket, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(bound);
+            throw e;
+        }
+        synchronized (this) {
+            this.server = channel;
+            this.socket = socket;
+        }
+
+        try {
+            while (true) {
+                final SocketChannel client = channel.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(client);
+                    }
+                });
+            }
+        } catch (ClosedChannelException e) {
+            // closed by close()
+        } finally {
+            close();
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (SocketChannel channel = client) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            Session session = Protocol.readRequest(in, out);
+            int status = run(session);
+            session.flush();
+            Protocol.writeExit(out, status);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Session is broken", e);
+        }
+    }
+
+    /**
+     * Parse the arguments of the session and run the handler.
+     *
+     * @param session the session
+     * @return the exit code
+     */
+    int run(Session session) {
+        ParseResult result = null;
+        try {
+            result = spec.parse(resolveArgFiles(session), false);
+            if (jarg.printHelp(result, session.getOut())) {
+                return 0;
+            }
+            return handler.run(result, session);
+        } catch (Exception e) {
+            jarg.printError(e, result, session.getOut(), session.getErr());
+            return 1;
+        } finally {
+            if (result != null) {
+                spec.release(result);
+            }
+        }
+    }
+
+    private String[] resolveArgFiles(Session session) {
+        String[] args = session.getArgs();
+        if (!jarg.isExpandArgFiles()) {
+            return args;
+        }
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].length() > 1 && args[i].charAt(0) == '@') {
+                try {
+                    args[i] = "@" + session.resolve(args[i].substring(1));
+                } catch (InvalidPathException e) {
+                    // reported as an invalid argument file by the parser
+                }
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Stop accepting clients and remove the socket file, the running sessions are not interrupted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        executor.shutdown();
+        if (server != null) {
+            server.close();
+            Files.deleteIfExists(socket);
+            server = null;
+        }
+    }
+
+    private static final class SessionThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jarg-session-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
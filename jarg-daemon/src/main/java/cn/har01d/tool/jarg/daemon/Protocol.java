@@ -0,0 +1,142 @@
+package cn.har01d.tool.jarg.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The wire format between a client and the daemon, all integers are big-endian.
+ * <p>
+ * The client sends one request:
+ * <pre>
+ * int    MAGIC
+ * int    argc,  argc strings
+ * int    envc,  envc pairs of strings (name, value)
+ * string cwd
+ * </pre>
+ * A string is an int length followed by the UTF-8 bytes.
+ * <p>
+ * The daemon answers with frames: a type byte, an int length and the bytes.
+ * {@link #STDOUT} and {@link #STDERR} frames carry the output, the last frame is {@link #EXIT},
+ * its 4 bytes are the exit code.
+ */
+final class Protocol {
+
+    static final int MAGIC = 0x4A415247; // "JARG"
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    private static final int MAX_STRING = 16 * 1024 * 1024;
+    private static final int MAX_COUNT = 1024 * 1024;
+
+    private Protocol() {
+    }
+
+    static void writeRequest(DataOutputStream out, String[] args, Map<String, String> env, String cwd) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        out.writeInt(env.size());
+        for (Map.Entry<String, String> entry : env.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        writeString(out, cwd);
+        out.flush();
+    }
+
+    static Session readRequest(DataInputStream in, DataOutputStream out) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid request");
+        }
+        String[] args = new String[readCount(in)];
+        for (int i = 0; i < args.length; ++i) {
+            args[i] = readString(in);
+        }
+        int envc = readCount(in);
+        Map<String, String> env = new LinkedHashMap<String, String>();
+        for (int i = 0; i < envc; ++i) {
+            env.put(readString(in), readString(in));
+        }
+        String cwd = readString(in);
+        return new Session(args, env, cwd, out);
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a frame, the frames of the output and error streams share the socket.
+     */
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes, int offset, int length) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+            out.flush();
+        }
+    }
+
+    static void writeExit(DataOutputStream out, int status) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(4);
+            out.writeInt(status);
+            out.flush();
+        }
+    }
+
+    /**
+     * An output stream which sends its bytes as frames of one type.
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                writeFrame(out, type, bytes, offset, length);
+            }
+        }
+    }
+
+}
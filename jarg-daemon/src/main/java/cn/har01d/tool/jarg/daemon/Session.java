@@ -0,0 +1,104 @@
+package cn.har01d.tool.jarg.daemon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One invocation of a client: its arguments, environment, working directory and output streams.
+ * <p>
+ * The handlers run in the daemon JVM, so they must use the session instead of
+ * <code>System.out</code>, <code>System.err</code>, <code>System.getenv</code> and the "user.dir" property,
+ * and return the exit code instead of calling <code>System.exit</code>.
+ */
+public final class Session {
+
+    private final String[] args;
+    private final Map<String, String> env;
+    private final Path cwd;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    Session(String[] args, Map<String, String> env, String cwd, DataOutputStream socket) {
+        this.args = args;
+        this.env = Collections.unmodifiableMap(env);
+        this.cwd = Paths.get(cwd);
+        this.out = stream(socket, Protocol.STDOUT);
+        this.err = stream(socket, Protocol.STDERR);
+    }
+
+    private static PrintStream stream(DataOutputStream socket, byte type) {
+        return new PrintStream(new BufferedOutputStream(new Protocol.FrameOutputStream(socket, type)), true, StandardCharsets.UTF_8);
+    }
+
+    public String[] getArgs() {
+        return args.clone();
+    }
+
+    /**
+     * Get the environment variables of the client.
+     *
+     * @return the unmodifiable environment
+     */
+    public Map<String, String> getEnv() {
+        return env;
+    }
+
+    /**
+     * Get the environment variable of the client.
+     *
+     * @param name the name
+     * @return the value, or null if not defined
+     */
+    public String getEnv(String name) {
+        return env.get(name);
+    }
+
+    /**
+     * Get the working directory of the client.
+     *
+     * @return the working directory
+     */
+    public Path getCwd() {
+        return cwd;
+    }
+
+    /**
+     * Resolve the path against the working directory of the client.
+     *
+     * @param path the path
+     * @return the resolved path
+     */
+    public Path resolve(String path) {
+        return cwd.resolve(path);
+    }
+
+    /**
+     * Get the output stream, sent to the standard output of the client.
+     *
+     * @return the output stream
+     */
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Get the error stream, sent to the standard error of the client.
+     *
+     * @return the error stream
+     */
+    public PrintStream getErr() {
+        return err;
+    }
+
+    void flush() {
+        out.flush();
+        err.flush();
+    }
+
+}
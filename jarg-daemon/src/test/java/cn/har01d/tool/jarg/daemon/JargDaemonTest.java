@@ -0,0 +1,250 @@
+package cn.har01d.tool.jarg.daemon;
+
+import cn.har01d.tool.jarg.JCommand;
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseResult;
+import cn.har01d.tool.jarg.ValueSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JargDaemonTest {
+
+    private Path dir;
+    private Path socket;
+    private JargDaemon daemon;
+    private Thread thread;
+
+    private static Jarg createJarg() {
+        Jarg jarg = new Jarg("tool");
+        jarg.autoHelp().expandArgFiles();
+        jarg.addOption("--name|-n", "The name").defaultValue("world");
+        JCommand greet = jarg.addCommand("greet", "Greet someone");
+        greet.addOption("--times|-t", "The times");
+        greet.addParameter("greeting", true);
+        jarg.addCommand("env", "Print the environment").addParameter("variable", true);
+        jarg.addCommand("fail", "Fail");
+        return jarg;
+    }
+
+    private static final CommandHandler HANDLER = new CommandHandler() {
+        @Override
+        public int run(ParseResult result, Session session) {
+            if (result.isCommand("fail")) {
+                throw new IllegalStateException("Failed on purpose");
+            }
+            if (result.isCommand("env")) {
+                session.getOut().println(session.getEnv(result.getArgument("variable")) + " in " + session.getCwd());
+                return 3;
+            }
+            int times = result.getValue("times", Integer.class) == null ? 1 : result.getValue("times", Integer.class);
+            for (int i = 0; i < times; ++i) {
+                session.getOut().println(result.getArgument("greeting") + ", " + result.getValue("name"));
+            }
+            session.getErr().println("done");
+            return 0;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("jarg");
+        socket = dir.resolve("tool.sock");
+        start(createJarg());
+    }
+
+    private void start(Jarg jarg) throws InterruptedException {
+        daemon = new JargDaemon(jarg, HANDLER);
+        thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    daemon.serve(socket);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        thread.start();
+        for (int i = 0; i < 500 && !Files.exists(socket); ++i) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(socket));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.close();
+        thread.join(5000);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void runsTheHandler() throws IOException {
+        Output output = run("greet", "-n", "Alice", "-t", "2", "Hello");
+
+        assertEquals(0, output.status);
+        assertEquals("Hello, Alice\nHello, Alice\n", output.out);
+        assertEquals("done\n", output.err);
+    }
+
+    @Test
+    public void sendsTheEnvironmentAndTheWorkingDirectory() throws IOException {
+        Output output = JargDaemonTest.run(socket, Collections.singletonMap("GREETING", "Hi"), "/home/alice", "env", "GREETING");
+
+        assertEquals(3, output.status);
+        assertEquals("Hi in /home/alice\n", output.out);
+    }
+
+    @Test
+    public void readsTheArgFilesInTheWorkingDirectory() throws IOException {
+        Files.write(dir.resolve("args.txt"), "greet --name 'Bob Smith'\nHey\n".getBytes(StandardCharsets.UTF_8));
+
+        Output output = JargDaemonTest.run(socket, Collections.<String, String>emptyMap(), dir.toString(), "@args.txt");
+
+        assertEquals(0, output.status);
+        assertEquals("Hey, Bob Smith\n", output.out);
+    }
+
+    @Test
+    public void printsTheHelp() throws IOException {
+        Output output = run("greet", "--help");
+
+        assertEquals(0, output.status);
+        assertTrue(output.out, output.out.contains("greet [OPTION]... GREETING"));
+        assertTrue(output.out, output.out.contains("--times"));
+    }
+
+    @Test
+    public void printsTheParseErrorOfTheCommand() throws IOException {
+        Output output = run("greet", "--unknown");
+
+        assertEquals(1, output.status);
+        assertTrue(output.err, output.err.startsWith("Unknown option: --unknown"));
+        assertTrue(output.out, output.out.contains("--times"));
+
+        output = run("greet");
+        assertEquals(1, output.status);
+        assertTrue(output.out, output.out.startsWith("Usage: greet"));
+    }
+
+    @Test
+    public void printsTheErrorOfTheHandler() throws IOException {
+        Output output = run("fail");
+
+        assertEquals(1, output.status);
+        assertEquals("Failed on purpose\n", output.err);
+        assertEquals(0, run("greet", "Hello").status);
+    }
+
+    @Test
+    public void servesManyClients() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Output>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; ++i) {
+                final String name = "user" + i;
+                final boolean bad = i % 4 == 0;
+                futures.add(executor.submit(new Callable<Output>() {
+                    @Override
+                    public Output call() throws IOException {
+                        return bad ? run("greet", "-n", name, "-x") : run("greet", "-n", name, "Hello");
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                Output output = futures.get(i).get();
+                if (i % 4 == 0) {
+                    assertEquals(1, output.status);
+                    assertTrue(output.out, output.out.contains("--times"));
+                } else {
+                    assertEquals(0, output.status);
+                    assertEquals("Hello, user" + i + "\n", output.out);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void removesTheSocketWhenClosed() throws Exception {
+        daemon.close();
+        thread.join(5000);
+
+        assertFalse(thread.isAlive());
+        assertFalse(Files.exists(socket));
+        try {
+            run("greet", "Hello");
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsAnEnvironmentSource() {
+        Jarg jarg = createJarg();
+        jarg.addSource(ValueSource.environment("TOOL_"));
+        try {
+            new JargDaemon(jarg, HANDLER);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Environment source is not supported by the daemon: environment", e.getMessage());
+        }
+
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "config");
+        new JargDaemon(createJarg().addSource(ValueSource.of("config", values)), HANDLER);
+    }
+
+    private Output run(String... args) throws IOException {
+        return run(socket, Collections.<String, String>emptyMap(), dir.toString(), args);
+    }
+
+    private static Output run(Path socket, Map<String, String> env, String cwd, String... args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = JargClient.run(socket, args, env, cwd, out, err);
+        return new Output(status, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    private static final class Output {
+        final int status;
+        final String out;
+        final String err;
+
+        Output(int status, String out, String err) {
+            this.status = status;
+            this.out = out.replace(System.lineSeparator(), "\n");
+            this.err = err.replace(System.lineSeparator(), "\n");
+        }
+    }
+
+}
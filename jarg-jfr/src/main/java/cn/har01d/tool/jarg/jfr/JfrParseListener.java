@@ -0,0 +1,38 @@
+package cn.har01d.tool.jarg.jfr;
+
+import cn.har01d.tool.jarg.ParseListener;
+import cn.har01d.tool.jarg.ParseMetrics;
+
+/**
+ * Record every parse as a <code>cn.har01d.tool.jarg.Parse</code> event of the JDK Flight Recorder.
+ * <p>
+ * The event is enabled by default, the fields are only filled when a recording is running,
+ * such as one started by <code>-XX:StartFlightRecording</code>.
+ *
+ * <pre>
+ * jarg.addParseListener(new JfrParseListener());
+ * </pre>
+ */
+public final class JfrParseListener implements ParseListener {
+
+    @Override
+    public void parsed(ParseMetrics metrics) {
+        ParseEvent event = new ParseEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.tokenizeTime = metrics.getTokenizeNanos();
+        event.scanTime = metrics.getScanNanos();
+        event.bindTime = metrics.getBindNanos();
+        event.promptTime = metrics.getPromptNanos();
+        event.validateTime = metrics.getValidateNanos();
+        event.tokens = metrics.getTokens();
+        event.options = metrics.getOptions();
+        event.arguments = metrics.getArguments();
+        event.command = metrics.getCommand();
+        event.errorCode = metrics.getErrorCode();
+        event.error = metrics.getError() == null ? null : metrics.getError().getMessage();
+        event.commit();
+    }
+
+}
@@ -0,0 +1,60 @@
+package cn.har01d.tool.jarg.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for one parse, committed after the parse with the timings of its phases.
+ */
+@Name("cn.har01d.tool.jarg.Parse")
+@Label("Parse")
+@Category("Jarg")
+@Description("The timings and counters of a Jarg parse")
+@StackTrace(false)
+class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Tokenize Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long tokenizeTime;
+
+    @Label("Scan Time")
+    @Description("The time to match the options and to resolve the command")
+    @Timespan(Timespan.NANOSECONDS)
+    long scanTime;
+
+    @Label("Bind Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long bindTime;
+
+    @Label("Prompt Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long promptTime;
+
+    @Label("Validate Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateTime;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Options")
+    int options;
+
+    @Label("Arguments")
+    int arguments;
+
+    @Label("Command")
+    String command;
+
+    @Label("Error Code")
+    @Description("The code of the ParseException, 0 if the parse succeeded")
+    int errorCode;
+
+    @Label("Error")
+    String error;
+
+}
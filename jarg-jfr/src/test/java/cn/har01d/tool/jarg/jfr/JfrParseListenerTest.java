@@ -0,0 +1,89 @@
+package cn.har01d.tool.jarg.jfr;
+
+import cn.har01d.tool.jarg.JSpec;
+import cn.har01d.tool.jarg.Jarg;
+import cn.har01d.tool.jarg.ParseException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JfrParseListenerTest {
+
+    private static JSpec createSpec() {
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--verbose|-v", "Verbose", false);
+        jarg.addCommand("run", "Run a job").addParameter("job", true);
+        jarg.addParseListener(new JfrParseListener());
+        return jarg.compile();
+    }
+
+    @Test
+    public void recordsTheParses() throws IOException {
+        JSpec spec = createSpec();
+        List<RecordedEvent> events = record(spec, true, new String[]{"-v", "run", "build"}, new String[]{"--unknown"});
+
+        assertEquals(2, events.size());
+        RecordedEvent parsed = events.get(0);
+        assertEquals(3, parsed.getInt("tokens"));
+        assertEquals(1, parsed.getInt("options"));
+        assertEquals(1, parsed.getInt("arguments"));
+        assertEquals("run", parsed.getString("command"));
+        assertEquals(0, parsed.getInt("errorCode"));
+        assertNull(parsed.getString("error"));
+        assertTrue(parsed.getDuration("scanTime").toNanos() >= 0);
+
+        RecordedEvent failed = events.get(1);
+        assertEquals(ParseException.UNKNOWN_OPTION, failed.getInt("errorCode"));
+        assertEquals("Unknown option: --unknown", failed.getString("error"));
+    }
+
+    @Test
+    public void doesNotRecordADisabledEvent() throws IOException {
+        assertTrue(record(createSpec(), false, new String[]{"run", "build"}).isEmpty());
+    }
+
+    private static List<RecordedEvent> record(JSpec spec, boolean enabled, String[]... parses) throws IOException {
+        try (Recording recording = new Recording()) {
+            if (enabled) {
+                recording.enable("cn.har01d.tool.jarg.Parse");
+            } else {
+                recording.disable("cn.har01d.tool.jarg.Parse");
+            }
+            recording.start();
+            for (String[] args : parses) {
+                try {
+                    spec.parse(args, false);
+                } catch (ParseException e) {
+                    // recorded as a failed parse
+                }
+            }
+            recording.stop();
+
+            Path file = Files.createTempFile("jarg", ".jfr");
+            try {
+                recording.dump(file);
+                List<RecordedEvent> events = new ArrayList<>();
+                for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                    if (event.getEventType().getName().equals("cn.har01d.tool.jarg.Parse")) {
+                        events.add(event);
+                    }
+                }
+                return events;
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package cn.har01d.tool.jarg.maven;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Write the snapshot of a <code>Jarg</code> to the classes of the project, which is loaded at runtime by
+ * <code>Jarg.loadSnapshot</code> instead of building and compiling the <code>Jarg</code>.
+ * <p>
+ * The <code>Jarg</code> is created by a static method without parameters of the project, such as
+ * <code>com.example.Cli#create</code>, which is called in a class loader of the compiled classes and the
+ * runtime dependencies, so the snapshot is written by the Jarg version the project runs with.
+ */
+@Mojo(name = "snapshot", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.RUNTIME)
+public class SnapshotMojo extends AbstractMojo {
+
+    private static final String JARG = "cn.har01d.tool.jarg.Jarg";
+
+    /**
+     * The static method which creates the <code>Jarg</code>, "class#method", the method is "create" if omitted.
+     */
+    @Parameter(property = "jarg.factory", required = true)
+    private String factory;
+
+    /**
+     * The snapshot file.
+     */
+    @Parameter(property = "jarg.snapshot", defaultValue = "${project.build.outputDirectory}/META-INF/jarg/${project.artifactId}.jarg")
+    private File output;
+
+    @Parameter(property = "jarg.snapshot.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Parameter(defaultValue = "${project.runtimeClasspathElements}", readonly = true, required = true)
+    private List<String> classpathElements;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skip the Jarg snapshot");
+            return;
+        }
+
+        int hash = factory.indexOf('#');
+        String className = hash < 0 ? factory : factory.substring(0, hash);
+        String methodName = hash < 0 ? "create" : factory.substring(hash + 1);
+        URLClassLoader loader = new URLClassLoader(toUrls(classpathElements), ClassLoader.getSystemClassLoader().getParent());
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            Object jarg = create(loader, className, methodName);
+            write(jarg);
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+            try {
+                loader.close();
+            } catch (IOException e) {
+                getLog().debug(e);
+            }
+        }
+    }
+
+    private Object create(ClassLoader loader, String className, String methodName) throws MojoExecutionException {
+        try {
+            Class<?> type = Class.forName(className, true, loader);
+            Method method = type.getDeclaredMethod(methodName);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                throw new MojoExecutionException("The factory method is not static: " + factory);
+            }
+            method.setAccessible(true);
+            Object jarg = method.invoke(null);
+            if (jarg == null || !jarg.getClass().getName().equals(JARG)) {
+                throw new MojoExecutionException("The factory method does not return a Jarg: " + factory);
+            }
+            return jarg;
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Cannot find the factory class: " + className, e);
+        } catch (NoSuchMethodException e) {
+            throw new MojoExecutionException("Cannot find the factory method: " + factory, e);
+        } catch (IllegalAccessException e) {
+            throw new MojoExecutionException("Cannot call the factory method: " + factory, e);
+        } catch (InvocationTargetException e) {
+            throw new MojoExecutionException("The factory method failed: " + factory, e.getCause());
+        }
+    }
+
+    private void write(Object jarg) throws MojoExecutionException {
+        File directory = output.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new MojoExecutionException("Cannot create the directory: " + directory);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+            jarg.getClass().getMethod("writeSnapshot", OutputStream.class).invoke(jarg, out);
+        } catch (NoSuchMethodException e) {
+            throw new MojoExecutionException("The Jarg version of the project does not support snapshots", e);
+        } catch (IllegalAccessException e) {
+            throw new MojoExecutionException("Cannot write the snapshot", e);
+        } catch (InvocationTargetException e) {
+            throw new MojoExecutionException("Cannot write the snapshot: " + output, e.getCause());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot write the snapshot: " + output, e);
+        }
+        getLog().info("Wrote the Jarg snapshot " + output + " (" + output.length() + " bytes)");
+    }
+
+    private static URL[] toUrls(List<String> elements) throws MojoExecutionException {
+        URL[] urls = new URL[elements.size()];
+        for (int i = 0; i < urls.length; ++i) {
+            try {
+                urls[i] = new File(elements.get(i)).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new MojoExecutionException("Invalid classpath element: " + elements.get(i), e);
+            }
+        }
+        return urls;
+    }
+
+}
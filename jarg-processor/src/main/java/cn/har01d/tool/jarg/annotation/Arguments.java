@@ -0,0 +1,14 @@
+package cn.har01d.tool.jarg.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bind all the positional arguments to a <code>List&lt;String&gt;</code> field, the same as <code>Jarg.getArguments</code>.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Arguments {
+}
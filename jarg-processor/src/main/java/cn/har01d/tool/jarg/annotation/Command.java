@@ -0,0 +1,34 @@
+package cn.har01d.tool.jarg.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * On a class, generate a parser named <code>ClassNameParser</code> in the same package.
+ * <p>
+ * On a field of the annotated class, add a command, the same as <code>Jarg.addCommand</code>.
+ * The field type declares the options and parameters of the command,
+ * a new instance is assigned to the field when the command is present.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.FIELD})
+public @interface Command {
+
+    /**
+     * The command name, the field name by default.
+     */
+    String value() default "";
+
+    /**
+     * The command aliases.
+     */
+    String[] aliases() default {};
+
+    /**
+     * The command summary.
+     */
+    String summary() default "";
+
+}
@@ -0,0 +1,33 @@
+package cn.har01d.tool.jarg.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bind an option to a field, the same as <code>JCommand.addOption</code>.
+ * <p>
+ * A <code>boolean</code> field is a flag option which doesn't have value.
+ * A <code>List&lt;String&gt;</code> field receives all the values of the option.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Option {
+
+    /**
+     * The options separate by "|", e.g.: "-f|--file".
+     */
+    String value();
+
+    /**
+     * The option description.
+     */
+    String description() default "";
+
+    /**
+     * Read the value from the console with echoing disabled if it is not provided.
+     */
+    boolean interactive() default false;
+
+}
@@ -0,0 +1,26 @@
+package cn.har01d.tool.jarg.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bind a positional argument to a field, the same as <code>JCommand.addParameter</code>.
+ * The parameters are assigned in the declaration order of the fields.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Parameter {
+
+    /**
+     * The parameter name, the field name by default.
+     */
+    String value() default "";
+
+    /**
+     * If the argument is required.
+     */
+    boolean required() default false;
+
+}
@@ -0,0 +1,306 @@
+package cn.har01d.tool.jarg.processor;
+
+import cn.har01d.tool.jarg.annotation.Arguments;
+import cn.har01d.tool.jarg.annotation.Command;
+import cn.har01d.tool.jarg.annotation.Option;
+import cn.har01d.tool.jarg.annotation.Parameter;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generate a parser for every class annotated with <code>@Command</code>.
+ * <p>
+ * The generated parser follows <code>Jarg.parse</code>: the root options take precedence over the command options,
+ * the first non-option argument selects the command, and "--" ends the options.
+ * Options are dispatched by a switch on the hash of the name, and the values are assigned to the fields directly.
+ */
+@SupportedAnnotationTypes("cn.har01d.tool.jarg.annotation.Command")
+public class JargProcessor extends AbstractProcessor {
+
+    /**
+     * The nested command fields already reported, a command class used by several fields is visited once for each.
+     */
+    private final Set<Element> nested = new HashSet<Element>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+            ParserModel model = new ParserModel(type, packageOf(type));
+            if (build(model) && validate(model)) {
+                write(model);
+            }
+        }
+        return true;
+    }
+
+    private boolean build(ParserModel model) {
+        boolean valid = true;
+        ParserModel.Scope root = model.addScope(model.type, null, null, new String[0]);
+        valid &= addMembers(model, root);
+
+        for (VariableElement field : ElementFilter.fieldsIn(model.type.getEnclosedElements())) {
+            Command command = field.getAnnotation(Command.class);
+            if (command == null) {
+                continue;
+            }
+            if (!checkField(model, field) || field.asType().getKind() != TypeKind.DECLARED) {
+                error(field, "@Command field must be an accessible field of a class type");
+                valid = false;
+                continue;
+            }
+
+            TypeElement type = (TypeElement) ((DeclaredType) field.asType()).asElement();
+            if (!hasConstructor(model, type)) {
+                error(field, "Command class " + type.getQualifiedName() + " needs an accessible constructor without parameters");
+                valid = false;
+                continue;
+            }
+
+            String name = command.value().isEmpty() ? field.getSimpleName().toString() : command.value();
+            ParserModel.Scope scope = model.addScope(type, field, name, command.aliases());
+            valid &= addMembers(model, scope);
+        }
+        return valid;
+    }
+
+    private boolean addMembers(ParserModel model, ParserModel.Scope scope) {
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(scope.type.getEnclosedElements())) {
+            Option option = field.getAnnotation(Option.class);
+            Parameter parameter = field.getAnnotation(Parameter.class);
+            Arguments arguments = field.getAnnotation(Arguments.class);
+            if (option == null && parameter == null && arguments == null) {
+                if (field.getAnnotation(Command.class) != null && scope.field != null) {
+                    if (nested.add(field)) {
+                        error(field, "Nested commands are not supported");
+                    }
+                    valid = false;
+                }
+                continue;
+            }
+            if (!checkField(model, field)) {
+                valid = false;
+                continue;
+            }
+
+            TypeMirror type = field.asType();
+            if (option != null) {
+                valid &= addOption(model, scope, field, option);
+            } else if (parameter != null) {
+                if (convert(type, "value") == null) {
+                    error(field, "Unsupported parameter type: " + type);
+                    valid = false;
+                    continue;
+                }
+                String name = parameter.value().isEmpty() ? field.getSimpleName().toString() : parameter.value();
+                scope.parameters.add(new ParserModel.ParameterField(field, name, parameter.required()));
+            } else {
+                if (!isStringList(type)) {
+                    error(field, "@Arguments field must be a List<String>");
+                    valid = false;
+                    continue;
+                }
+                scope.arguments.add(field);
+            }
+        }
+        return valid;
+    }
+
+    private boolean addOption(ParserModel model, ParserModel.Scope scope, VariableElement field, Option option) {
+        TypeMirror type = field.asType();
+        boolean flag = type.getKind() == TypeKind.BOOLEAN || isType(type, "java.lang.Boolean");
+        boolean multiple = isStringList(type);
+        if (!flag && !multiple && convert(type, "value") == null) {
+            error(field, "Unsupported option type: " + type);
+            return false;
+        }
+        if (option.interactive() && (flag || multiple)) {
+            error(field, "Only an option with a single value can be interactive");
+            return false;
+        }
+
+        List<String> names = new ArrayList<String>();
+        String primary = null;
+        String shortName = null;
+        for (String op : option.value().split("\\|")) {
+            if (op.startsWith("--") && op.length() > 2) {
+                names.add(op.substring(2));
+                if (primary == null) {
+                    primary = op;
+                }
+            } else if (op.startsWith("-") && op.length() > 1) {
+                names.add(op.substring(1));
+                if (shortName == null) {
+                    shortName = op;
+                }
+            } else {
+                error(field, "Unsupported option: " + op);
+                return false;
+            }
+        }
+
+        for (String name : names) {
+            for (ParserModel.OptionField other : scope.options) {
+                if (other.names.contains(name)) {
+                    error(field, "Duplicate option name: " + name);
+                    return false;
+                }
+            }
+        }
+
+        scope.options.add(new ParserModel.OptionField(model.nextOption(), field, names, primary != null ? primary : shortName,
+                !flag, multiple, option.interactive()));
+        return true;
+    }
+
+    private boolean validate(ParserModel model) {
+        Set<String> aliases = new HashSet<String>();
+        for (ParserModel.Scope scope : model.commands()) {
+            for (String alias : scope.aliases) {
+                if (!aliases.add(alias)) {
+                    error(scope.field, "Duplicate command name: " + alias);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean checkField(ParserModel model, VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+            error(field, "Field must not be private, final or static");
+            return false;
+        }
+        TypeElement owner = (TypeElement) field.getEnclosingElement();
+        if (!packageOf(owner).equals(model.packageName) && !modifiers.contains(Modifier.PUBLIC)) {
+            error(field, "Field must be public when the class is in another package");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean hasConstructor(ParserModel model, TypeElement type) {
+        boolean samePackage = packageOf(type).equals(model.packageName);
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = constructor.getModifiers();
+            if (constructor.getParameters().isEmpty() && !modifiers.contains(Modifier.PRIVATE)
+                    && (samePackage || modifiers.contains(Modifier.PUBLIC))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the Java expression which converts the String expression to the type.
+     *
+     * @return the expression, or null if the type is not supported
+     */
+    static String convert(TypeMirror type, String value) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Boolean.parseBoolean(" + value + ")";
+            case BYTE:
+                return "Byte.parseByte(" + value + ")";
+            case SHORT:
+                return "Short.parseShort(" + value + ")";
+            case INT:
+                return "Integer.parseInt(" + value + ")";
+            case LONG:
+                return "Long.parseLong(" + value + ")";
+            case FLOAT:
+                return "Float.parseFloat(" + value + ")";
+            case DOUBLE:
+                return "Double.parseDouble(" + value + ")";
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        if (name.equals("java.lang.String")) {
+            return value;
+        } else if (name.equals("java.lang.Boolean")) {
+            return "Boolean.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Byte")) {
+            return "Byte.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Short")) {
+            return "Short.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Integer")) {
+            return "Integer.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Long")) {
+            return "Long.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Float")) {
+            return "Float.valueOf(" + value + ")";
+        } else if (name.equals("java.lang.Double")) {
+            return "Double.valueOf(" + value + ")";
+        } else if (element.getKind() == ElementKind.ENUM) {
+            return name + ".valueOf(" + value + ")";
+        }
+        return null;
+    }
+
+    private static boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private static boolean isStringList(TypeMirror type) {
+        if (!isType(type, "java.util.List")) {
+            return false;
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return arguments.size() == 1 && isType(arguments.get(0), "java.lang.String");
+    }
+
+    private String packageOf(TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    private void write(ParserModel model) {
+        String name = model.parserName();
+        String qualifiedName = model.packageName.isEmpty() ? name : model.packageName + "." + name;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, model.type);
+            Writer writer = file.openWriter();
+            try {
+                new ParserWriter(model, writer).write();
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(model.type, "Cannot write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
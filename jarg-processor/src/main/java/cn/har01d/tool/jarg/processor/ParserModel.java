@@ -0,0 +1,138 @@
+package cn.har01d.tool.jarg.processor;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The options, parameters and commands of a class annotated with <code>@Command</code>.
+ * <p>
+ * The scope 0 is the annotated class, the other scopes are its commands.
+ * Options are numbered across all the scopes.
+ */
+final class ParserModel {
+
+    final TypeElement type;
+    final String packageName;
+    final List<Scope> scopes = new ArrayList<Scope>();
+    private int options;
+
+    ParserModel(TypeElement type, String packageName) {
+        this.type = type;
+        this.packageName = packageName;
+    }
+
+    Scope addScope(TypeElement type, VariableElement field, String name, String[] aliases) {
+        Scope scope = new Scope(scopes.size(), type, field, name, aliases);
+        scopes.add(scope);
+        return scope;
+    }
+
+    Scope root() {
+        return scopes.get(0);
+    }
+
+    List<Scope> commands() {
+        return scopes.subList(1, scopes.size());
+    }
+
+    int nextOption() {
+        return options++;
+    }
+
+    int optionCount() {
+        return options;
+    }
+
+    List<OptionField> allOptions() {
+        List<OptionField> all = new ArrayList<OptionField>();
+        for (Scope scope : scopes) {
+            all.addAll(scope.options);
+        }
+        return all;
+    }
+
+    /**
+     * The generated class name, nested classes are joined by "_".
+     */
+    String parserName() {
+        String name = type.getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            name = name.substring(packageName.length() + 1);
+        }
+        return name.replace('.', '_') + "Parser";
+    }
+
+    static final class Scope {
+        final int index;
+        final TypeElement type;
+        final VariableElement field;
+        final List<String> aliases = new ArrayList<String>();
+        final List<OptionField> options = new ArrayList<OptionField>();
+        final List<ParameterField> parameters = new ArrayList<ParameterField>();
+        final List<VariableElement> arguments = new ArrayList<VariableElement>();
+
+        Scope(int index, TypeElement type, VariableElement field, String name, String[] aliases) {
+            this.index = index;
+            this.type = type;
+            this.field = field;
+            if (name != null) {
+                this.aliases.add(name);
+            }
+            this.aliases.addAll(Arrays.asList(aliases));
+        }
+
+        /**
+         * Find the option by name, the root options take precedence over the command options.
+         */
+        OptionField find(Scope root, String name) {
+            for (OptionField option : root.options) {
+                if (option.names.contains(name)) {
+                    return option;
+                }
+            }
+            for (OptionField option : options) {
+                if (option.names.contains(name)) {
+                    return option;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final class OptionField {
+        final int index;
+        final VariableElement field;
+        final List<String> names;
+        final String primary;
+        final boolean hasValue;
+        final boolean multiple;
+        final boolean interactive;
+
+        OptionField(int index, VariableElement field, List<String> names, String primary, boolean hasValue,
+                    boolean multiple, boolean interactive) {
+            this.index = index;
+            this.field = field;
+            this.names = names;
+            this.primary = primary;
+            this.hasValue = hasValue;
+            this.multiple = multiple;
+            this.interactive = interactive;
+        }
+    }
+
+    static final class ParameterField {
+        final VariableElement field;
+        final String name;
+        final boolean required;
+
+        ParameterField(VariableElement field, String name, boolean required) {
+            this.field = field;
+            this.name = name;
+            this.required = required;
+        }
+    }
+
+}
@@ -0,0 +1,506 @@
+package cn.har01d.tool.jarg.processor;
+
+import javax.lang.model.element.VariableElement;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the Java source of the parser of a <code>ParserModel</code>.
+ * The generated source only depends on <code>ParseException</code> and compiles with Java 6.
+ */
+final class ParserWriter {
+
+    private final ParserModel model;
+    private final Writer writer;
+    private final String targetType;
+    private final boolean hasCommands;
+    private final boolean hasPrompts;
+    private int indent;
+
+    ParserWriter(ParserModel model, Writer writer) {
+        this.model = model;
+        this.writer = writer;
+        this.targetType = model.type.getQualifiedName().toString();
+        this.hasCommands = !model.commands().isEmpty();
+        boolean prompts = false;
+        for (ParserModel.OptionField option : model.allOptions()) {
+            prompts |= option.interactive;
+        }
+        this.hasPrompts = prompts;
+    }
+
+    void write() throws IOException {
+        if (!model.packageName.isEmpty()) {
+            line("package " + model.packageName + ";");
+            line("");
+        }
+        line("import cn.har01d.tool.jarg.ParseException;");
+        line("");
+        if (hasPrompts) {
+            line("import java.io.Console;");
+        }
+        line("import java.util.ArrayList;");
+        line("import java.util.List;");
+        line("");
+        line("/**");
+        line(" * The parser of {@link " + targetType + "}, generated by the Jarg annotation processor.");
+        line(" */");
+        open("public final class " + model.parserName() + " {");
+        line("");
+        writeTables();
+        line("");
+        open("private " + model.parserName() + "() {");
+        close("}");
+        line("");
+        writeParse();
+        line("");
+        writeSet();
+        line("");
+        writeOptionLookup();
+        if (hasCommands) {
+            line("");
+            writeCommandLookup();
+        }
+        line("");
+        writeHelpers();
+        close("}");
+    }
+
+    private void writeTables() throws IOException {
+        List<ParserModel.OptionField> options = model.allOptions();
+        StringBuilder names = new StringBuilder();
+        StringBuilder hasValue = new StringBuilder();
+        StringBuilder interactive = new StringBuilder();
+        for (ParserModel.OptionField option : options) {
+            if (names.length() > 0) {
+                names.append(", ");
+                hasValue.append(", ");
+                interactive.append(", ");
+            }
+            names.append(quote(option.primary));
+            hasValue.append(option.hasValue);
+            interactive.append(option.interactive);
+        }
+
+        StringBuilder help = new StringBuilder();
+        StringBuilder version = new StringBuilder();
+        for (ParserModel.Scope scope : model.scopes) {
+            if (help.length() > 0) {
+                help.append(", ");
+                version.append(", ");
+            }
+            help.append(indexOf(scope, "help"));
+            version.append(indexOf(scope, "version"));
+        }
+
+        line("private static final String[] NAMES = {" + names + "};");
+        line("private static final boolean[] HAS_VALUE = {" + hasValue + "};");
+        if (hasPrompts) {
+            line("private static final boolean[] INTERACTIVE = {" + interactive + "};");
+        }
+        line("private static final int[] HELP = {" + help + "};");
+        line("private static final int[] VERSION = {" + version + "};");
+    }
+
+    private int indexOf(ParserModel.Scope scope, String name) {
+        ParserModel.OptionField option = scope.find(model.root(), name);
+        return option == null ? -1 : option.index;
+    }
+
+    private void writeParse() throws IOException {
+        line("/**");
+        line(" * Parse arguments to a new {@link " + targetType + "}.");
+        line(" *");
+        line(" * @param args the arguments");
+        line(" * @return the parsed object");
+        line(" */");
+        open("public static " + targetType + " parse(String[] args) {");
+        line(targetType + " target = new " + targetType + "();");
+        line("parse(args, target);");
+        line("return target;");
+        close("}");
+        line("");
+
+        line("/**");
+        line(" * Parse arguments to the fields of the target.");
+        line(" *");
+        line(" * @param args   the arguments");
+        line(" * @param target the object to assign");
+        line(" */");
+        open("public static void parse(String[] args, " + targetType + " target) {");
+        line("boolean[] present = new boolean[" + model.optionCount() + "];");
+        line("List<String> arguments = new ArrayList<String>();");
+        if (hasPrompts) {
+            line("int[] prompts = new int[args.length];");
+            line("int promptCount = 0;");
+        }
+        line("int scope = 0;");
+        if (hasCommands) {
+            line("boolean checkedCommand = false;");
+            for (ParserModel.Scope scope : model.commands()) {
+                line(typeOf(scope) + " command" + scope.index + " = null;");
+            }
+        }
+
+        open("for (int i = 0; i < args.length; ++i) {");
+        line("String arg = args[i];");
+        line("int start = nameStart(arg);");
+        line("");
+        open("if (start < 0) {");
+        open("for (++i; i < args.length; ++i) {");
+        line("arguments.add(args[i]);");
+        close("}");
+        line("break;");
+        close("}");
+        line("");
+        open("if (start > 0) {");
+        line("int end = arg.length();");
+        line("int eq = start == 2 ? arg.indexOf('=', 2) : -1;");
+        open("if (eq > -1) {");
+        line("end = eq;");
+        close("}");
+        line("");
+        line("int option = option(scope, arg, start, end);");
+        open("if (option < 0) {");
+        line("throw new ParseException(ParseException.UNKNOWN_OPTION, \"Unknown option: \" + arg);");
+        close("}");
+        line("");
+        line("String value;");
+        open("if (eq > -1) {");
+        line("value = arg.substring(eq + 1);");
+        reopen("} else if (HAS_VALUE[option]) {");
+        line("boolean last = i + 1 == args.length || nameStart(args[i + 1]) < 0;");
+        if (hasPrompts) {
+            open("if (INTERACTIVE[option] && (last || isOption(scope, args[i + 1]))) {");
+            line("present[option] = true;");
+            line("prompts[promptCount++] = option;");
+            line("continue;");
+            close("}");
+        }
+        open("if (last) {");
+        line("throw new ParseException(ParseException.OPTION_VAL_REQUIRED, \"Missing required value for option \" + NAMES[option]);");
+        close("}");
+        line("value = args[++i];");
+        reopen("} else {");
+        line("value = \"true\";");
+        close("}");
+        line("present[option] = true;");
+        line("set(option, value, target" + commandArguments() + ");");
+        if (hasCommands) {
+            reopen("} else if (!checkedCommand) {");
+            line("checkedCommand = true;");
+            line("scope = command(arg);");
+            open("switch (scope) {");
+            for (ParserModel.Scope scope : model.commands()) {
+                open("case " + scope.index + ":");
+                line("command" + scope.index + " = new " + typeOf(scope) + "();");
+                line("target." + scope.field.getSimpleName() + " = command" + scope.index + ";");
+                line("break;");
+                indent--;
+            }
+            open("default:");
+            line("arguments.add(arg);");
+            line("break;");
+            indent--;
+            close("}");
+        }
+        reopen("} else {");
+        line("arguments.add(arg);");
+        close("}");
+        close("}");
+        line("");
+
+        open("if (!isPresent(present, HELP[scope]) && !isPresent(present, VERSION[scope])) {");
+        if (hasCommands) {
+            open("switch (scope) {");
+            for (ParserModel.Scope scope : model.scopes) {
+                open("case " + scope.index + ":");
+                writeBind(scope, scope.index == 0 ? "target" : "command" + scope.index);
+                line("break;");
+                indent--;
+            }
+            open("default:");
+            line("break;");
+            indent--;
+            close("}");
+        } else {
+            writeBind(model.root(), "target");
+        }
+        close("}");
+
+        for (ParserModel.Scope scope : model.scopes) {
+            for (VariableElement field : scope.arguments) {
+                if (scope.index == 0) {
+                    line("target." + field.getSimpleName() + " = arguments;");
+                } else {
+                    open("if (command" + scope.index + " != null) {");
+                    line("command" + scope.index + "." + field.getSimpleName() + " = arguments;");
+                    close("}");
+                }
+            }
+        }
+
+        if (hasPrompts) {
+            line("");
+            open("for (int i = 0; i < promptCount; ++i) {");
+            line("Console console = System.console();");
+            open("if (console == null) {");
+            line("throw new ParseException(ParseException.CONSOLE_ACCESS, \"Cannot access the console device\");");
+            close("}");
+            line("char[] password = console.readPassword(\"Enter value of %s:\", NAMES[prompts[i]]);");
+            line("set(prompts[i], new String(password), target" + commandArguments() + ");");
+            close("}");
+        }
+        close("}");
+    }
+
+    private void writeBind(ParserModel.Scope scope, String target) throws IOException {
+        for (int i = 0; i < scope.parameters.size(); ++i) {
+            ParserModel.ParameterField parameter = scope.parameters.get(i);
+            String assign = target + "." + parameter.field.getSimpleName() + " = ";
+            String convert = JargProcessor.convert(parameter.field.asType(), "arguments.get(" + i + ")");
+            open("if (arguments.size() > " + i + ") {");
+            if (convert.equals("arguments.get(" + i + ")")) {
+                line(assign + convert + ";");
+            } else {
+                open("try {");
+                line(assign + convert + ";");
+                reopen("} catch (IllegalArgumentException e) {");
+                line("throw new ParseException(ParseException.INVALID_VALUE, \"Invalid value for argument "
+                        + parameter.name + ": \" + arguments.get(" + i + "), e);");
+                close("}");
+            }
+            if (parameter.required) {
+                reopen("} else {");
+                line("throw new ParseException(ParseException.ARG_REQUIRED, \"Missing required argument: " + parameter.name + "\");");
+            }
+            close("}");
+        }
+    }
+
+    private void writeSet() throws IOException {
+        StringBuilder parameters = new StringBuilder();
+        for (ParserModel.Scope scope : model.commands()) {
+            parameters.append(", ").append(typeOf(scope)).append(" command").append(scope.index);
+        }
+
+        open("private static void set(int option, String value, " + targetType + " target" + parameters + ") {");
+        open("try {");
+        open("switch (option) {");
+        for (ParserModel.Scope scope : model.scopes) {
+            String target = scope.index == 0 ? "target" : "command" + scope.index;
+            for (ParserModel.OptionField option : scope.options) {
+                String field = target + "." + option.field.getSimpleName();
+                open("case " + option.index + ":");
+                if (option.multiple) {
+                    open("if (" + field + " == null) {");
+                    line(field + " = new ArrayList<String>();");
+                    close("}");
+                    line(field + ".add(value);");
+                } else {
+                    line(field + " = " + JargProcessor.convert(option.field.asType(), "value") + ";");
+                }
+                line("break;");
+                indent--;
+            }
+        }
+        open("default:");
+        line("break;");
+        indent--;
+        close("}");
+        reopen("} catch (IllegalArgumentException e) {");
+        line("throw new ParseException(ParseException.INVALID_VALUE, \"Invalid value for option \" + NAMES[option] + \": \" + value, e);");
+        close("}");
+        close("}");
+    }
+
+    private void writeOptionLookup() throws IOException {
+        open("private static int option(int scope, String arg, int start, int end) {");
+        line("int hash = hash(arg, start, end);");
+        if (hasCommands) {
+            open("switch (scope) {");
+            for (ParserModel.Scope scope : model.commands()) {
+                open("case " + scope.index + ":");
+                line("return option" + scope.index + "(hash, arg, start, end);");
+                indent--;
+            }
+            open("default:");
+            line("return option0(hash, arg, start, end);");
+            indent--;
+            close("}");
+        } else {
+            line("return option0(hash, arg, start, end);");
+        }
+        close("}");
+
+        for (ParserModel.Scope scope : model.scopes) {
+            Map<String, Integer> names = new LinkedHashMap<String, Integer>();
+            for (ParserModel.OptionField option : model.root().options) {
+                for (String name : option.names) {
+                    names.put(name, option.index);
+                }
+            }
+            if (scope.index > 0) {
+                for (ParserModel.OptionField option : scope.options) {
+                    for (String name : option.names) {
+                        if (!names.containsKey(name)) {
+                            names.put(name, option.index);
+                        }
+                    }
+                }
+            }
+
+            line("");
+            open("private static int option" + scope.index + "(int hash, String arg, int start, int end) {");
+            writeHashSwitch(names, "hash", "matches(arg, start, end, %s)", "-1");
+            close("}");
+        }
+    }
+
+    private void writeCommandLookup() throws IOException {
+        Map<String, Integer> aliases = new LinkedHashMap<String, Integer>();
+        for (ParserModel.Scope scope : model.commands()) {
+            for (String alias : scope.aliases) {
+                aliases.put(alias, scope.index);
+            }
+        }
+
+        open("private static int command(String arg) {");
+        writeHashSwitch(aliases, "arg.hashCode()", "arg.equals(%s)", "0");
+        close("}");
+    }
+
+    /**
+     * Write a switch on the <code>String.hashCode</code> of the names, the names with the same hash share a case.
+     */
+    private void writeHashSwitch(Map<String, Integer> names, String hash, String matches, String notFound) throws IOException {
+        Map<Integer, List<String>> cases = new LinkedHashMap<Integer, List<String>>();
+        for (String name : names.keySet()) {
+            List<String> list = cases.get(name.hashCode());
+            if (list == null) {
+                list = new ArrayList<String>();
+                cases.put(name.hashCode(), list);
+            }
+            list.add(name);
+        }
+
+        if (!cases.isEmpty()) {
+            open("switch (" + hash + ") {");
+            for (Map.Entry<Integer, List<String>> entry : cases.entrySet()) {
+                open("case " + entry.getKey() + ":");
+                for (String name : entry.getValue()) {
+                    open("if (" + String.format(matches, quote(name)) + ") {");
+                    line("return " + names.get(name) + ";");
+                    close("}");
+                }
+                line("break;");
+                indent--;
+            }
+            open("default:");
+            line("break;");
+            indent--;
+            close("}");
+        }
+        line("return " + notFound + ";");
+    }
+
+    private void writeHelpers() throws IOException {
+        if (hasPrompts) {
+            open("private static boolean isOption(int scope, String arg) {");
+            line("int start = nameStart(arg);");
+            line("return start > 0 && option(scope, arg, start, arg.length()) > -1;");
+            close("}");
+            line("");
+        }
+
+        line("/**");
+        line(" * Return 2 for a long option, 1 for a short option, 0 for an argument, or -1 for \"--\".");
+        line(" */");
+        open("private static int nameStart(String arg) {");
+        open("if (arg.length() == 0 || arg.charAt(0) != '-') {");
+        line("return 0;");
+        close("}");
+        open("if (arg.length() > 1 && arg.charAt(1) == '-') {");
+        line("return arg.length() == 2 ? -1 : 2;");
+        close("}");
+        line("return 1;");
+        close("}");
+        line("");
+
+        open("private static boolean isPresent(boolean[] present, int option) {");
+        line("return option > -1 && present[option];");
+        close("}");
+        line("");
+
+        open("private static int hash(String s, int start, int end) {");
+        line("int h = 0;");
+        open("for (int i = start; i < end; ++i) {");
+        line("h = 31 * h + s.charAt(i);");
+        close("}");
+        line("return h;");
+        close("}");
+        line("");
+
+        open("private static boolean matches(String s, int start, int end, String name) {");
+        line("return end - start == name.length() && s.regionMatches(start, name, 0, name.length());");
+        close("}");
+    }
+
+    private String commandArguments() {
+        StringBuilder sb = new StringBuilder();
+        for (ParserModel.Scope scope : model.commands()) {
+            sb.append(", command").append(scope.index);
+        }
+        return sb.toString();
+    }
+
+    private static String typeOf(ParserModel.Scope scope) {
+        return scope.type.getQualifiedName().toString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private void open(String text) throws IOException {
+        line(text);
+        indent++;
+    }
+
+    private void reopen(String text) throws IOException {
+        indent--;
+        line(text);
+        indent++;
+    }
+
+    private void close(String text) throws IOException {
+        indent--;
+        line(text);
+    }
+
+    private void line(String text) throws IOException {
+        if (!text.isEmpty()) {
+            for (int i = 0; i < indent; ++i) {
+                writer.write("    ");
+            }
+            writer.write(text);
+        }
+        writer.write('\n');
+    }
+
+}
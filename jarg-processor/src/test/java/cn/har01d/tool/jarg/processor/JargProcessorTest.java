@@ -0,0 +1,298 @@
+package cn.har01d.tool.jarg.processor;
+
+import cn.har01d.tool.jarg.ParseException;
+import cn.har01d.tool.jarg.annotation.Command;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JargProcessorTest {
+
+    private static final String ARGS = "package demo;\n"
+            + "import cn.har01d.tool.jarg.annotation.*;\n"
+            + "import java.util.List;\n"
+            + "@Command(\"tool\")\n"
+            + "public class Args {\n"
+            + "    @Option(\"--verbose|-v\") boolean verbose;\n"
+            + "    @Option(\"--name|-n\") String name = \"world\";\n"
+            + "    @Option(\"--count|-c\") int count = 1;\n"
+            + "    @Option(\"--tag|-t\") List<String> tags;\n"
+            + "    @Option(\"--mode\") Mode mode;\n"
+            + "    @Command(value = \"run\", aliases = \"r\") RunArgs run;\n"
+            + "    @Arguments List<String> arguments;\n"
+            + "}\n";
+    private static final String MODE = "package demo;\n"
+            + "public enum Mode { fast, safe }\n";
+    private static final String RUN_ARGS = "package demo;\n"
+            + "import cn.har01d.tool.jarg.annotation.*;\n"
+            + "public class RunArgs {\n"
+            + "    @Option(\"--force|-f\") boolean force;\n"
+            + "    @Option(\"--count|-c\") long runs;\n"
+            + "    @Parameter(required = true) String job;\n"
+            + "    @Parameter Integer times;\n"
+            + "}\n";
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("jarg-processor", "");
+        assertTrue(dir.delete() && dir.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir);
+    }
+
+    @Test
+    public void generatesAParser() throws Exception {
+        assertEquals(Collections.<String>emptyList(), compile(ARGS, MODE, RUN_ARGS));
+        Object args = parse("-v", "--name=x", "-t", "a", "--tag", "b", "--mode", "safe", "r", "-f", "-c", "3", "build", "2", "extra");
+
+        assertEquals(true, get(args, "verbose"));
+        assertEquals("x", get(args, "name"));
+        assertEquals(3, get(args, "count"));
+        assertEquals(Arrays.asList("a", "b"), get(args, "tags"));
+        assertEquals("safe", get(args, "mode").toString());
+        assertEquals(Arrays.asList("build", "2", "extra"), get(args, "arguments"));
+        Object run = get(args, "run");
+        assertEquals(true, get(run, "force"));
+        assertEquals(0L, get(run, "runs"));
+        assertEquals("build", get(run, "job"));
+        assertEquals(2, get(run, "times"));
+    }
+
+    @Test
+    public void keepsTheFieldValuesOfTheMissingOptions() throws Exception {
+        compile(ARGS, MODE, RUN_ARGS);
+        Object args = parse();
+
+        assertEquals(false, get(args, "verbose"));
+        assertEquals("world", get(args, "name"));
+        assertEquals(1, get(args, "count"));
+        assertNull(get(args, "tags"));
+        assertNull(get(args, "run"));
+        assertEquals(Collections.emptyList(), get(args, "arguments"));
+    }
+
+    @Test
+    public void endsTheOptionsAtDoubleDash() throws Exception {
+        compile(ARGS, MODE, RUN_ARGS);
+        Object args = parse("run", "--", "-f", "-1");
+
+        assertEquals("-f", get(get(args, "run"), "job"));
+        assertEquals(-1, get(get(args, "run"), "times"));
+        assertEquals(false, get(get(args, "run"), "force"));
+        assertEquals(Arrays.asList("-f", "-1"), get(args, "arguments"));
+    }
+
+    @Test
+    public void reportsTheParseErrors() throws Exception {
+        compile(ARGS, MODE, RUN_ARGS);
+
+        assertCode(ParseException.UNKNOWN_OPTION, "--force");
+        assertCode(ParseException.UNKNOWN_OPTION, "-x");
+        assertCode(ParseException.OPTION_VAL_REQUIRED, "--name");
+        assertCode(ParseException.OPTION_VAL_REQUIRED, "--name", "--", "x");
+        assertCode(ParseException.INVALID_VALUE, "--count", "many");
+        assertCode(ParseException.INVALID_VALUE, "--mode", "slow");
+        assertCode(ParseException.INVALID_VALUE, "run", "build", "twice");
+        assertCode(ParseException.ARG_REQUIRED, "run");
+    }
+
+    @Test
+    public void reportsTheInvalidFields() throws IOException {
+        List<String> errors = compile("package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "import java.util.List;\n"
+                + "@Command\n"
+                + "public class Bad {\n"
+                + "    @Option(\"--hidden\") private String hidden;\n"
+                + "    @Option(\"--name|-n\") String name;\n"
+                + "    @Option(\"--size|-n\") int size;\n"
+                + "    @Option(\"--date\") java.util.Date date;\n"
+                + "    @Option(\"file\") String file;\n"
+                + "    @Option(value = \"--all\", interactive = true) boolean all;\n"
+                + "    @Parameter Object value;\n"
+                + "    @Arguments List<Integer> arguments;\n"
+                + "}\n");
+
+        assertEquals(Arrays.asList(
+                "Field must not be private, final or static",
+                "Duplicate option name: n",
+                "Unsupported option type: java.util.Date",
+                "Unsupported option: file",
+                "Only an option with a single value can be interactive",
+                "Unsupported parameter type: java.lang.Object",
+                "@Arguments field must be a List<String>"), errors);
+        assertFalse(new File(dir, "demo/BadParser.java").exists());
+    }
+
+    @Test
+    public void reportsTheInvalidCommands() throws IOException {
+        List<String> errors = compile("package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "@Command\n"
+                + "public class Bad {\n"
+                + "    @Command Sub sub;\n"
+                + "    @Command Integer number;\n"
+                + "}\n", "package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "public class Sub {\n"
+                + "    private Sub() {}\n"
+                + "}\n");
+
+        assertEquals(Arrays.asList(
+                "Command class demo.Sub needs an accessible constructor without parameters",
+                "Command class java.lang.Integer needs an accessible constructor without parameters"), errors);
+
+        errors = compile("package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "@Command\n"
+                + "public class Bad {\n"
+                + "    @Command(\"a\") Sub first;\n"
+                + "    @Command(value = \"b\", aliases = \"a\") Sub second;\n"
+                + "}\n", "package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "public class Sub {\n"
+                + "    @Command Sub sub;\n"
+                + "}\n");
+
+        assertEquals(Collections.singletonList("Nested commands are not supported"), errors);
+
+        errors = compile("package demo;\n"
+                + "import cn.har01d.tool.jarg.annotation.*;\n"
+                + "@Command\n"
+                + "public class Bad {\n"
+                + "    @Command(\"a\") Sub first;\n"
+                + "    @Command(value = \"b\", aliases = \"a\") Sub second;\n"
+                + "}\n", "package demo;\n"
+                + "public class Sub {\n"
+                + "}\n");
+
+        assertEquals(Collections.singletonList("Duplicate command name: a"), errors);
+        assertFalse(new File(dir, "demo/BadParser.java").exists());
+    }
+
+    /**
+     * Compile the sources with the processor, and the generated parsers.
+     *
+     * @return the error messages of the processor
+     */
+    private List<String> compile(String... sources) throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (String source : sources) {
+            String name = source.substring(source.indexOf("public ")).split("\\s+")[2];
+            File file = new File(dir, "demo/" + name + ".java");
+            write(file, source);
+            files.add(file);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            String classpath = location(ParseException.class) + File.pathSeparator + location(Command.class);
+            JavaCompiler.CompilationTask task = compiler.getTask(null, manager, diagnostics,
+                    Arrays.asList("-d", dir.getPath(), "-s", dir.getPath(), "-classpath", classpath),
+                    null, manager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(Collections.singletonList(new JargProcessor()));
+            task.call();
+        } finally {
+            manager.close();
+        }
+
+        List<String> errors = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        return errors;
+    }
+
+    private Object parse(String... args) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, getClass().getClassLoader());
+        Method parse = loader.loadClass("demo.ArgsParser").getMethod("parse", String[].class);
+        try {
+            return parse.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof ParseException) {
+                throw (ParseException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void assertCode(int code, String... args) throws Exception {
+        try {
+            parse(args);
+            fail(Arrays.toString(args));
+        } catch (ParseException e) {
+            assertEquals(Arrays.toString(args), code, e.getCode());
+        }
+    }
+
+    private static Object get(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static String location(Class<?> type) throws IOException {
+        try {
+            return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (java.net.URISyntaxException e) {
+            throw new IOException(e.toString());
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
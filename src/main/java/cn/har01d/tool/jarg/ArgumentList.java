@@ -0,0 +1,527 @@
+package cn.har01d.tool.jarg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list of arguments which are either strings or tokens of a command line or a memory-mapped argument file.
+ * <p>
+ * The tokens of a command line or an argument file are kept as ranges of its characters or bytes,
+ * a <code>String</code> is only created when the token is read, and is not kept by the list.
+ * The arguments are stored in runs, consecutive arguments of the same source share one run.
+ */
+final class ArgumentList extends AbstractList<String> implements RandomAccess {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<Run> runs = new ArrayList<Run>(1);
+    private int size;
+
+    /**
+     * Create a list of the arguments, an argument "@file" is replaced by the tokens in the file.
+     *
+     * @param args        the arguments
+     * @param expandFiles expand "@file" or not
+     * @return the list
+     * @throws ParseException if an argument file cannot be read or has invalid syntax
+     */
+    static ArgumentList of(String[] args, boolean expandFiles) {
+        ArgumentList list = new ArgumentList();
+        if (!expandFiles) {
+            list.runs.add(new StringRun(0, args));
+            list.size = args.length;
+            return list;
+        }
+        for (String arg : args) {
+            if (expandFiles && arg.length() > 1 && arg.charAt(0) == '@') {
+                String path = arg.substring(1);
+                list.addTokens(new Bytes(map(path)), path);
+            } else {
+                list.add(arg);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Create a list of the tokens of a command line, split like {@link Tokenizer#split(CharSequence)}.
+     * The characters are read again when a token is read, so they must not change while the list is in use.
+     *
+     * @param line the command line
+     * @return the list
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    static ArgumentList of(CharSequence line) {
+        ArgumentList list = new ArgumentList();
+        list.addTokens(line, null);
+        return list;
+    }
+
+    /**
+     * Create a list of the tokens of a UTF-8 command line, from the position to the limit of the buffer.
+     * The bytes are read again when a token is read, so they must not change while the list is in use.
+     *
+     * @param line the command line
+     * @return the list
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    static ArgumentList of(ByteBuffer line) {
+        ArgumentList list = new ArgumentList();
+        list.addTokens(new Bytes(line.slice()), null);
+        return list;
+    }
+
+    @Override
+    public boolean add(String arg) {
+        StringRun run = last() instanceof StringRun ? (StringRun) last() : null;
+        if (run == null) {
+            if (size == 0) {
+                runs.clear();
+            }
+            run = new StringRun(size);
+            runs.add(run);
+        }
+        run.add(arg);
+        ++size;
+        return true;
+    }
+
+    /**
+     * Add the argument of the other list, a token of a command line or an argument file is added without creating a string.
+     */
+    void add(ArgumentList from, int index) {
+        Run source = from.run(index);
+        int i = index - source.offset;
+        if (source instanceof RangeRun) {
+            RangeRun range = (RangeRun) source;
+            addRange(range, range.starts[i], range.ends[i]);
+        } else {
+            add(source.get(i));
+        }
+    }
+
+    /**
+     * Add the end of the argument of the other list, such as the value of "--name=value".
+     *
+     * @param from  the other list
+     * @param index the index of the argument
+     * @param begin the index in the {@link #chars(int)} of the argument
+     */
+    void add(ArgumentList from, int index, int begin) {
+        Run source = from.run(index);
+        int i = index - source.offset;
+        if (source instanceof RangeRun && ((RangeRun) source).ends[i] >= 0) {
+            RangeRun range = (RangeRun) source;
+            addRange(range, range.starts[i] + begin, range.ends[i]);
+        } else {
+            add(source.get(i).substring(begin));
+        }
+    }
+
+    private void addRange(RangeRun from, int start, int end) {
+        Run last = last();
+        RangeRun run = last instanceof RangeRun ? (RangeRun) last : null;
+        if (run != null && run.size == 0) {
+            run.source = from.source;
+            run.path = from.path;
+        } else if (run == null || run.source != from.source) {
+            if (size == 0) {
+                runs.clear();
+            }
+            run = new RangeRun(size, from.source, from.path, 2);
+            runs.add(run);
+        }
+        run.add(start, end);
+        ++size;
+    }
+
+    void addAll(ArgumentList from, int start) {
+        for (int i = start; i < from.size; ++i) {
+            add(from, i);
+        }
+    }
+
+    /**
+     * Check if the argument is a token of a command line or an argument file which cannot be an option.
+     */
+    boolean isPlain(int index) {
+        Run run = run(index);
+        return run instanceof RangeRun && ((RangeRun) run).isPlain(index - run.offset);
+    }
+
+    /**
+     * Get the characters of the argument without creating a string.
+     * A token without quotes or escapes is a view of its source, the other arguments are strings.
+     *
+     * @param index the index
+     * @return the characters
+     */
+    CharSequence chars(int index) {
+        Run run = run(index);
+        int i = index - run.offset;
+        if (run instanceof RangeRun && ((RangeRun) run).ends[i] >= 0) {
+            RangeRun range = (RangeRun) run;
+            return new Slice(range.source, range.starts[i], range.ends[i]);
+        }
+        return run.get(i);
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Run run = run(index);
+        return run.get(index - run.offset);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all the arguments, the arrays of the first run are kept for the next arguments of the same kind.
+     */
+    @Override
+    public void clear() {
+        Run first = runs.isEmpty() ? null : runs.get(0);
+        runs.clear();
+        if (first instanceof StringRun && !((StringRun) first).shared) {
+            ((StringRun) first).clear();
+            runs.add(first);
+        } else if (first instanceof RangeRun) {
+            ((RangeRun) first).clear();
+            runs.add(first);
+        }
+        size = 0;
+    }
+
+    private Run last() {
+        return runs.isEmpty() ? null : runs.get(runs.size() - 1);
+    }
+
+    private Run run(int index) {
+        int low = 0;
+        int high = runs.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (runs.get(mid).offset <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return runs.get(low);
+    }
+
+    /**
+     * Add the tokens of the characters. The tokens are separated and quoted the same as {@link Tokenizer#split(CharSequence)}.
+     *
+     * @param source the characters
+     * @param path   the argument file, or null for a command line
+     */
+    private void addTokens(CharSequence source, String path) {
+        RangeRun run = new RangeRun(size, source, path, 16);
+        boolean bytes = source instanceof Bytes;
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            int space = whitespace(source, bytes, i);
+            if (space > 0) {
+                i += space;
+                continue;
+            }
+
+            // a token with quotes, escapes or multibyte characters is decoded when it is read
+            int start = i;
+            boolean decode = false;
+            while (i < length && whitespace(source, bytes, i) == 0) {
+                char c = source.charAt(i);
+                if (c == '\'' || c == '"') {
+                    i = closingQuote(source, i, path);
+                    decode = true;
+                } else if (c == '\\') {
+                    ++i;
+                    decode = true;
+                } else if (bytes && c > 0x7F) {
+                    decode = true;
+                }
+                ++i;
+            }
+            run.add(start, decode ? ~Math.min(i, length) : Math.min(i, length));
+        }
+
+        if (run.size > 0) {
+            runs.add(run);
+            size += run.size;
+        }
+    }
+
+    private static int closingQuote(CharSequence source, int start, String path) {
+        char quote = source.charAt(start);
+        for (int i = start + 1; i < source.length(); ++i) {
+            char c = source.charAt(i);
+            if (c == quote) {
+                return i;
+            }
+            if (c == '\\' && quote == '"') {
+                ++i;
+            }
+        }
+        if (path == null) {
+            throw new ParseException(ParseException.INVALID_COMMAND_LINE, "Unterminated quote: " + source);
+        }
+        throw new ParseException(ParseException.INVALID_COMMAND_LINE, path, "Unterminated quote in argument file " + path);
+    }
+
+    /**
+     * Get the length of the white space at the index, the same white spaces as {@link Tokenizer#isWhitespace(int)}.
+     * In a UTF-8 buffer a white space above 0x7F is decoded from its bytes.
+     *
+     * @return the number of characters or bytes of the white space, or 0 if it is not a white space
+     */
+    private static int whitespace(CharSequence source, boolean bytes, int index) {
+        char c = source.charAt(index);
+        if (!bytes || c < 0x80) {
+            return Tokenizer.isWhitespace(c) ? 1 : 0;
+        }
+        int length = c >= 0xF0 ? 4 : c >= 0xE0 ? 3 : c >= 0xC0 ? 2 : 0;
+        if (length == 0 || index + length > source.length()) {
+            return 0;
+        }
+        int codePoint = c & (0xFF >> (length + 1));
+        for (int i = 1; i < length; ++i) {
+            char b = source.charAt(index + i);
+            if ((b & 0xC0) != 0x80) {
+                return 0;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        return Tokenizer.isWhitespace(codePoint) ? length : 0;
+    }
+
+    private static ByteBuffer map(String path) {
+        File file = new File(path);
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                long length = channel.size();
+                if (length > Integer.MAX_VALUE) {
+                    throw new ParseException(ParseException.INVALID_ARG_FILE, path, "Argument file is too large: " + path);
+                }
+                // the mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new ParseException(ParseException.INVALID_ARG_FILE, path, "Cannot read argument file " + path, e);
+        }
+    }
+
+    private abstract static class Run {
+        final int offset;
+
+        Run(int offset) {
+            this.offset = offset;
+        }
+
+        abstract String get(int index);
+    }
+
+    private static final class StringRun extends Run {
+        private String[] values = new String[8];
+        private int size;
+        private boolean shared;
+
+        StringRun(int offset) {
+            super(offset);
+        }
+
+        /**
+         * Wrap the array of the caller, it is copied before a change.
+         */
+        StringRun(int offset, String[] values) {
+            super(offset);
+            this.values = values;
+            this.size = values.length;
+            this.shared = true;
+        }
+
+        void add(String value) {
+            if (size == values.length || shared) {
+                values = Arrays.copyOf(values, Math.max(8, size * 2));
+                shared = false;
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+
+        @Override
+        String get(int index) {
+            return values[index];
+        }
+    }
+
+    /**
+     * The tokens of a command line or a mapped file, a token which must be decoded has its end stored as <code>~end</code>.
+     */
+    private static final class RangeRun extends Run {
+        CharSequence source;
+        String path;
+        int[] starts;
+        int[] ends;
+        int size;
+
+        RangeRun(int offset, CharSequence source, String path, int capacity) {
+            super(offset);
+            this.source = source;
+            this.path = path;
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+        }
+
+        void add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size++] = end;
+        }
+
+        void clear() {
+            source = null;
+            path = null;
+            size = 0;
+        }
+
+        boolean isPlain(int index) {
+            return ends[index] >= 0 && (starts[index] == ends[index] || source.charAt(starts[index]) != '-');
+        }
+
+        @Override
+        String get(int index) {
+            int start = starts[index];
+            int end = ends[index];
+            if (end < 0) {
+                String raw = decode(source, start, ~end);
+                try {
+                    return Tokenizer.unquote(raw);
+                } catch (ParseException e) {
+                    if (path == null) {
+                        throw e;
+                    }
+                    throw new ParseException(ParseException.INVALID_COMMAND_LINE, path, "Invalid token in argument file " + path + ": " + raw, e);
+                }
+            }
+            return decode(source, start, end);
+        }
+    }
+
+    private static String decode(CharSequence source, int start, int end) {
+        if (source instanceof Bytes) {
+            return ((Bytes) source).decode(start, end);
+        }
+        return source.subSequence(start, end).toString();
+    }
+
+    /**
+     * The bytes of a buffer as characters, a byte above 0x7F is a character above 0x7F.
+     * The tokens are split at ASCII characters, so the range of a token is decoded as UTF-8 on its own.
+     */
+    private static final class Bytes implements CharSequence {
+        private final ByteBuffer buffer;
+
+        Bytes(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Slice(this, start, end);
+        }
+
+        String decode(int start, int end) {
+            char[] chars = new char[end - start];
+            for (int i = start; i < end; ++i) {
+                byte b = buffer.get(i);
+                if (b < 0) {
+                    byte[] bytes = new byte[end - start];
+                    for (int j = start; j < end; ++j) {
+                        bytes[j - start] = buffer.get(j);
+                    }
+                    return new String(bytes, UTF_8);
+                }
+                chars[i - start] = (char) b;
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return decode(0, buffer.limit());
+        }
+    }
+
+    /**
+     * A range of characters which is not copied.
+     */
+    private static final class Slice implements CharSequence {
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+
+        Slice(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Slice(source, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return decode(source, start, end);
+        }
+    }
+
+}
@@ -0,0 +1,336 @@
+package cn.har01d.tool.jarg;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Parse many command lines with a shared <code>JSpec</code> in parallel.
+ * <p>
+ * The command lines are split to chunks and the chunks are parsed by a pool of threads,
+ * one thread per processor by default. The results are delivered in the input order,
+ * and only a limited number of chunks are read ahead, so the input can be larger than the memory.
+ * <p>
+ * A command line which fails to parse gives a <code>BatchResult</code> with the <code>ParseException</code>,
+ * the batch continues with the next one. Every command line is parsed by {@link JSpec#parse(String[], boolean)}
+ * without the console, so an interactive option without value fails with {@link ParseException#CONSOLE_ACCESS}.
+ */
+public final class BatchParser {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final JSpec spec;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Create a batch parser with one thread per processor.
+     *
+     * @param spec the compiled <code>Jarg</code>
+     */
+    public BatchParser(JSpec spec) {
+        this(spec, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a batch parser with its own threads, the threads are started for every batch.
+     *
+     * @param spec        the compiled <code>Jarg</code>
+     * @param parallelism the number of threads
+     */
+    public BatchParser(JSpec spec, int parallelism) {
+        this(spec, parallelism, null);
+    }
+
+    /**
+     * Create a batch parser which runs on the executor, the executor is not shut down by the parser.
+     *
+     * @param spec        the compiled <code>Jarg</code>
+     * @param parallelism the number of chunks parsed at the same time
+     * @param executor    the executor, or null to start threads for every batch
+     */
+    public BatchParser(JSpec spec, int parallelism, ExecutorService executor) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Spec is null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.spec = spec;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * Set the number of command lines parsed by a task.
+     *
+     * @param chunkSize the chunk size
+     * @return this <code>BatchParser</code>
+     */
+    public BatchParser chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public JSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Parse the command lines.
+     *
+     * @param commandLines the arguments of each command line
+     * @return the results in the input order
+     */
+    public List<BatchResult> parse(List<String[]> commandLines) {
+        Collector collector = new Collector(commandLines.size());
+        parse(commandLines.iterator(), collector);
+        return collector.results;
+    }
+
+    /**
+     * Parse the command lines, the handler is called in the input order by the current thread.
+     *
+     * @param commandLines the arguments of each command line
+     * @param handler      the handler of the results
+     */
+    public void parse(Iterator<String[]> commandLines, Handler handler) {
+        run(new ArgsSource(commandLines), handler);
+    }
+
+    /**
+     * Parse the command lines in the file, one command line per line. Blank lines are skipped.
+     * The lines are split by {@link Tokenizer#split(CharSequence)},
+     * the index of a <code>BatchResult</code> is the line number.
+     *
+     * @param file    the file
+     * @param charset the charset of the file
+     * @return the results in the input order
+     * @throws IOException if the file cannot be read
+     */
+    public List<BatchResult> parse(File file, String charset) throws IOException {
+        Collector collector = new Collector(16);
+        parse(file, charset, collector);
+        return collector.results;
+    }
+
+    /**
+     * Parse the command lines in the file, the handler is called in the input order by the current thread.
+     *
+     * @param file    the file
+     * @param charset the charset of the file
+     * @param handler the handler of the results
+     * @throws IOException if the file cannot be read
+     */
+    public void parse(File file, String charset, Handler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset));
+        try {
+            LineSource source = new LineSource(reader);
+            run(source, handler);
+            if (source.error != null) {
+                throw source.error;
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void run(Source source, Handler handler) {
+        ExecutorService service = executor;
+        if (service == null) {
+            service = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory());
+        }
+
+        Deque<Future<BatchResult[]>> pending = new ArrayDeque<Future<BatchResult[]>>();
+        try {
+            while (true) {
+                Chunk chunk = source.next(chunkSize);
+                if (chunk == null) {
+                    break;
+                }
+                pending.add(service.submit(chunk));
+                if (pending.size() >= parallelism * 2) {
+                    deliver(pending.poll(), handler);
+                }
+            }
+            while (!pending.isEmpty()) {
+                deliver(pending.poll(), handler);
+            }
+        } finally {
+            for (Future<BatchResult[]> future : pending) {
+                future.cancel(true);
+            }
+            if (service != executor) {
+                service.shutdownNow();
+            }
+        }
+    }
+
+    private static void deliver(Future<BatchResult[]> future, Handler handler) {
+        BatchResult[] results;
+        try {
+            results = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch is interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+
+        for (BatchResult result : results) {
+            handler.handle(result);
+        }
+    }
+
+    /**
+     * Parse one command line the same as {@link JSpec#parse(String[], boolean)} without the console.
+     */
+    private BatchResult parse(long index, Object item) {
+        String[] args = null;
+        try {
+            args = item instanceof String ? Tokenizer.split((String) item) : (String[]) item;
+            return new BatchResult(index, args, spec.parse(args, false), null);
+        } catch (ParseException e) {
+            return new BatchResult(index, args, null, e);
+        }
+    }
+
+    /**
+     * Receive the results of a batch.
+     */
+    public interface Handler {
+        void handle(BatchResult result);
+    }
+
+    private static final class Collector implements Handler {
+        final List<BatchResult> results;
+
+        Collector(int size) {
+            results = new ArrayList<BatchResult>(size);
+        }
+
+        @Override
+        public void handle(BatchResult result) {
+            results.add(result);
+        }
+    }
+
+    /**
+     * The command lines of a chunk, either arguments or lines to split.
+     */
+    private final class Chunk implements Callable<BatchResult[]> {
+        final long[] indexes;
+        final Object[] items;
+        int size;
+
+        Chunk(int capacity) {
+            indexes = new long[capacity];
+            items = new Object[capacity];
+        }
+
+        void add(long index, Object item) {
+            indexes[size] = index;
+            items[size++] = item;
+        }
+
+        @Override
+        public BatchResult[] call() {
+            BatchResult[] results = new BatchResult[size];
+            for (int i = 0; i < size; ++i) {
+                results[i] = parse(indexes[i], items[i]);
+            }
+            return results;
+        }
+    }
+
+    private interface Source {
+        /**
+         * @return the next chunk, or null if there is no more command line
+         */
+        Chunk next(int size);
+    }
+
+    private final class ArgsSource implements Source {
+        private final Iterator<String[]> iterator;
+        private long index;
+
+        ArgsSource(Iterator<String[]> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Chunk next(int size) {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Chunk chunk = new Chunk(size);
+            while (chunk.size < size && iterator.hasNext()) {
+                chunk.add(index++, iterator.next());
+            }
+            return chunk;
+        }
+    }
+
+    private final class LineSource implements Source {
+        private final BufferedReader reader;
+        private long lineNumber;
+        IOException error;
+
+        LineSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Chunk next(int size) {
+            Chunk chunk = new Chunk(size);
+            try {
+                String line;
+                while (chunk.size < size && (line = reader.readLine()) != null) {
+                    ++lineNumber;
+                    if (line.trim().length() > 0) {
+                        chunk.add(lineNumber, line);
+                    }
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            return chunk.size == 0 ? null : chunk;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private int count;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jarg-batch-" + (++count));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * The result of one command line in a batch, either a <code>ParseResult</code> or a <code>ParseException</code>.
+ */
+public final class BatchResult {
+
+    private final long index;
+    private final String[] args;
+    private final ParseResult result;
+    private final ParseException error;
+
+    BatchResult(long index, String[] args, ParseResult result, ParseException error) {
+        this.index = index;
+        this.args = args;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * Get the position of the command line in the input, starting from 0.
+     * For a file, it is the line number starting from 1.
+     *
+     * @return the index
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the parsed arguments.
+     *
+     * @return the arguments, or null if the command line cannot be split
+     */
+    public String[] getArgs() {
+        return args;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Get the result.
+     *
+     * @return the result, or null if failed
+     */
+    public ParseResult getResult() {
+        return result;
+    }
+
+    /**
+     * Get the error.
+     *
+     * @return the error, or null if succeeded
+     */
+    public ParseException getError() {
+        return error;
+    }
+
+    /**
+     * Get the code of the error.
+     *
+     * @return the <code>ParseException</code> code, or 0 if succeeded
+     */
+    public int getErrorCode() {
+        return error == null ? 0 : error.getCode();
+    }
+
+    @Override
+    public String toString() {
+        return index + (error == null ? ": OK" : ": " + error.getMessage());
+    }
+
+}
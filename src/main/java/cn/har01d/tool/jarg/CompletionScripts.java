@@ -0,0 +1,69 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * The shell scripts which complete the arguments of a program by calling it with "__complete".
+ * <p>
+ * The scripts pass the words before the cursor, the last word is empty after a space.
+ * A value of "--name=value" is completed as a whole word, bash drops the part before "=" because it splits words at "=".
+ * Both scripts fall back to file names when there is no candidate.
+ */
+final class CompletionScripts {
+
+    private static final String BASH = ""
+            + "# bash completion for %1$s, generated by Jarg\n"
+            + "%2$s() {\n"
+            + "    local line=${COMP_LINE:0:COMP_POINT}\n"
+            + "    local -a words\n"
+            + "    read -r -a words <<< \"$line\"\n"
+            + "    if [[ $line == *[[:space:]] ]]; then\n"
+            + "        words+=(\"\")\n"
+            + "    fi\n"
+            + "    local cur=${words[${#words[@]}-1]}\n"
+            + "    local IFS=$'\\n'\n"
+            + "    COMPREPLY=($(\"${words[0]}\" %3$s \"${words[@]:1}\" 2>/dev/null))\n"
+            + "    if [[ $cur == *=* && $COMP_WORDBREAKS == *=* ]]; then\n"
+            + "        COMPREPLY=(\"${COMPREPLY[@]#*=}\")\n"
+            + "    fi\n"
+            + "}\n"
+            + "complete -o default -F %2$s %1$s\n";
+
+    private static final String ZSH = ""
+            + "#compdef %1$s\n"
+            + "# zsh completion for %1$s, generated by Jarg\n"
+            + "%2$s() {\n"
+            + "    local -a candidates\n"
+            + "    candidates=(\"${(@f)$(\"${(Q)words[1]}\" %3$s \"${(@Q)words[2,CURRENT]}\" 2>/dev/null)}\")\n"
+            + "    candidates=(${candidates:#})\n"
+            + "    if (( ${#candidates} )); then\n"
+            + "        compadd -- \"${candidates[@]}\"\n"
+            + "    else\n"
+            + "        _files\n"
+            + "    fi\n"
+            + "}\n"
+            + "if [[ $funcstack[1] == %2$s ]]; then\n"
+            + "    %2$s \"$@\"\n"
+            + "else\n"
+            + "    compdef %2$s %1$s\n"
+            + "fi\n";
+
+    private CompletionScripts() {
+    }
+
+    /**
+     * Generate the completion script.
+     *
+     * @param shell   "bash" or "zsh"
+     * @param program the program name
+     * @return the script
+     */
+    static String generate(String shell, String program) {
+        String function = "_" + program.replaceAll("[^A-Za-z0-9_]", "_") + "_complete";
+        if ("bash".equals(shell)) {
+            return String.format(BASH, program, function, Jarg.COMPLETE);
+        } else if ("zsh".equals(shell)) {
+            return String.format(ZSH, program, function, Jarg.COMPLETE);
+        }
+        throw new IllegalArgumentException("Unsupported shell: " + shell);
+    }
+
+}
@@ -0,0 +1,19 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * Convert an option value to a type.
+ *
+ * @param <T> the target type
+ */
+public interface Converter<T> {
+
+    /**
+     * Convert the value.
+     *
+     * @param value the option value, never null
+     * @return the converted value
+     * @throws Exception if the value is invalid, it is reported as a <code>ParseException</code> of the option
+     */
+    T convert(String value) throws Exception;
+
+}
@@ -0,0 +1,302 @@
+package cn.har01d.tool.jarg;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A registry of <code>Converter</code>s by target type.
+ * <p>
+ * Supports the primitive types and their wrappers, <code>String</code>, <code>BigInteger</code>,
+ * <code>BigDecimal</code>, <code>File</code>, <code>URI</code>, <code>URL</code>, <code>InetAddress</code>,
+ * <code>InetSocketAddress</code> ("host:port" or "[IPv6]:port") and all enums by default.
+ * <code>java.nio.file.Path</code> and <code>java.time.Duration</code> are supported when the runtime provides them.
+ */
+public final class Converters {
+
+    private static final Converters DEFAULT = createDefault();
+
+    private final Map<Class<?>, Converter<?>> converters = new HashMap<Class<?>, Converter<?>>();
+    private int modCount;
+
+    /**
+     * Construct a registry with the default converters.
+     */
+    public Converters() {
+        this(DEFAULT.converters);
+    }
+
+    private Converters(Map<Class<?>, Converter<?>> converters) {
+        this.converters.putAll(converters);
+    }
+
+    private static Converters createDefault() {
+        Converters defaults = new Converters(Collections.<Class<?>, Converter<?>>emptyMap());
+        Converter<Boolean> booleanConverter = new Converter<Boolean>() {
+            public Boolean convert(String value) {
+                return Boolean.valueOf(value);
+            }
+        };
+        Converter<Byte> byteConverter = new Converter<Byte>() {
+            public Byte convert(String value) {
+                return Byte.valueOf(value);
+            }
+        };
+        Converter<Short> shortConverter = new Converter<Short>() {
+            public Short convert(String value) {
+                return Short.valueOf(value);
+            }
+        };
+        Converter<Integer> intConverter = new Converter<Integer>() {
+            public Integer convert(String value) {
+                return Integer.valueOf(value);
+            }
+        };
+        Converter<Long> longConverter = new Converter<Long>() {
+            public Long convert(String value) {
+                return Long.valueOf(value);
+            }
+        };
+        Converter<Float> floatConverter = new Converter<Float>() {
+            public Float convert(String value) {
+                return Float.valueOf(value);
+            }
+        };
+        Converter<Double> doubleConverter = new Converter<Double>() {
+            public Double convert(String value) {
+                return Double.valueOf(value);
+            }
+        };
+        Converter<Character> charConverter = new Converter<Character>() {
+            public Character convert(String value) {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("Not a single character: " + value);
+                }
+                return value.charAt(0);
+            }
+        };
+
+        defaults.add(boolean.class, booleanConverter);
+        defaults.add(Boolean.class, booleanConverter);
+        defaults.add(byte.class, byteConverter);
+        defaults.add(Byte.class, byteConverter);
+        defaults.add(short.class, shortConverter);
+        defaults.add(Short.class, shortConverter);
+        defaults.add(int.class, intConverter);
+        defaults.add(Integer.class, intConverter);
+        defaults.add(long.class, longConverter);
+        defaults.add(Long.class, longConverter);
+        defaults.add(float.class, floatConverter);
+        defaults.add(Float.class, floatConverter);
+        defaults.add(double.class, doubleConverter);
+        defaults.add(Double.class, doubleConverter);
+        defaults.add(char.class, charConverter);
+        defaults.add(Character.class, charConverter);
+        defaults.add(String.class, new Converter<String>() {
+            public String convert(String value) {
+                return value;
+            }
+        });
+        defaults.add(BigInteger.class, new Converter<BigInteger>() {
+            public BigInteger convert(String value) {
+                return new BigInteger(value);
+            }
+        });
+        defaults.add(BigDecimal.class, new Converter<BigDecimal>() {
+            public BigDecimal convert(String value) {
+                return new BigDecimal(value);
+            }
+        });
+        defaults.add(File.class, new Converter<File>() {
+            public File convert(String value) {
+                return new File(value);
+            }
+        });
+        defaults.add(URI.class, new Converter<URI>() {
+            public URI convert(String value) throws Exception {
+                return new URI(value);
+            }
+        });
+        defaults.add(URL.class, new Converter<URL>() {
+            public URL convert(String value) throws Exception {
+                return new URL(value);
+            }
+        });
+        defaults.add(InetAddress.class, new Converter<InetAddress>() {
+            public InetAddress convert(String value) throws Exception {
+                return InetAddress.getByName(value);
+            }
+        });
+        defaults.add(InetSocketAddress.class, new Converter<InetSocketAddress>() {
+            public InetSocketAddress convert(String value) {
+                return toSocketAddress(value);
+            }
+        });
+        defaults.addFactory("java.nio.file.Path", "java.nio.file.Paths", "get", String.class, String[].class);
+        defaults.addFactory("java.time.Duration", "java.time.Duration", "parse", CharSequence.class);
+        return defaults;
+    }
+
+    /**
+     * Register a converter, replace the existing converter of the type.
+     *
+     * @param type      the target type
+     * @param converter the converter
+     * @param <T>       the target type
+     * @return this <code>Converters</code>
+     */
+    public <T> Converters add(Class<T> type, Converter<? extends T> converter) {
+        if (type == null || converter == null) {
+            throw new IllegalArgumentException("Missing type or converter");
+        }
+        converters.put(type, converter);
+        ++modCount;
+        return this;
+    }
+
+    /**
+     * A number which changes whenever a converter is added.
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Get the converter of the type.
+     *
+     * @param type the target type
+     * @param <T>  the target type
+     * @return the converter
+     * @throws IllegalArgumentException if no converter for the type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Converter<T> get(final Class<T> type) {
+        Converter<T> converter = (Converter<T>) converters.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (type.isEnum()) {
+            return new Converter<T>() {
+                public T convert(String value) {
+                    return toEnum(type, value);
+                }
+            };
+        }
+        throw new IllegalArgumentException("No converter for " + type.getName());
+    }
+
+    /**
+     * Convert the value of the option, report the error as a <code>ParseException</code> of the option.
+     */
+    <T> T convert(JOption option, String value, Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+        Converter<T> converter = get(type);
+        try {
+            return converter.convert(value);
+        } catch (ParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ParseException(ParseException.INVALID_VALUE, option, "Invalid value for option " + option.getName() + ": " + value, e);
+        }
+    }
+
+    <T> List<T> convert(JOption option, List<String> values, Class<T> type) {
+        List<T> result = new ArrayList<T>(values.size());
+        for (String value : values) {
+            result.add(convert(option, value, type));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    Converters copy() {
+        return new Converters(converters);
+    }
+
+    static Converters getDefault() {
+        return DEFAULT;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> T toEnum(Class<T> type, String value) {
+        try {
+            return (T) Enum.valueOf((Class) type, value);
+        } catch (IllegalArgumentException e) {
+            return (T) Enum.valueOf((Class) type, value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static InetSocketAddress toSocketAddress(String value) {
+        int index = value.lastIndexOf(':');
+        if (index < 0) {
+            throw new IllegalArgumentException("Missing port: " + value);
+        }
+        String host = value.substring(0, index);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        return InetSocketAddress.createUnresolved(host, Integer.parseInt(value.substring(index + 1)));
+    }
+
+    /**
+     * Register a converter calling a static factory method, if the classes exist in the runtime.
+     */
+    private void addFactory(String typeName, String factoryName, String methodName, Class<?>... parameterTypes) {
+        try {
+            Class<?> type = Class.forName(typeName);
+            Method method = Class.forName(factoryName).getMethod(methodName, parameterTypes);
+            converters.put(type, new FactoryConverter(method));
+        } catch (ClassNotFoundException e) {
+            // not available in this runtime
+        } catch (NoSuchMethodException e) {
+            // not available in this runtime
+        }
+    }
+
+    /**
+     * Call a static factory method with the value, and an empty varargs array if it is the second parameter.
+     */
+    private static final class FactoryConverter implements Converter<Object> {
+        private final Method method;
+        private final boolean varargs;
+
+        FactoryConverter(Method method) {
+            this.method = method;
+            this.varargs = method.getParameterTypes().length == 2;
+        }
+
+        public Object convert(String value) throws Exception {
+            try {
+                if (varargs) {
+                    return method.invoke(null, value, new String[0]);
+                }
+                return method.invoke(null, value);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    /**
+     * A value converted to a type, which is cached by the option.
+     */
+    static final class Converted {
+        final Class<?> type;
+        final Object value;
+
+        Converted(Class<?> type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+}
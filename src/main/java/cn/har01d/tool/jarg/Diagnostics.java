@@ -0,0 +1,44 @@
+package cn.har01d.tool.jarg;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The debug messages and warnings of Jarg.
+ * <p>
+ * <code>java.util.logging</code> is only initialized when a message is written: a warning,
+ * or a debug message when the system property "jarg.debug" is "true".
+ * The debug messages are not built unless they are enabled.
+ */
+final class Diagnostics {
+
+    static final boolean DEBUG = Boolean.getBoolean("jarg.debug");
+
+    private Diagnostics() {
+    }
+
+    /**
+     * Log a debug message, which is the message followed by the argument.
+     */
+    static void debug(String message, Object arg) {
+        if (DEBUG) {
+            Log.logger.fine(message + arg);
+        }
+    }
+
+    static void warning(String message, Object arg) {
+        Log.logger.warning(message + arg);
+    }
+
+    static void warning(String message, Throwable e) {
+        Log.logger.log(Level.WARNING, message, e);
+    }
+
+    /**
+     * Holder of the logger, loaded on the first message.
+     */
+    private static final class Log {
+        static final Logger logger = Logger.getLogger("cn.har01d.tool.jarg");
+    }
+
+}
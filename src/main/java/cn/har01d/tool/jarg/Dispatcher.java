@@ -0,0 +1,198 @@
+package cn.har01d.tool.jarg;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Run the handlers of the commands, see {@link JCommand#setHandler(JCommand.Handler)}, for many command lines at the same time.
+ * <p>
+ * Every command line is parsed by the shared <code>JSpec</code> and runs the handler of the present command,
+ * or the handler of its nearest parent command which has one. The help asked by {@link Jarg#autoHelp()} exits with 0,
+ * and an error is printed like {@link Jarg#handleError(Exception)} and exits with 1.
+ * The interactive options are never prompted, they must have a value in the command line.
+ * <p>
+ * On a JVM with virtual threads, Java 21 or later, every command line runs on its own virtual thread by default,
+ * so the handlers blocked on I/O do not hold a platform thread. On an older JVM they run on a cached thread pool.
+ */
+public final class Dispatcher implements Closeable {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private final Jarg jarg;
+    private final JSpec spec;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+
+    /**
+     * Create a dispatcher with its own executor, a virtual thread per command line if the JVM supports it.
+     * The <code>Jarg</code> is compiled once, the changes made after are not visible to the dispatcher,
+     * except the handlers.
+     *
+     * @param jarg the <code>Jarg</code>
+     */
+    public Dispatcher(Jarg jarg) {
+        this(jarg, createExecutor(), true);
+    }
+
+    /**
+     * Create a dispatcher which runs on the executor, the executor is not shut down by the dispatcher.
+     *
+     * @param jarg     the <code>Jarg</code>
+     * @param executor the executor
+     */
+    public Dispatcher(Jarg jarg, ExecutorService executor) {
+        this(jarg, executor, false);
+    }
+
+    private Dispatcher(Jarg jarg, ExecutorService executor, boolean ownExecutor) {
+        if (jarg == null) {
+            throw new IllegalArgumentException("Jarg is null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor is null");
+        }
+        this.jarg = jarg;
+        this.spec = jarg.compile();
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * Run the command line on the executor, the help and the errors are printed to the standard streams.
+     *
+     * @param args the arguments
+     * @return the exit code
+     */
+    public Future<Integer> submit(String[] args) {
+        return submit(args, System.out, System.err);
+    }
+
+    /**
+     * Run the command line on the executor.
+     *
+     * @param args the arguments
+     * @param out  the output stream of the help
+     * @param err  the error stream
+     * @return the exit code
+     */
+    public Future<Integer> submit(final String[] args, final PrintStream out, final PrintStream err) {
+        return executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return execute(args, out, err);
+            }
+        });
+    }
+
+    /**
+     * Run the command line on the calling thread.
+     *
+     * @param args the arguments
+     * @param out  the output stream of the help
+     * @param err  the error stream
+     * @return the exit code
+     */
+    public int execute(String[] args, PrintStream out, PrintStream err) {
+        ParseResult result = null;
+        try {
+            result = spec.parse(args, false);
+            if (jarg.printHelp(result, out)) {
+                return 0;
+            }
+            return run(jarg, result);
+        } catch (Exception e) {
+            jarg.printError(e, result, out, err);
+            return 1;
+        } finally {
+            if (result != null) {
+                spec.release(result);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting command lines, the running handlers are not interrupted.
+     * The executor is only shut down if it is created by the dispatcher.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Create an executor which starts a virtual thread per task.
+     *
+     * @return the executor, or null if the JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // the virtual threads are a preview feature which is not enabled
+            if (e.getCause() instanceof UnsupportedOperationException) {
+                return null;
+            }
+            throw new IllegalStateException("Cannot create the virtual thread executor", e.getCause());
+        }
+    }
+
+    /**
+     * Run the handler of the present command, or the handler of its nearest parent command which has one.
+     *
+     * @param jarg   the <code>Jarg</code>
+     * @param result the parsed command line
+     * @return the exit code of the handler
+     */
+    static int run(Jarg jarg, ParseResult result) throws Exception {
+        JCommand command = result.getCommand();
+        for (JCommand c = command == null ? jarg : command; c != null; c = c.getParent()) {
+            JCommand.Handler handler = c.getHandler();
+            if (handler != null) {
+                return handler.execute(result);
+            }
+        }
+        if (command == null) {
+            result.requireCommand();
+        }
+        throw new IllegalStateException("No handler for command: " + result.getCommandPath());
+    }
+
+    private static ExecutorService createExecutor() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        return executor != null ? executor : Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private int count;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jarg-handler-" + (++count));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -2,21 +2,28 @@ package cn.har01d.tool.jarg;
 
 import java.io.PrintStream;
 import java.util.*;
-import java.util.logging.Logger;
 
 public class JCommand {
 
-    private static final Logger logger = Logger.getLogger(JCommand.class.getName());
+    static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static final String SPACES = "                ";
 
     protected final Map<String, JOption> map = new HashMap<String, JOption>();
     protected final List<JOption> options = new ArrayList<JOption>();
     protected final List<JParameter> parameters = new ArrayList<JParameter>();
+    protected final List<JCommand> commands = new ArrayList<JCommand>();
+    private final Map<String, JCommand> commandMap = new HashMap<String, JCommand>();
     final List<String> aliases = new ArrayList<String>();
+    final List<String[]> exclusiveGroups = new ArrayList<String[]>();
     private final String name;
     private final String summary;
     private final JCommand parent;
     protected String synopsis;
     protected String description;
+    private int modCount;
+    private Rendered help;
+    private Rendered optionList;
+    private volatile Handler handler;
 
     public JCommand(String name, String summary, JCommand parent) {
         this.name = name;
@@ -31,19 +38,48 @@ public class JCommand {
 
     public JCommand aliases(String... aliases) {
         this.aliases.addAll(Arrays.asList(aliases));
+        if (parent != null) {
+            for (String alias : aliases) {
+                parent.register(alias, this);
+            }
+        }
+        modified();
         return this;
     }
 
     public JCommand setSynopsis(String synopsis) {
         this.synopsis = synopsis;
+        modified();
         return this;
     }
 
     public JCommand setDescription(String description) {
         this.description = description;
+        modified();
+        return this;
+    }
+
+    /**
+     * Set the handler which runs this command, see {@link Dispatcher}.
+     * The handler is not part of the compiled <code>Jarg</code>, so it can be set after compiling.
+     *
+     * @param handler the handler, or null to remove it
+     * @return this <code>JCommand</code>
+     */
+    public JCommand setHandler(Handler handler) {
+        this.handler = handler;
         return this;
     }
 
+    /**
+     * Get the handler of this command.
+     *
+     * @return the handler, or null if it is not set
+     */
+    public Handler getHandler() {
+        return handler;
+    }
+
     public String getName() {
         return name;
     }
@@ -52,6 +88,92 @@ public class JCommand {
         return summary;
     }
 
+    /**
+     * Get the command which this command is added to.
+     *
+     * @return the parent command, or null for the <code>Jarg</code>
+     */
+    public JCommand getParent() {
+        return parent;
+    }
+
+    /**
+     * Add a subcommand, which is selected by the argument after this command, such as "tool cluster node drain".
+     * The subcommand can use the options of this command and its parents, the options of the parents take precedence.
+     *
+     * @param name        the command name
+     * @param description the command description
+     * @return the <code>JCommand</code>
+     */
+    public JCommand addCommand(String name, String description) {
+        JCommand command = new JCommand(name, description, this);
+        if (parent == null && isAutoHelp()) {
+            command.addOption("--help", "Show the help and exit", false);
+        }
+        return addCommand(command);
+    }
+
+    /**
+     * Clone a subcommand with new name and description.
+     *
+     * @param sourceName  the source command name
+     * @param name        the command name
+     * @param description the command description
+     * @return the <code>JCommand</code>
+     */
+    public JCommand cloneCommand(String sourceName, String name, String description) {
+        JCommand source = null;
+        for (JCommand c : commands) {
+            if (c.getName().equals(sourceName)) {
+                source = c;
+                break;
+            }
+        }
+
+        if (source == null) {
+            throw new ParseException(ParseException.COMMAND_REQUIRED, "Cannot find source command \"" + sourceName + "\"");
+        }
+
+        JCommand command = new JCommand(name, description, this);
+        command.addOptions(source.options);
+        command.addParameters(source.parameters);
+        return addCommand(command);
+    }
+
+    JCommand addCommand(JCommand command) {
+        commands.add(command);
+        register(command.name, command);
+        modified();
+        return command;
+    }
+
+    /**
+     * Map the alias to the subcommand, the first command of an alias wins.
+     */
+    private void register(String alias, JCommand command) {
+        if (!commandMap.containsKey(alias)) {
+            commandMap.put(alias, command);
+        }
+    }
+
+    public List<JCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Find the subcommand by name or alias.
+     *
+     * @param name the command name or alias
+     * @return the <code>JCommand</code>, or null if not found
+     */
+    public JCommand findCommand(String name) {
+        return commandMap.get(name);
+    }
+
+    boolean isAutoHelp() {
+        return false;
+    }
+
     public JOption addOption(String options, String description) {
         return addOption(options, description, true);
     }
@@ -61,6 +183,21 @@ public class JCommand {
         return addOption(option);
     }
 
+    /**
+     * Add an option and return its typed handle. The option is a flag if the type is <code>Boolean</code>,
+     * otherwise it has value. The <code>JOption</code> is {@link OptionKey#getOption()}.
+     *
+     * @param options     the string of options, separate by "|", e.g.: "-p|--port"
+     * @param description the option description
+     * @param type        the type of the value
+     * @param <T>         the type of the value
+     * @return the handle
+     */
+    public <T> OptionKey<T> addOption(String options, String description, Class<T> type) {
+        boolean flag = type == Boolean.class || type == boolean.class;
+        return addOption(options, description, !flag).key(type);
+    }
+
     public JOption addOption(JOption option) {
         for (String name : option.getOptions()) {
             if (map.containsKey(name)) {
@@ -72,9 +209,27 @@ public class JCommand {
             map.put(name, option);
         }
         options.add(option);
+        modified();
         return option;
     }
 
+    /**
+     * Check that at most one of the options is present, after the parse.
+     * The options are looked up in this command and its parents when the <code>Jarg</code> is compiled,
+     * and the group also applies to the subcommands.
+     *
+     * @param options the option names, such as "json" or "--json"
+     * @return this <code>JCommand</code>
+     */
+    public JCommand exclusive(String... options) {
+        if (options.length < 2) {
+            throw new IllegalArgumentException("An exclusive group needs two options at least");
+        }
+        exclusiveGroups.add(options.clone());
+        modified();
+        return this;
+    }
+
     public JCommand addOptions(Iterable<JOption> options) {
         for (JOption option : options) {
             addOption(option);
@@ -89,6 +244,7 @@ public class JCommand {
     public JParameter addParameter(String name, boolean required) {
         JParameter parameter = new JParameter(name, required);
         parameters.add(parameter);
+        modified();
         return parameter;
     }
 
@@ -112,17 +268,26 @@ public class JCommand {
     }
 
     public JOption getOption(String name) {
-        if (!map.containsKey(name)) {
+        JOption option = map.get(name);
+        if (option == null) {
             throw new IllegalArgumentException("Unknown option: " + name);
         }
-        return map.get(name);
+        return option;
+    }
+
+    /**
+     * Find the option of this command or its parents, the options of the parents take precedence.
+     */
+    JOption resolveOption(String name) {
+        JOption option = parent != null ? parent.resolveOption(name) : null;
+        return option != null ? option : map.get(name);
     }
 
     public boolean isPresent(String name) {
         JOption option = map.get(name);
 
         if (option == null) {
-            logger.fine("Unknown option: " + name);
+            Diagnostics.debug("Unknown option: ", name);
         }
         return option != null && option.isPresent();
     }
@@ -177,140 +342,239 @@ public class JCommand {
 
     public String getValue(String name, String defaultValue) {
         JOption option = getOption(name);
-        return option.isPresent() ? option.getValue() : defaultValue;
+        return option.isSet() ? option.getValue() : defaultValue;
+    }
+
+    /**
+     * Get the option value converted by the <code>Converter</code> of the type.
+     * The converted value is cached until the option value changes.
+     *
+     * @param name the option name
+     * @param type the target type
+     * @param <T>  the target type
+     * @return the converted value, or null if the option doesn't have value
+     */
+    public <T> T getValue(String name, Class<T> type) {
+        return convert(getOption(name), type);
+    }
+
+    /**
+     * Get all the option values converted by the <code>Converter</code> of the type.
+     * A single value is split by the separators of the option.
+     * The converted values are cached until the option value changes.
+     *
+     * @param name the option name
+     * @param type the target type
+     * @param <T>  the target type
+     * @return the unmodifiable list of converted values
+     */
+    public <T> List<T> getValues(String name, Class<T> type) {
+        return getValues(getOption(name), type);
+    }
+
+    /**
+     * Check if the option of the handle is present, without looking up the name.
+     *
+     * @param key the handle
+     * @return true if the option present
+     */
+    public boolean isPresent(OptionKey<?> key) {
+        return key.getOption().isPresent();
+    }
+
+    /**
+     * Get the value of the option of the handle, converted to the type of the handle.
+     *
+     * @param key the handle
+     * @param <T> the type of the value
+     * @return the converted value, false for a <code>Boolean</code> flag which is not present,
+     * or null if the option doesn't have value
+     */
+    public <T> T getValue(OptionKey<T> key) {
+        JOption option = key.getOption();
+        return !option.isHasValue() && !option.isSet() ? key.unset() : convert(option, key.getType());
+    }
+
+    public <T> T getValue(OptionKey<T> key, T defaultValue) {
+        return key.getOption().isSet() ? getValue(key) : defaultValue;
+    }
+
+    /**
+     * Get all the values of the option of the handle, converted to the type of the handle.
+     *
+     * @param key the handle
+     * @param <T> the type of the value
+     * @return the unmodifiable list of converted values
+     */
+    public <T> List<T> getValues(OptionKey<T> key) {
+        return getValues(key.getOption(), key.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> getValues(JOption option, Class<T> type) {
+        Converters.Converted converted = option.getConvertedValues();
+        if (converted == null || converted.type != type) {
+            List<String> values = option.separators().split(option.getValues());
+            converted = new Converters.Converted(type, getConverters().convert(option, values, type));
+            option.setConvertedValues(converted);
+        }
+        return (List<T>) converted.value;
+    }
+
+    /**
+     * Get the <code>Converters</code> used by the typed getters.
+     *
+     * @return the converters
+     */
+    public Converters getConverters() {
+        return parent != null ? parent.getConverters() : Converters.getDefault();
     }
 
     public boolean getBooleanValue(String name) {
-        return "true".equalsIgnoreCase(getValue(name));
+        Boolean value = getValue(name, Boolean.class);
+        return value != null && value;
     }
 
     public byte getByteValue(String name) {
-        return Byte.parseByte(getValue(name));
+        return require(getOption(name), Byte.class);
     }
 
     public byte getByteValue(String name, byte defaultValue) {
-        return Byte.parseByte(getValue(name, String.valueOf(defaultValue)));
+        return getValue(getOption(name), Byte.class, defaultValue);
     }
 
     public int getIntValue(String name) {
-        return Integer.parseInt(getValue(name));
+        return require(getOption(name), Integer.class);
     }
 
     public int getIntValue(String name, int defaultValue) {
-        return Integer.parseInt(getValue(name, String.valueOf(defaultValue)));
+        return getValue(getOption(name), Integer.class, defaultValue);
     }
 
     public long getLongValue(String name) {
-        return Long.parseLong(getValue(name));
+        return require(getOption(name), Long.class);
     }
 
     public long getLongValue(String name, long defaultValue) {
-        return Long.parseLong(getValue(name, String.valueOf(defaultValue)));
+        return getValue(getOption(name), Long.class, defaultValue);
     }
 
     public float getFloatValue(String name) {
-        return Float.parseFloat(getValue(name));
+        return require(getOption(name), Float.class);
     }
 
     public float getFloatValue(String name, float defaultValue) {
-        return Float.parseFloat(getValue(name, String.valueOf(defaultValue)));
+        return getValue(getOption(name), Float.class, defaultValue);
     }
 
     public double getDoubleValue(String name) {
-        return Double.parseDouble(getValue(name));
+        return require(getOption(name), Double.class);
     }
 
     public double getDoubleValue(String name, double defaultValue) {
-        return Double.parseDouble(getValue(name, String.valueOf(defaultValue)));
-    }
-
-    private List<String> getValues(String name) {
-        JOption option = getOption(name);
-        return option.getValues();
+        return getValue(getOption(name), Double.class, defaultValue);
     }
 
     public List<String> getStringValues(String name) {
-        List<String> values = getValues(name);
-        if (values.size() == 1) {
-            return Arrays.asList(values.get(0).split("[;|,]"));
-        } else {
-            return values;
-        }
+        JOption option = getOption(name);
+        return option.separators().split(option.getValues());
     }
 
     public List<Integer> getIntValues(String name) {
-        List<Integer> result = new ArrayList<Integer>();
-        List<String> values = getValues(name);
-        if (values.size() == 1) {
-            for (String val : values.get(0).split("[;|,]")) {
-                result.add(Integer.parseInt(val));
-            }
-        } else {
-            for (String val : values) {
-                result.add(Integer.parseInt(val));
-            }
-        }
-        return result;
+        return getValues(name, Integer.class);
     }
 
     public List<Long> getLongValues(String name) {
-        List<Long> result = new ArrayList<Long>();
-        List<String> values = getValues(name);
-        if (values.size() == 1) {
-            for (String val : values.get(0).split("[;|,]")) {
-                result.add(Long.parseLong(val));
-            }
-        } else {
-            for (String val : values) {
-                result.add(Long.parseLong(val));
-            }
-        }
-        return result;
+        return getValues(name, Long.class);
     }
 
     public List<Float> getFloatValues(String name) {
-        List<Float> result = new ArrayList<Float>();
-        List<String> values = getValues(name);
-        if (values.size() == 1) {
-            for (String val : values.get(0).split("[;|,]")) {
-                result.add(Float.parseFloat(val));
-            }
-        } else {
-            for (String val : values) {
-                result.add(Float.parseFloat(val));
-            }
-        }
-        return result;
+        return getValues(name, Float.class);
     }
 
     public List<Double> getDoubleValues(String name) {
-        List<Double> result = new ArrayList<Double>();
-        List<String> values = getValues(name);
-        if (values.size() == 1) {
-            for (String val : values.get(0).split("[;|,]")) {
-                result.add(Double.parseDouble(val));
-            }
-        } else {
-            for (String val : values) {
-                result.add(Double.parseDouble(val));
-            }
+        return getValues(name, Double.class);
+    }
+
+    /**
+     * Get all the option values as an <code>int</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public int[] getIntArray(String name) {
+        JOption option = getOption(name);
+        return option.separators().toIntArray(option, option.getValues());
+    }
+
+    /**
+     * Get all the option values as a <code>long</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public long[] getLongArray(String name) {
+        JOption option = getOption(name);
+        return option.separators().toLongArray(option, option.getValues());
+    }
+
+    /**
+     * Get all the option values as a <code>double</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public double[] getDoubleArray(String name) {
+        JOption option = getOption(name);
+        return option.separators().toDoubleArray(option, option.getValues());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T convert(JOption option, Class<T> type) {
+        Converters.Converted converted = option.getConverted();
+        if (converted == null || converted.type != type) {
+            converted = new Converters.Converted(type, getConverters().convert(option, option.getValue(), type));
+            option.setConverted(converted);
         }
-        return result;
+        return (T) converted.value;
+    }
+
+    private <T> T require(JOption option, Class<T> type) {
+        T value = convert(option, type);
+        if (value == null) {
+            throw new ParseException(ParseException.OPTION_VAL_REQUIRED, option, "Missing value for option " + option.getName());
+        }
+        return value;
+    }
+
+    private <T> T getValue(JOption option, Class<T> type, T defaultValue) {
+        return option.isSet() ? require(option, type) : defaultValue;
     }
 
     protected String joinString(List<?> values, String separator) {
         StringBuilder sb = new StringBuilder();
+        joinString(sb, values, separator);
+        return sb.toString();
+    }
+
+    void joinString(StringBuilder sb, List<?> values, String separator) {
+        int start = sb.length();
         for (Object obj : values) {
-            if (sb.length() > 0) {
+            if (sb.length() > start) {
                 sb.append(separator).append(obj);
             } else {
                 sb.append(obj);
             }
         }
-        return sb.toString();
     }
 
     protected String indent(int number) {
+        if (number <= SPACES.length()) {
+            return SPACES.substring(0, number);
+        }
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < number; ++i) {
             sb.append(" ");
@@ -319,87 +583,242 @@ public class JCommand {
     }
 
     protected String indentLines(String text, int number) {
-        String indent = indent(number);
-        String[] lines = text.split("\n");
         StringBuilder sb = new StringBuilder();
-        for (String line : lines) {
-            if (line.isEmpty()) {
-                sb.append("\n");
-            } else {
-                sb.append(indent).append(line).append("\n");
+        indentLines(sb, text, number);
+        return sb.toString();
+    }
+
+    /**
+     * Append the indented lines, like <code>text.split("\n")</code> the trailing empty lines are removed.
+     */
+    void indentLines(StringBuilder sb, String text, int number) {
+        String indent = indent(number);
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            --end;
+        }
+        if (end == 0 && text.length() > 0) {
+            // all lines are empty, same as the empty array of split
+            return;
+        }
+
+        int start = 0;
+        while (start <= end) {
+            int index = text.indexOf('\n', start);
+            if (index < 0 || index > end) {
+                index = end;
             }
+            if (index > start) {
+                sb.append(indent).append(text, start, index);
+            }
+            sb.append('\n');
+            start = index + 1;
         }
-        return sb.toString();
+    }
+
+    /**
+     * Get the help text, it is rendered once and cached until this command, its options or parameters change.
+     *
+     * @return the help text
+     */
+    public String getHelp() {
+        int version = helpVersion();
+        Rendered rendered = help;
+        if (rendered == null || rendered.version != version) {
+            StringBuilder sb = new StringBuilder();
+            renderHelp(sb);
+            rendered = new Rendered(version, sb.toString());
+            help = rendered;
+        }
+        return rendered.text;
     }
 
     public void printHelp(PrintStream printStream) {
-        printStream.println("COMMAND");
-        printStream.println(indent(4) + joinString(aliases, ", ") + "  -  " + summary);
-        printStream.println();
+        printStream.print(getHelp());
+    }
+
+    void renderHelp(StringBuilder sb) {
+        sb.append("COMMAND").append(LINE_SEPARATOR);
+        sb.append(indent(4));
+        joinString(sb, aliases, ", ");
+        sb.append("  -  ").append(summary).append(LINE_SEPARATOR);
+        sb.append(LINE_SEPARATOR);
 
-        printStream.println("SYNOPSIS");
+        sb.append("SYNOPSIS").append(LINE_SEPARATOR);
         if (name.equals("help")) {
-            printStream.println(indent(4) + "COMMAND --help");
-            printStream.println(indent(4) + "help COMMAND");
+            sb.append(indent(4)).append("COMMAND --help").append(LINE_SEPARATOR);
+            sb.append(indent(4)).append("help COMMAND").append(LINE_SEPARATOR);
         } else {
-            if (synopsis == null) {
-                generateSynopsis();
-            }
-            printStream.println(indentLines(synopsis, 4));
+            indentLines(sb, synopsis == null ? generateSynopsis() : synopsis, 4);
+            sb.append(LINE_SEPARATOR);
         }
 
         if (description != null) {
-            printStream.println("DESCRIPTION");
-            printStream.println(indentLines(description, 4));
+            sb.append("DESCRIPTION").append(LINE_SEPARATOR);
+            indentLines(sb, description, 4);
+            sb.append(LINE_SEPARATOR);
         }
 
-        printOptions(printStream);
+        renderOptions(sb);
+        renderCommands(sb);
     }
 
-    private void generateSynopsis() {
-        synopsis = name + " [OPTION]... " + joinString(parameters, " ");
+    String generateSynopsis() {
+        return commandPath() + (commands.isEmpty() ? "" : " COMMAND") + " [OPTION]... " + joinString(parameters, " ");
     }
 
-    protected void printOptions(PrintStream printStream) {
-        List<JOption> options = new ArrayList<JOption>();
-        if (parent != null) {
-            options.addAll(parent.options);
+    /**
+     * The names from the first level command to this command, such as "cluster node".
+     */
+    String commandPath() {
+        if (parent == null || parent.parent == null) {
+            return name;
+        }
+        return parent.commandPath() + " " + name;
+    }
+
+    void renderCommands(StringBuilder sb) {
+        if (!commands.isEmpty()) {
+            sb.append("COMMANDS").append(LINE_SEPARATOR);
+            int max = 0;
+            for (JCommand command : commands) {
+                max = Math.max(max, command.getName().length());
+            }
+
+            for (JCommand o : commands) {
+                sb.append(indent(4)).append(o.getName()).append(indent(8)).append(indent(max - o.getName().length()))
+                        .append(o.getSummary()).append(LINE_SEPARATOR);
+            }
         }
-        options.addAll(this.options);
-        if (options.isEmpty()) {
+    }
+
+    protected void printOptions(PrintStream printStream) {
+        StringBuilder sb = new StringBuilder();
+        renderOptions(sb);
+        printStream.print(sb);
+    }
+
+    void renderOptions(StringBuilder sb) {
+        if (!hasChainOptions()) {
             return;
         }
 
-        printStream.println("OPTIONS");
-        printStream.println("    Mandatory arguments to long options are mandatory for short options too.\n");
-        for (JOption e : options) {
-            printOption(printStream, e);
+        sb.append("OPTIONS").append(LINE_SEPARATOR);
+        sb.append("    Mandatory arguments to long options are mandatory for short options too.\n").append(LINE_SEPARATOR);
+        renderChainOptions(sb);
+        sb.append(LINE_SEPARATOR);
+    }
+
+    private boolean hasChainOptions() {
+        return !options.isEmpty() || (parent != null && parent.hasChainOptions());
+    }
+
+    /**
+     * Render the options of the parents, then the options of this command.
+     */
+    private void renderChainOptions(StringBuilder sb) {
+        if (parent != null) {
+            parent.renderChainOptions(sb);
+        }
+        for (JOption option : options) {
+            renderOption(sb, option);
         }
-        printStream.println();
     }
 
     protected void printOption(PrintStream printStream, JOption option) {
-        List<String> allOptions = new ArrayList<String>(option.getShortOptions());
-        if (option.isHasValue()) {
-            for (String o : option.getLongOptions()) {
-                allOptions.add(o + "=" + option.getLabel());
+        StringBuilder sb = new StringBuilder();
+        renderOption(sb, option);
+        printStream.print(sb);
+    }
+
+    void renderOption(StringBuilder sb, JOption option) {
+        sb.append(indent(4));
+        int start = sb.length();
+        for (String o : option.getShortOptions()) {
+            if (sb.length() > start) {
+                sb.append(", ");
             }
-        } else {
-            allOptions.addAll(option.getLongOptions());
+            sb.append(o);
         }
-
-        printStream.println(indent(4) + joinString(allOptions, ", "));
-        printStream.println(indent(8) + option.getDescription());
+        for (String o : option.getLongOptions()) {
+            if (sb.length() > start) {
+                sb.append(", ");
+            }
+            sb.append(o);
+            if (option.isHasValue()) {
+                sb.append('=').append(option.getLabel());
+            }
+        }
+        sb.append(LINE_SEPARATOR);
+        sb.append(indent(8)).append(option.getDescription()).append(LINE_SEPARATOR);
     }
 
     protected void printUsage(PrintStream printStream) {
-        printStream.print("Usage: ");
-        printStream.println(getName() + " [OPTION]... " + joinString(parameters, " "));
+        printStream.print("Usage: " + generateSynopsis() + LINE_SEPARATOR);
     }
 
     protected void listOptions(PrintStream printStream) {
-        printStream.print("Options: ");
-        printStream.println(joinString(options, ", "));
+        int version = helpVersion();
+        Rendered rendered = optionList;
+        if (rendered == null || rendered.version != version) {
+            StringBuilder sb = new StringBuilder("Options: ");
+            joinString(sb, options, ", ");
+            sb.append(LINE_SEPARATOR);
+            rendered = new Rendered(version, sb.toString());
+            optionList = rendered;
+        }
+        printStream.print(rendered.text);
+    }
+
+    /**
+     * Record a change of the definition, which invalidates the cached help text.
+     */
+    void modified() {
+        ++modCount;
+    }
+
+    /**
+     * A number which changes whenever this command, its options or parameters change.
+     */
+    int version() {
+        int version = modCount + options.size() + parameters.size();
+        for (JOption option : options) {
+            version += option.getModCount();
+        }
+        for (JParameter parameter : parameters) {
+            version += parameter.getModCount();
+        }
+        return version;
+    }
+
+    /**
+     * A number which changes whenever this command, its subcommands, their options or parameters change.
+     */
+    int treeVersion() {
+        int version = version() + commands.size();
+        for (JCommand command : commands) {
+            version += command.treeVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Clear the state of the last parse of the options and parameters of this command and its subcommands.
+     */
+    void resetValues() {
+        for (JOption option : options) {
+            option.reset();
+        }
+        for (JParameter parameter : parameters) {
+            parameter.reset();
+        }
+        for (JCommand command : commands) {
+            command.resetValues();
+        }
+    }
+
+    int helpVersion() {
+        return parent == null ? version() : version() + parent.helpVersion();
     }
 
     @Override
@@ -407,4 +826,31 @@ public class JCommand {
         return name + "  -  " + summary;
     }
 
+    /**
+     * Run a parsed command line, the handler of the present command is run by {@link Dispatcher} and {@link Jarg#execute(String[])}.
+     */
+    public interface Handler {
+        /**
+         * Run the command. The result may be reused after this method returns, so it must not be kept.
+         *
+         * @param result the parsed command line
+         * @return the exit code
+         * @throws Exception the error is printed like {@link Jarg#printError(Exception, PrintStream, PrintStream)}
+         */
+        int execute(ParseResult result) throws Exception;
+    }
+
+    /**
+     * A rendered text with the version it was rendered from.
+     */
+    static final class Rendered {
+        final int version;
+        final String text;
+
+        Rendered(int version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+
 }
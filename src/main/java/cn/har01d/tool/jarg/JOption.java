@@ -1,12 +1,13 @@
 package cn.har01d.tool.jarg;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.logging.Logger;
 
 public final class JOption {
 
-    private static final Logger logger = Logger.getLogger(JOption.class.getName());
+    private static final String DEFAULT_SEPARATORS = ";|,";
 
     private final List<String> longOptions = new ArrayList<String>();
     private final List<String> shortOptions = new ArrayList<String>();
@@ -18,8 +19,17 @@ public final class JOption {
     private boolean interactive;
     private boolean present;
     private String label;
+    private String defaultValue;
     private String value;
     private List<String> values = new ArrayList<String>();
+    private Converters.Converted converted;
+    private Converters.Converted convertedValues;
+    private Separators separators;
+    private List<String> completions = Collections.emptyList();
+    private ValueConstraint constraint = ValueConstraint.NONE;
+    private List<String> requires = Collections.emptyList();
+    private ValueSource source;
+    private int modCount;
 
     /**
      * Construct a <code>JOption</code>.
@@ -29,11 +39,14 @@ public final class JOption {
      * The first long option is the primary name if exist;
      * Otherwise, the first short option is the primary name.
      * <p>
-     * When the option has value, there are 3 possible ways to specific the value:
+     * When the option has value, there are 4 possible ways to specific the value:
      * 1. -f app.conf
-     * 2. --file=app.conf
-     * 3. --file app.conf
+     * 2. -fapp.conf
+     * 3. --file=app.conf
+     * 4. --file app.conf
      * If the option doesn't have value, the option present indicate a true flag.
+     * The single character short options can be clustered like getopt, "-xvf app.tar" is "-x -v -f app.tar".
+     * An argument which is the name of a short option, such as "-f1", is not split.
      *
      * @param option      the string of options, separate by "|", e.g.: "-a|--all".
      * @param description the option description
@@ -43,6 +56,19 @@ public final class JOption {
         this.description = description;
         this.hasValue = hasValue;
         this.init(option);
+        this.setSeparators(DEFAULT_SEPARATORS);
+    }
+
+    /**
+     * Construct a <code>JOption</code> of the names which are already split, such as the names read from a snapshot.
+     * The other settings are restored by {@link #restore}.
+     */
+    JOption(String[] longOptions, String[] shortOptions, String[] options, String description, boolean hasValue) {
+        this.description = description;
+        this.hasValue = hasValue;
+        Collections.addAll(this.longOptions, longOptions);
+        Collections.addAll(this.shortOptions, shortOptions);
+        Collections.addAll(this.options, options);
     }
 
     private void init(String option) {
@@ -62,7 +88,7 @@ public final class JOption {
                 shortOptions.add(op);
                 options.add(op.substring(1));
             } else {
-                logger.warning("Unsupported option: " + op);
+                Diagnostics.warning("Unsupported option: ", op);
             }
         }
 
@@ -71,6 +97,17 @@ public final class JOption {
         }
     }
 
+    /**
+     * Create a typed handle which reads this option without looking up its name.
+     *
+     * @param type the type of the value, <code>Boolean</code> for a flag
+     * @param <T>  the type of the value
+     * @return the handle
+     */
+    public <T> OptionKey<T> key(Class<T> type) {
+        return new OptionKey<T>(this, type);
+    }
+
     /**
      * Get the primary name.
      *
@@ -94,6 +131,7 @@ public final class JOption {
             throw new IllegalStateException("Option " + getName() + " doesn't have value, cannot support interactive");
         }
         this.interactive = true;
+        modified();
         return this;
     }
 
@@ -140,22 +178,195 @@ public final class JOption {
 
     public JOption setLabel(String label) {
         this.label = label;
+        modified();
         return this;
     }
 
+    /**
+     * Set the characters which split a single value to multiple values, ";|," by default.
+     * An empty string disables splitting.
+     *
+     * @param separators the separator characters
+     * @return this <code>JOption</code>
+     */
+    public JOption setSeparators(String separators) {
+        this.separators = new Separators(separators);
+        this.converted = null;
+        this.convertedValues = null;
+        modified();
+        return this;
+    }
+
+    public String getSeparators() {
+        return separators.getChars();
+    }
+
+    Separators separators() {
+        return separators;
+    }
+
     public JOption defaultValue(Object value) {
         if (!hasValue) {
             throw new IllegalStateException("Option " + getName() + " doesn't have value");
         }
-        this.value = String.valueOf(value);
+        this.defaultValue = String.valueOf(value);
+        this.value = defaultValue;
         description = description + " (Default: " + this.value + ")";
+        modified();
+        return this;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Set the values offered by the shell completion, such as the names of an enum.
+     *
+     * @param values the values
+     * @return this <code>JOption</code>
+     */
+    public JOption completions(Object... values) {
+        if (!hasValue) {
+            throw new IllegalStateException("Option " + getName() + " doesn't have value");
+        }
+        this.completions = JParameter.toStrings(values);
+        modified();
+        return this;
+    }
+
+    public List<String> getCompletions() {
+        return completions;
+    }
+
+    /**
+     * Check that every value is an integer in the range, after the parse.
+     *
+     * @param min the minimum value, inclusive
+     * @param max the maximum value, inclusive
+     * @return this <code>JOption</code>
+     */
+    public JOption range(long min, long max) {
+        checkHasValue();
+        constraint = constraint.range(min, max);
+        modified();
+        return this;
+    }
+
+    /**
+     * Check that every value is a number in the range, after the parse.
+     *
+     * @param min the minimum value, inclusive
+     * @param max the maximum value, inclusive
+     * @return this <code>JOption</code>
+     */
+    public JOption range(double min, double max) {
+        checkHasValue();
+        constraint = constraint.range(min, max);
+        modified();
+        return this;
+    }
+
+    /**
+     * Check that every value matches the regular expression, after the parse. The expression is compiled once.
+     *
+     * @param regex the regular expression
+     * @return this <code>JOption</code>
+     */
+    public JOption pattern(String regex) {
+        checkHasValue();
+        constraint = constraint.pattern(regex);
+        modified();
+        return this;
+    }
+
+    /**
+     * Check that every value is one of the choices, after the parse, such as the names of an enum.
+     * The choices are also offered by the shell completion if it has no other values.
+     *
+     * @param values the choices
+     * @return this <code>JOption</code>
+     */
+    public JOption choices(Object... values) {
+        checkHasValue();
+        List<String> choices = JParameter.toStrings(values);
+        constraint = constraint.choices(choices);
+        if (completions.isEmpty()) {
+            completions = choices;
+        }
+        modified();
         return this;
     }
 
+    ValueConstraint getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * Check that the other options are present or have a value from a <code>ValueSource</code> when this option is present.
+     * The options are looked up in the command of this option and its parents when the <code>Jarg</code> is compiled.
+     *
+     * @param options the option names, such as "user" or "--user"
+     * @return this <code>JOption</code>
+     */
+    public JOption requires(String... options) {
+        List<String> list = new ArrayList<String>(requires);
+        list.addAll(Arrays.asList(options));
+        requires = Collections.unmodifiableList(list);
+        modified();
+        return this;
+    }
+
+    List<String> getRequires() {
+        return requires;
+    }
+
+    /**
+     * Restore the settings of an option read from a spec snapshot, as they were when it was written.
+     * The description already has the default value.
+     */
+    void restore(String label, String defaultValue, boolean interactive, String separators,
+                 List<String> completions, ValueConstraint constraint, List<String> requires) {
+        this.label = label;
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+        this.interactive = interactive;
+        this.completions = completions;
+        this.constraint = constraint;
+        this.requires = requires;
+        setSeparators(separators);
+    }
+
+    private void checkHasValue() {
+        if (!hasValue) {
+            throw new IllegalStateException("Option " + getName() + " doesn't have value");
+        }
+    }
+
     public String getValue() {
         return value;
     }
 
+    /**
+     * Get the source of the value which is not given in the arguments.
+     *
+     * @return the source, or null if the option is present in the arguments or no source has its value
+     */
+    public ValueSource getSource() {
+        return source;
+    }
+
+    void setSource(ValueSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Check if the option has a value from the arguments or a <code>ValueSource</code>.
+     */
+    boolean isSet() {
+        return present || source != null;
+    }
+
     public List<String> getValues() {
         return values;
     }
@@ -163,6 +374,51 @@ public final class JOption {
     void setValue(String value) {
         this.value = value;
         this.values.add(value);
+        this.converted = null;
+        this.convertedValues = null;
+    }
+
+    /**
+     * Clear the state of the last parse, the value is the default value again.
+     */
+    void reset() {
+        present = false;
+        source = null;
+        value = defaultValue;
+        values.clear();
+        converted = null;
+        convertedValues = null;
+    }
+
+    void setValues(List<String> values) {
+        this.values.clear();
+        for (String value : values) {
+            setValue(value);
+        }
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    private void modified() {
+        ++modCount;
+    }
+
+    Converters.Converted getConverted() {
+        return converted;
+    }
+
+    void setConverted(Converters.Converted converted) {
+        this.converted = converted;
+    }
+
+    Converters.Converted getConvertedValues() {
+        return convertedValues;
+    }
+
+    void setConvertedValues(Converters.Converted convertedValues) {
+        this.convertedValues = convertedValues;
     }
 
     @Override
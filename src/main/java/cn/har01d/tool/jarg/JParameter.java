@@ -1,9 +1,17 @@
 package cn.har01d.tool.jarg;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class JParameter {
     private final String name;
     private boolean required;
 
+    private String defaultValue;
+    private List<String> completions = Collections.emptyList();
+    private ValueConstraint constraint = ValueConstraint.NONE;
+    private int modCount;
     private String value;
 
     public JParameter(String name, boolean required) {
@@ -13,6 +21,7 @@ public class JParameter {
 
     public JParameter required() {
         required = true;
+        modified();
         return this;
     }
 
@@ -32,11 +41,125 @@ public class JParameter {
         this.value = value;
     }
 
+    /**
+     * Clear the value of the last parse, the value is the default value again.
+     */
+    void reset() {
+        value = defaultValue;
+    }
+
     public JParameter defaultValue(Object value) {
-        this.value = String.valueOf(value);
+        this.defaultValue = String.valueOf(value);
+        this.value = defaultValue;
+        modified();
+        return this;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Set the values offered by the shell completion, the shell completes file names if there is no value.
+     *
+     * @param values the values
+     * @return this <code>JParameter</code>
+     */
+    public JParameter completions(Object... values) {
+        this.completions = toStrings(values);
+        modified();
+        return this;
+    }
+
+    public List<String> getCompletions() {
+        return completions;
+    }
+
+    /**
+     * Check that the value is an integer in the range, after the parse.
+     *
+     * @param min the minimum value, inclusive
+     * @param max the maximum value, inclusive
+     * @return this <code>JParameter</code>
+     */
+    public JParameter range(long min, long max) {
+        constraint = constraint.range(min, max);
+        modified();
+        return this;
+    }
+
+    /**
+     * Check that the value is a number in the range, after the parse.
+     *
+     * @param min the minimum value, inclusive
+     * @param max the maximum value, inclusive
+     * @return this <code>JParameter</code>
+     */
+    public JParameter range(double min, double max) {
+        constraint = constraint.range(min, max);
+        modified();
+        return this;
+    }
+
+    /**
+     * Check that the value matches the regular expression, after the parse. The expression is compiled once.
+     *
+     * @param regex the regular expression
+     * @return this <code>JParameter</code>
+     */
+    public JParameter pattern(String regex) {
+        constraint = constraint.pattern(regex);
+        modified();
         return this;
     }
 
+    /**
+     * Check that the value is one of the choices, after the parse.
+     * The choices are also offered by the shell completion if it has no other values.
+     *
+     * @param values the choices
+     * @return this <code>JParameter</code>
+     */
+    public JParameter choices(Object... values) {
+        List<String> choices = toStrings(values);
+        constraint = constraint.choices(choices);
+        if (completions.isEmpty()) {
+            completions = choices;
+        }
+        modified();
+        return this;
+    }
+
+    ValueConstraint getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * Restore the settings of a parameter read from a spec snapshot.
+     */
+    void restore(String defaultValue, List<String> completions, ValueConstraint constraint) {
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+        this.completions = completions;
+        this.constraint = constraint;
+    }
+
+    static List<String> toStrings(Object[] values) {
+        List<String> list = new ArrayList<String>(values.length);
+        for (Object value : values) {
+            list.add(String.valueOf(value));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    private void modified() {
+        ++modCount;
+    }
+
     public String toString() {
         if (required) {
             return name.toUpperCase();
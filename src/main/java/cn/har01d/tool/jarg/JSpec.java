@@ -0,0 +1,993 @@
+package cn.har01d.tool.jarg;
+
+import java.io.Console;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable, compiled form of a <code>Jarg</code> definition.
+ * <p>
+ * Parsing with a <code>JSpec</code> never changes the <code>JOption</code>s and <code>JParameter</code>s it was
+ * compiled from, so one instance can be shared by many threads.
+ * Every call of {@link #parse(String[])} returns its own <code>ParseResult</code>.
+ * Changes made to the <code>Jarg</code> after {@link Jarg#compile()} are not visible to the spec.
+ */
+public final class JSpec {
+
+    private static final int END_OF_OPTIONS = -1;
+    private static final String TRUE = Boolean.TRUE.toString();
+    private static final int SUGGESTIONS = 3;
+    private static final int POOL_SIZE = 16;
+
+    final JOption[] options;
+    final String[] defaults;
+    final boolean[] hasValue;
+    final boolean[] interactive;
+    /**
+     * The separators of the options, a later change of an option does not change the compiled spec.
+     */
+    final Separators[] separators;
+    final List<String>[] completions;
+    final ValueSource[] sources;
+    final ParseListener[] listeners;
+    /**
+     * The value constraints of the options, null if none.
+     */
+    private final ValueConstraint[] constraints;
+    /**
+     * The options required by the options, as sparse bitsets, null if none.
+     */
+    private final long[][] requires;
+    /**
+     * The options which have constraints or requirements, the only options visited by the validation.
+     */
+    private final int[] checked;
+    /**
+     * The options which have a value from a <code>ValueSource</code>, as a bitset.
+     */
+    private final long[] sourced;
+    private final AtomicReferenceArray<ParseResult> pool = new AtomicReferenceArray<ParseResult>(POOL_SIZE);
+    final Scope root;
+    private final Converters converters;
+    final boolean expandArgFiles;
+
+    JSpec(Jarg jarg) {
+        this(jarg, null);
+    }
+
+    /**
+     * Compile the <code>Jarg</code>, the option indexes are read from the snapshot if it is not null.
+     */
+    @SuppressWarnings("unchecked")
+    JSpec(Jarg jarg, SpecSnapshot snapshot) {
+        this.converters = jarg.getCustomConverters() == null ? null : jarg.getCustomConverters().copy();
+        this.expandArgFiles = jarg.isExpandArgFiles();
+        this.listeners = jarg.getParseListeners().toArray(new ParseListener[0]);
+        List<JOption> all = new ArrayList<JOption>();
+        List<String> keys = jarg.getSources().isEmpty() ? null : new ArrayList<String>();
+        List<long[]> required = new ArrayList<long[]>();
+        this.root = new Scope(jarg, null, all, keys, required, snapshot == null ? null : snapshot.tables());
+
+        int size = all.size();
+        this.options = all.toArray(new JOption[size]);
+        this.defaults = new String[size];
+        this.hasValue = new boolean[size];
+        this.interactive = new boolean[size];
+        this.separators = new Separators[size];
+        this.completions = newLists(size);
+        for (int i = 0; i < size; ++i) {
+            defaults[i] = options[i].getDefaultValue();
+            hasValue[i] = options[i].isHasValue();
+            interactive[i] = options[i].isInteractive();
+            separators[i] = options[i].separators();
+            completions[i] = options[i].getCompletions();
+        }
+
+        this.sources = new ValueSource[size];
+        resolveSources(jarg.getSources(), keys);
+        this.sourced = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; ++i) {
+            if (sources[i] != null) {
+                sourced[i >>> 6] |= 1L << i;
+            }
+        }
+
+        this.constraints = new ValueConstraint[size];
+        this.requires = required.toArray(new long[size][]);
+        int[] checked = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; ++i) {
+            ValueConstraint constraint = options[i].getConstraint();
+            constraints[i] = constraint.isEmpty() ? null : constraint;
+            if (constraints[i] != null || requires[i] != null) {
+                checked[count++] = i;
+            }
+        }
+        this.checked = Arrays.copyOf(checked, count);
+    }
+
+    /**
+     * Replace the default values with the values of the first source which has the option key,
+     * so a parse only falls back to the resolved value like to a default value.
+     */
+    private void resolveSources(List<ValueSource> list, List<String> keys) {
+        for (ValueSource source : list) {
+            Map<String, String> values = source.getValues();
+            for (int i = 0; i < options.length; ++i) {
+                if (sources[i] == null) {
+                    String value = values.get(source.nameOf(keys.get(i)));
+                    if (value != null) {
+                        defaults[i] = value;
+                        sources[i] = source;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the name of the compiled <code>Jarg</code>.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return root.command.getName();
+    }
+
+    Converters getConverters() {
+        return converters != null ? converters : Converters.getDefault();
+    }
+
+    /**
+     * Parse arguments.
+     *
+     * @param args the arguments
+     * @return the <code>ParseResult</code> of this call
+     */
+    public ParseResult parse(String[] args) {
+        return parse(args, true);
+    }
+
+    /**
+     * Parse arguments, optionally without reading the console.
+     *
+     * @param args        the arguments
+     * @param interactive read the values of the interactive options from the console or not,
+     *                    if not, an interactive option without value is a <code>ParseException</code>
+     *                    with code {@link ParseException#CONSOLE_ACCESS}
+     * @return the <code>ParseResult</code> of this call
+     */
+    public ParseResult parse(String[] args, boolean interactive) {
+        return parse((Object) args, interactive);
+    }
+
+    /**
+     * Parse a command line, split like {@link Tokenizer#split(CharSequence)}.
+     * <p>
+     * The tokens are kept as ranges of the line, the option names are looked up in the line,
+     * and a value or an argument is only copied to a <code>String</code> when it is read from the result.
+     * So the line must not change until the result is released. The interactive options are not prompted,
+     * and "@file" is an argument, not an argument file.
+     *
+     * @param line the command line
+     * @return the <code>ParseResult</code> of this call
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    public ParseResult parse(CharSequence line) {
+        return parse((Object) line, false);
+    }
+
+    /**
+     * Parse a UTF-8 command line from the position to the limit of the buffer, like {@link #parse(CharSequence)}.
+     * <p>
+     * The bytes are not decoded, the ASCII option names are matched against the bytes,
+     * and a value or an argument is decoded when it is read from the result.
+     * So the bytes must not change until the result is released. The position of the buffer is not changed.
+     *
+     * @param line the command line
+     * @return the <code>ParseResult</code> of this call
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    public ParseResult parse(ByteBuffer line) {
+        return parse((Object) line, false);
+    }
+
+    private ParseResult parse(Object input, boolean interactive) {
+        ParseResult result = acquire();
+        ParseException error = null;
+        try {
+            scan(input, result);
+            bind(result);
+            if (interactive) {
+                prompt(result);
+            } else if (result.getPrompts().length > 0) {
+                JOption option = options[result.getPrompts()[0]];
+                throw new ParseException(ParseException.CONSOLE_ACCESS, option, "Missing required value for option " + option.getName());
+            }
+            validate(result);
+        } catch (ParseException e) {
+            error = e.withCommand(result.getScope().command);
+            throw e;
+        } finally {
+            finish(result, error);
+        }
+        return result;
+    }
+
+    /**
+     * Take a cleared result from the pool, or create one if the pool is empty.
+     */
+    ParseResult acquire() {
+        for (int i = 0; i < POOL_SIZE; ++i) {
+            ParseResult result = pool.get(i);
+            if (result != null && pool.compareAndSet(i, result, null)) {
+                result.reset();
+                result.acquire();
+                return result;
+            }
+        }
+        return new ParseResult(this);
+    }
+
+    /**
+     * Return a result to the pool, so the next {@link #parse(String[])} reuses its arrays instead of allocating them.
+     * The result, its argument list and value lists must not be used after it is released.
+     * The pool keeps a few results, the others are left to the garbage collector.
+     *
+     * @param result the result returned by this spec
+     */
+    public void release(ParseResult result) {
+        if (result.getSpec() != this) {
+            throw new IllegalArgumentException("The result is not parsed by this spec");
+        }
+        if (!result.release()) {
+            return;
+        }
+        for (int i = 0; i < POOL_SIZE; ++i) {
+            if (pool.get(i) == null && pool.compareAndSet(i, null, result)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send the metrics of the parse to the listeners, if any.
+     *
+     * @param result the result
+     * @param error  the error of a failed parse, or null
+     */
+    void finish(ParseResult result, ParseException error) {
+        ParseMetrics metrics = result.getMetrics();
+        if (metrics == null) {
+            return;
+        }
+        metrics.options = result.getOptionCount();
+        metrics.arguments = result.getArgumentSize();
+        metrics.command = result.getCommandPath();
+        metrics.error = error;
+        for (ParseListener listener : listeners) {
+            try {
+                listener.parsed(metrics);
+            } catch (RuntimeException e) {
+                Diagnostics.warning("Parse listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Get the completion candidates of the last word of a partial command line, the word at the cursor.
+     * <p>
+     * The words before it only select the command and skip the option values, nothing is converted or validated,
+     * and the candidates are looked up in the sorted names of the command, so the cost does not grow with the options
+     * which don't match. The candidates are the option names for a word starting with "-",
+     * the completions of the option for its value, otherwise the subcommands
+     * and the completions of the parameter at the position.
+     *
+     * @param words the words after the program name, the last one is empty to start a new word
+     * @return the candidates
+     */
+    public List<String> complete(String[] words) {
+        String current = words.length == 0 ? "" : words[words.length - 1];
+        Scope scope = root;
+        boolean checkedCommand = false;
+        boolean endOfOptions = false;
+        int position = 0;
+        int valueOption = -1;
+        for (int i = 0; i < words.length - 1; ++i) {
+            String word = words[i];
+            int start = endOfOptions ? 0 : nameStart(word);
+            if (start == END_OF_OPTIONS) {
+                endOfOptions = true;
+            } else if (start > 0) {
+                int option = start == 2 && word.indexOf('=') > -1 ? -1 : scope.index.get(word, start, word.length());
+                if (option > -1 && hasValue[option]) {
+                    if (i + 1 == words.length - 1) {
+                        valueOption = option;
+                    } else if (!interactive[option] || !isOption(words[i + 1], scope)) {
+                        ++i;
+                    }
+                }
+            } else if (!checkedCommand && scope.getCommand(word) != null) {
+                scope = scope.getCommand(word);
+            } else {
+                checkedCommand = true;
+                ++position;
+            }
+        }
+
+        List<String> candidates = new ArrayList<String>();
+        if (valueOption > -1 && !(interactive[valueOption] && current.startsWith("-"))) {
+            addMatches(completions[valueOption], "", current, candidates);
+        } else if (!endOfOptions && current.startsWith("-")) {
+            int eq = current.startsWith("--") ? current.indexOf('=') : -1;
+            if (eq < 0) {
+                scope.optionPrefixes().collect(current, candidates);
+            } else {
+                int option = scope.index.get(current, 2, eq);
+                if (option > -1 && hasValue[option]) {
+                    addMatches(completions[option], current.substring(0, eq + 1), current.substring(eq + 1), candidates);
+                }
+            }
+        } else {
+            if (!checkedCommand) {
+                scope.commandPrefixes().collect(current, candidates);
+            }
+            if (position < scope.parameters.length) {
+                addMatches(scope.parameterCompletions[position], "", current, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private static void addMatches(List<String> values, String prefix, String word, List<String> candidates) {
+        for (String value : values) {
+            if (value.startsWith(word)) {
+                candidates.add(prefix + value);
+            }
+        }
+    }
+
+    /**
+     * Match options, the command and positional arguments.
+     * <p>
+     * Every token is classified in a single pass, the option name is looked up by its range in the token,
+     * so no substring is created except the value of "--name=value".
+     * The tokens of command lines and argument files are added to the positional arguments and the values as ranges.
+     *
+     * @param input the arguments, a command line or a UTF-8 command line in a <code>ByteBuffer</code>
+     */
+    void scan(Object input, ParseResult result) {
+        ParseMetrics metrics = result.getMetrics();
+        if (metrics == null) {
+            scan(tokenize(input), result);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ArgumentList list = tokenize(input);
+        long expanded = System.nanoTime();
+        metrics.tokenizeNanos += expanded - start;
+        metrics.tokens = list.size();
+        try {
+            scan(list, result);
+        } finally {
+            metrics.scanNanos = System.nanoTime() - expanded;
+        }
+    }
+
+    private ArgumentList tokenize(Object input) {
+        if (input instanceof String[]) {
+            return ArgumentList.of((String[]) input, expandArgFiles);
+        } else if (input instanceof ByteBuffer) {
+            return ArgumentList.of((ByteBuffer) input);
+        }
+        return ArgumentList.of((CharSequence) input);
+    }
+
+    void scan(ArgumentList args, ParseResult result) {
+        boolean checkedCommand = false;
+        Scope scope = root;
+        int size = args.size();
+        for (int i = 0; i < size; ++i) {
+            if (checkedCommand && args.isPlain(i)) {
+                result.addArgument(args, i);
+                continue;
+            }
+
+            CharSequence arg = args.chars(i);
+            int start = nameStart(arg);
+
+            if (start == END_OF_OPTIONS) {
+                result.addArguments(args, i + 1);
+                break;
+            }
+
+            if (start > 0) {
+                int end = arg.length();
+                int eq = start == 2 ? indexOf(arg, '=', 2) : -1;
+                if (eq > -1) {
+                    end = eq;
+                }
+
+                int option = scope.index.get(arg, start, end);
+                if (option > -1 && eq > -1) {
+                    result.addValue(option, args, i, eq + 1);
+                } else if (option > -1) {
+                    i = addValue(option, args, i, scope, result);
+                } else if (start == 1 && end > 2 && scope.shortOption(arg.charAt(1)) > -1) {
+                    i = scanCluster(arg, args, i, scope, result);
+                } else {
+                    throw new ParseException(ParseException.UNKNOWN_OPTION, scope.suggestOptions(arg.subSequence(0, end).toString()), "Unknown option: " + arg);
+                }
+            } else if (!checkedCommand) {
+                Scope command = scope.getCommand(arg);
+                if (command != null) {
+                    scope = command;
+                    result.setScope(command);
+                } else {
+                    checkedCommand = true;
+                    result.addArgument(args, i);
+                }
+            } else {
+                result.addArgument(args, i);
+            }
+        }
+    }
+
+    /**
+     * Add the value of the option at the index, which is the next argument if the option has value.
+     *
+     * @return the index of the last argument used
+     */
+    private int addValue(int option, ArgumentList args, int i, Scope scope, ParseResult result) {
+        if (!hasValue[option]) {
+            result.addValue(option, TRUE);
+            return i;
+        }
+
+        CharSequence next = i + 1 < args.size() ? args.chars(i + 1) : null;
+        boolean last = next == null || nameStart(next) == END_OF_OPTIONS;
+        if (interactive[option] && (last || isOption(next, scope))) {
+            result.addPrompt(option);
+            return i;
+        }
+        if (last) {
+            throw new ParseException(ParseException.OPTION_VAL_REQUIRED, options[option], "Missing required value for option " + options[option].getName());
+        }
+        result.addValue(option, args, ++i);
+        return i;
+    }
+
+    /**
+     * Match the short options clustered in one argument like getopt, "-xvf archive" is "-x -v -f archive".
+     * The characters are looked up in the table of the short options of the scope, no substring is created.
+     * The rest of the argument after an option which has value is its value, such as "-ofile" or "-j8".
+     *
+     * @return the index of the last argument used
+     */
+    private int scanCluster(CharSequence arg, ArgumentList args, int i, Scope scope, ParseResult result) {
+        int length = arg.length();
+        for (int j = 1; j < length; ++j) {
+            int option = scope.shortOption(arg.charAt(j));
+            if (option < 0) {
+                String name = "-" + arg.charAt(j);
+                throw new ParseException(ParseException.UNKNOWN_OPTION, scope.suggestOptions(name), "Unknown option: " + name + " in " + arg);
+            }
+            if (!hasValue[option]) {
+                result.addValue(option, TRUE);
+            } else if (j + 1 < length) {
+                result.addValue(option, args, i, j + 1);
+                return i;
+            } else {
+                return addValue(option, args, i, scope, result);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Assign the positional arguments to the parameters of the current scope.
+     */
+    void bind(ParseResult result) {
+        ParseMetrics metrics = result.getMetrics();
+        if (metrics == null) {
+            doBind(result);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            doBind(result);
+        } finally {
+            metrics.bindNanos = System.nanoTime() - start;
+        }
+    }
+
+    private void doBind(ParseResult result) {
+        if (result.isPresent("help") || result.isPresent("version")) {
+            return;
+        }
+
+        Scope scope = result.getScope();
+        for (int i = 0; i < scope.parameters.length; ++i) {
+            if (i < result.getArgumentSize()) {
+                result.setParameter(i, result.getArgument(i));
+            } else if (scope.parameters[i].isRequired()) {
+                throw new ParseException(ParseException.ARG_REQUIRED, "Missing required argument: " + scope.parameters[i].getName());
+            }
+        }
+    }
+
+    /**
+     * Read the values of the interactive options which are present without value.
+     */
+    void prompt(ParseResult result) {
+        ParseMetrics metrics = result.getMetrics();
+        if (metrics == null || result.getPrompts().length == 0) {
+            doPrompt(result);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            doPrompt(result);
+        } finally {
+            metrics.promptNanos = System.nanoTime() - start;
+        }
+    }
+
+    private void doPrompt(ParseResult result) {
+        int[] prompts = result.getPrompts();
+        for (int option : prompts) {
+            Console console = System.console();
+            if (console == null) {
+                throw new ParseException(ParseException.CONSOLE_ACCESS, "Cannot access the console device");
+            }
+            char[] password = console.readPassword("Enter value of %s:", options[option].getName());
+            result.setValue(option, new String(password));
+        }
+    }
+
+    /**
+     * Check the constraints of the options and the parameters, and throw all the violations in one <code>ParseException</code>.
+     */
+    void validate(ParseResult result) {
+        ParseMetrics metrics = result.getMetrics();
+        if (metrics == null) {
+            doValidate(result);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            doValidate(result);
+        } finally {
+            metrics.validateNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Visit the options which have constraints, the exclusive groups of the scope and its parameters once,
+     * the groups and the requirements are tested against the bitset of the present options word by word.
+     */
+    private void doValidate(ParseResult result) {
+        if (result.isPresent("help") || result.isPresent("version")) {
+            return;
+        }
+
+        List<String> violations = null;
+        long[] present = result.getPresence();
+        for (int option : checked) {
+            if (!result.isSet(option)) {
+                continue;
+            }
+            if (constraints[option] != null) {
+                for (String value : separators[option].split(result.getValues(option))) {
+                    String violation = constraints[option].check("option " + options[option].getName(), value);
+                    if (violation != null) {
+                        violations = add(violations, violation);
+                        break;
+                    }
+                }
+            }
+            long[] required = requires[option];
+            if (required != null && result.isPresent(option)) {
+                List<String> missing = null;
+                for (int i = 0; i < required.length; i += 2) {
+                    int word = (int) required[i];
+                    long bits = required[i + 1] & ~(present[word] | sourced[word]);
+                    for (; bits != 0; bits &= bits - 1) {
+                        missing = add(missing, options[(word << 6) + Long.numberOfTrailingZeros(bits)].getName());
+                    }
+                }
+                if (missing != null) {
+                    violations = add(violations, "Option " + options[option].getName() + " requires " + join(missing, ", "));
+                }
+            }
+        }
+
+        Scope scope = result.getScope();
+        for (long[] group : scope.exclusive) {
+            int count = 0;
+            for (int i = 0; i < group.length && count < 2; i += 2) {
+                count += Long.bitCount(present[(int) group[i]] & group[i + 1]);
+            }
+            if (count > 1) {
+                List<String> names = new ArrayList<String>();
+                for (int i = 0; i < group.length; i += 2) {
+                    int word = (int) group[i];
+                    for (long bits = present[word] & group[i + 1]; bits != 0; bits &= bits - 1) {
+                        names.add(options[(word << 6) + Long.numberOfTrailingZeros(bits)].getName());
+                    }
+                }
+                violations = add(violations, "Options " + join(names, ", ") + " cannot be used together");
+            }
+        }
+
+        for (int i = 0; i < scope.parameters.length; ++i) {
+            if (scope.parameterConstraints[i] != null && i < result.getArgumentSize()) {
+                String violation = scope.parameterConstraints[i].check("argument " + scope.parameters[i].getName(), result.getParameter(i));
+                if (violation != null) {
+                    violations = add(violations, violation);
+                }
+            }
+        }
+
+        if (violations != null) {
+            throw new ParseException(ParseException.CONSTRAINT_VIOLATION, Collections.unmodifiableList(violations), join(violations, JCommand.LINE_SEPARATOR));
+        }
+    }
+
+    private static List<String> add(List<String> list, String value) {
+        if (list == null) {
+            list = new ArrayList<String>(2);
+        }
+        list.add(value);
+        return list;
+    }
+
+    /**
+     * Create an array of string lists. A generic array cannot be created, so the raw array is safe only because
+     * it is never exposed as anything but <code>List&lt;String&gt;[]</code>.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<String>[] newLists(int size) {
+        return new List[size];
+    }
+
+    private static String join(List<String> values, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Convert the option indexes to a sparse bitset: pairs of the index of a 64 bit word and the bits of the word.
+     */
+    static long[] sparseBits(int[] indexes) {
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        long[] bits = new long[sorted.length * 2];
+        int count = 0;
+        for (int index : sorted) {
+            int word = index >>> 6;
+            if (count == 0 || bits[count - 2] != word) {
+                bits[count] = word;
+                count += 2;
+            }
+            bits[count - 1] |= 1L << index;
+        }
+        return Arrays.copyOf(bits, count);
+    }
+
+    int indexOf(String name, Scope scope) {
+        return scope.index.get(name);
+    }
+
+    /**
+     * Find the index of the option, by identity. An option shared by several commands has an index in every command,
+     * the index in the scope or its parents is preferred, otherwise the first one is returned.
+     *
+     * @return the index, or -1 if the option is not compiled in this spec
+     */
+    int indexOf(JOption option, Scope scope) {
+        int index = scope.indexOf(option);
+        if (index > -1) {
+            return index;
+        }
+        for (int i = 0; i < options.length; ++i) {
+            if (options[i] == option) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isOption(CharSequence arg, Scope scope) {
+        int start = nameStart(arg);
+        if (start == 1 && arg.length() > 2 && scope.shortOption(arg.charAt(1)) > -1) {
+            return true;
+        }
+        return start > 0 && scope.index.get(arg, start, arg.length()) > -1;
+    }
+
+    /**
+     * Classify the token.
+     *
+     * @param arg the token
+     * @return 2 for a long option, 1 for a short option, 0 for an argument, or {@link #END_OF_OPTIONS} for "--"
+     */
+    private static int nameStart(CharSequence arg) {
+        if (arg.length() == 0 || arg.charAt(0) != '-') {
+            return 0;
+        }
+        if (arg.length() > 1 && arg.charAt(1) == '-') {
+            return arg.length() == 2 ? END_OF_OPTIONS : 2;
+        }
+        return 1;
+    }
+
+    private static int indexOf(CharSequence s, char c, int start) {
+        for (int i = start; i < s.length(); ++i) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The compiled options, parameters and subcommands of the root <code>Jarg</code> or one of its commands.
+     */
+    static final class Scope {
+        final JCommand command;
+        final Scope parent;
+        final String[] aliases;
+        /**
+         * The options of the command, without the options of its parents.
+         */
+        private final JOption[] options;
+        /**
+         * The index of the first option of the command in the spec.
+         */
+        private final int first;
+        final NameTable index;
+        /**
+         * The options of the single ASCII character short names, indexed by the character, -1 if absent.
+         * A command without such names shares the table of its parent.
+         */
+        private int[] shortOptions;
+        /**
+         * The exclusive groups of the command and its parents, as sparse bitsets.
+         */
+        final long[][] exclusive;
+        final JParameter[] parameters;
+        final String[] parameterDefaults;
+        final ValueConstraint[] parameterConstraints;
+        final List<String>[] parameterCompletions;
+        final Scope[] commands;
+        private final NameTable commandIndex;
+        private final List<String> commandNames = new ArrayList<String>();
+        private volatile Suggester optionSuggester;
+        private volatile Suggester commandSuggester;
+        private volatile PrefixIndex optionPrefixes;
+        private volatile PrefixIndex commandPrefixes;
+
+        /**
+         * The index of a command also finds the options of its parents, which take precedence over the command options,
+         * by looking up the index of the parent first, so the names of the parents are not copied to every command.
+         * The options are numbered in the order of a depth-first walk of the command tree.
+         */
+        @SuppressWarnings("unchecked")
+        Scope(JCommand command, Scope parent, List<JOption> all, List<String> keys, List<long[]> required, SpecSnapshot.Tables tables) {
+            this.command = command;
+            this.parent = parent;
+            this.aliases = command.aliases.toArray(new String[command.aliases.size()]);
+            this.options = command.options.toArray(new JOption[command.options.size()]);
+            this.first = all.size();
+            if (tables != null) {
+                index = tables.next(parent == null ? null : parent.index);
+            } else {
+                int names = 0;
+                for (JOption option : options) {
+                    names += option.getOptions().size();
+                }
+                index = new NameTable(parent == null ? null : parent.index, names);
+            }
+            if (parent != null) {
+                shortOptions = parent.shortOptions;
+            } else {
+                shortOptions = new int[128];
+                Arrays.fill(shortOptions, -1);
+            }
+            for (JOption option : command.options) {
+                int i = all.size();
+                all.add(option);
+                if (keys != null) {
+                    keys.add(keyPrefix(command) + option.getName().substring(nameStart(option.getName())));
+                }
+                if (tables == null) {
+                    for (String name : option.getOptions()) {
+                        index.add(name, i);
+                    }
+                }
+                for (String name : option.getShortOptions()) {
+                    if (name.length() == 2 && shortOption(name.charAt(1)) < 0 && name.charAt(1) < shortOptions.length) {
+                        if (parent != null && shortOptions == parent.shortOptions) {
+                            shortOptions = shortOptions.clone();
+                        }
+                        shortOptions[name.charAt(1)] = i;
+                    }
+                }
+            }
+
+            for (JOption option : command.options) {
+                List<String> names = option.getRequires();
+                required.add(names.isEmpty() ? null : resolve(names.toArray(new String[names.size()]), "requirement of " + option.getName()));
+            }
+            List<long[]> groups = new ArrayList<long[]>();
+            if (parent != null) {
+                groups.addAll(Arrays.asList(parent.exclusive));
+            }
+            for (String[] names : command.exclusiveGroups) {
+                groups.add(resolve(names, "exclusive group of " + command.getName()));
+            }
+            this.exclusive = groups.toArray(new long[groups.size()][]);
+
+            this.parameters = command.parameters.toArray(new JParameter[command.parameters.size()]);
+            this.parameterDefaults = new String[parameters.length];
+            this.parameterCompletions = newLists(parameters.length);
+            this.parameterConstraints = new ValueConstraint[parameters.length];
+            for (int i = 0; i < parameters.length; ++i) {
+                parameterDefaults[i] = parameters[i].getDefaultValue();
+                parameterCompletions[i] = parameters[i].getCompletions();
+                ValueConstraint constraint = parameters[i].getConstraint();
+                parameterConstraints[i] = constraint.isEmpty() ? null : constraint;
+            }
+
+            this.commands = new Scope[command.commands.size()];
+            this.commandIndex = new NameTable(commands.length);
+            for (int i = 0; i < commands.length; ++i) {
+                commands[i] = new Scope(command.commands.get(i), this, all, keys, required, tables);
+                for (String alias : commands[i].aliases) {
+                    commandIndex.add(alias, i);
+                    commandNames.add(alias);
+                }
+            }
+        }
+
+        /**
+         * Get the option names of the command and its parents, with the dashes.
+         * The names are only collected for the suggestions and the completion, so compiling does not copy them.
+         */
+        private List<String> optionNames() {
+            List<String> names = parent == null ? new ArrayList<String>() : parent.optionNames();
+            for (JOption option : options) {
+                names.addAll(option.getLongOptions());
+                names.addAll(option.getShortOptions());
+            }
+            return names;
+        }
+
+        /**
+         * Look up the option names, with or without dashes, in the index of this scope.
+         *
+         * @return the options as a sparse bitset
+         */
+        private long[] resolve(String[] names, String owner) {
+            int[] indexes = new int[names.length];
+            for (int i = 0; i < names.length; ++i) {
+                String name = names[i];
+                int start = name.startsWith("--") ? 2 : name.startsWith("-") ? 1 : 0;
+                indexes[i] = index.get(name, start, name.length());
+                if (indexes[i] < 0) {
+                    throw new IllegalArgumentException("Unknown option in " + owner + ": " + name);
+                }
+            }
+            return sparseBits(indexes);
+        }
+
+        /**
+         * The names of the command and its parents before the option names in the keys of the value sources,
+         * such as "cluster.node." for the command "tool cluster node".
+         */
+        private static String keyPrefix(JCommand command) {
+            return command.getParent() == null ? "" : command.commandPath().replace(' ', '.') + ".";
+        }
+
+        /**
+         * Find the index of the option in the command or its parents, by identity.
+         *
+         * @return the index, or -1 if not found
+         */
+        int indexOf(JOption option) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                for (int i = 0; i < scope.options.length; ++i) {
+                    if (scope.options[i] == option) {
+                        return scope.first + i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Get the option of the short name "-c".
+         *
+         * @return the option index, or -1 if not found
+         */
+        int shortOption(char c) {
+            return c < shortOptions.length ? shortOptions[c] : -1;
+        }
+
+        /**
+         * Get the options nearest to the unknown option, such as "--verbose" for "--verbos".
+         * The index is built on the first call.
+         */
+        List<String> suggestOptions(String option) {
+            Suggester suggester = optionSuggester;
+            if (suggester == null) {
+                suggester = new Suggester(optionNames());
+                optionSuggester = suggester;
+            }
+            return Collections.unmodifiableList(suggester.suggest(option, SUGGESTIONS));
+        }
+
+        /**
+         * Get the subcommands nearest to the unknown command, the index is built on the first call.
+         */
+        List<String> suggestCommands(String name) {
+            Suggester suggester = commandSuggester;
+            if (suggester == null) {
+                suggester = new Suggester(commandNames);
+                commandSuggester = suggester;
+            }
+            return Collections.unmodifiableList(suggester.suggest(name, SUGGESTIONS));
+        }
+
+        /**
+         * Get the sorted option names, with the dashes, the index is built on the first call.
+         */
+        PrefixIndex optionPrefixes() {
+            PrefixIndex prefixes = optionPrefixes;
+            if (prefixes == null) {
+                prefixes = new PrefixIndex(optionNames());
+                optionPrefixes = prefixes;
+            }
+            return prefixes;
+        }
+
+        /**
+         * Get the sorted names and aliases of the subcommands, the index is built on the first call.
+         */
+        PrefixIndex commandPrefixes() {
+            PrefixIndex prefixes = commandPrefixes;
+            if (prefixes == null) {
+                prefixes = new PrefixIndex(commandNames);
+                commandPrefixes = prefixes;
+            }
+            return prefixes;
+        }
+
+        /**
+         * Get the subcommand by name or alias.
+         *
+         * @return the subcommand, or null if not found
+         */
+        Scope getCommand(CharSequence name) {
+            int i = commandIndex.get(name, 0, name.length());
+            return i < 0 ? null : commands[i];
+        }
+    }
+
+}
@@ -1,10 +1,16 @@
 package cn.har01d.tool.jarg;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Console;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 public final class Jarg extends JCommand {
 
@@ -13,13 +19,23 @@ public final class Jarg extends JCommand {
     public static final String REPORTING_BUGS = "REPORTING BUGS";
     public static final String SEE_ALSO = "SEE ALSO";
 
-    private static final Logger logger = Logger.getLogger(Jarg.class.getName());
+    static final String COMPLETE = "__complete";
+    static final String COMPLETION = "__completion";
 
     private final HashMap<String, String> sections = new LinkedHashMap<String, String>();
-    private final List<JCommand> commands = new ArrayList<JCommand>();
-    private final List<String> arguments = new ArrayList<String>();
+    private final List<ValueSource> sources = new ArrayList<ValueSource>();
+    private final List<ParseListener> listeners = new ArrayList<ParseListener>();
+    private List<String> arguments = new ArrayList<String>();
+    private Converters converters;
 
     private boolean autoHelp;
+    private boolean autoComplete;
+    private JSpec spec;
+    private int specVersion;
+    private SpecSnapshot snapshot;
+    private int snapshotVersion;
+    private ParseResult result;
+    private boolean expandArgFiles;
     private PrintStream output = System.out;
     private JCommand command;
 
@@ -31,6 +47,92 @@ public final class Jarg extends JCommand {
         super(name, summary);
     }
 
+    /**
+     * Load a <code>Jarg</code> from a snapshot written by {@link #writeSnapshot(OutputStream)}, such as a resource
+     * generated at build time. The stream is read to the end and not closed.
+     *
+     * @param in the input stream of the snapshot
+     * @return the <code>Jarg</code>
+     * @throws IOException              if failed to read
+     * @throws IllegalArgumentException if the stream is not a snapshot of this version
+     */
+    public static Jarg loadSnapshot(InputStream in) throws IOException {
+        if (in == null) {
+            throw new IOException("Snapshot not found");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return loadSnapshot(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Load a <code>Jarg</code> from a snapshot file written by {@link #writeSnapshot(OutputStream)}.
+     * The file is memory-mapped, so it is not copied before it is read.
+     *
+     * @param file the snapshot file
+     * @return the <code>Jarg</code>
+     * @throws IOException              if failed to read
+     * @throws IllegalArgumentException if the file is not a snapshot of this version
+     */
+    public static Jarg loadSnapshot(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return loadSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Load a <code>Jarg</code> from a snapshot written by {@link #writeSnapshot(OutputStream)}.
+     * The first compile reads the option indexes from the snapshot, unless the <code>Jarg</code> is changed after loading.
+     * Value sources, listeners and converters are not in the snapshot, they are added to the loaded <code>Jarg</code>.
+     *
+     * @param buffer the bytes of the snapshot, the position is not changed
+     * @return the <code>Jarg</code>
+     * @throws IllegalArgumentException if the bytes are not a snapshot of this version
+     */
+    public static Jarg loadSnapshot(ByteBuffer buffer) {
+        return SpecSnapshot.read(buffer);
+    }
+
+    /**
+     * Write the commands, options and parameters of this <code>Jarg</code> and its compiled option indexes
+     * as a binary snapshot, which is loaded by {@link #loadSnapshot(ByteBuffer)}. The stream is not closed.
+     *
+     * @param out the output stream
+     * @throws IOException if failed to write
+     */
+    public void writeSnapshot(OutputStream out) throws IOException {
+        SpecSnapshot.write(this, new JSpec(this), out);
+    }
+
+    /**
+     * Restore the settings read from a snapshot, without the side effects of the setters.
+     */
+    void restore(boolean autoHelp, boolean autoComplete, boolean expandArgFiles) {
+        this.autoHelp = autoHelp;
+        this.autoComplete = autoComplete;
+        this.expandArgFiles = expandArgFiles;
+    }
+
+    /**
+     * Keep the indexes of a loaded snapshot until the commands, options or parameters are changed.
+     */
+    void restore(SpecSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.snapshotVersion = treeVersion();
+    }
+
     /**
      * Add section for help message, such as, author, copyright.
      *
@@ -40,9 +142,86 @@ public final class Jarg extends JCommand {
      */
     public Jarg addSection(String title, String content) {
         sections.put(title, content);
+        modified();
+        return this;
+    }
+
+    /**
+     * Register a <code>Converter</code> for the typed getters, replace the existing converter of the type.
+     *
+     * @param type      the target type
+     * @param converter the converter
+     * @param <T>       the target type
+     * @return this <code>Jarg</code>
+     */
+    public <T> Jarg addConverter(Class<T> type, Converter<? extends T> converter) {
+        getConverters().add(type, converter);
+        return this;
+    }
+
+    /**
+     * Add a source of the option values which are not present in the arguments.
+     * The sources are looked up in the order they are added, before the default values.
+     * The values are resolved once by {@link #compile()}, {@link #isPresent(String)} is still false for them.
+     *
+     * @param source the source
+     * @return this <code>Jarg</code>
+     */
+    public Jarg addSource(ValueSource source) {
+        sources.add(source);
+        spec = null;
+        return this;
+    }
+
+    /**
+     * Get the sources of the option values, in the order they are looked up.
+     *
+     * @return the unmodifiable list of sources
+     */
+    public List<ValueSource> getSources() {
+        return Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Add a listener which receives the timings and counters of every parse,
+     * by this <code>Jarg</code> and by the <code>JSpec</code>s compiled after.
+     *
+     * @param listener the listener
+     * @return this <code>Jarg</code>
+     */
+    public Jarg addParseListener(ParseListener listener) {
+        listeners.add(listener);
+        spec = null;
         return this;
     }
 
+    List<ParseListener> getParseListeners() {
+        return listeners;
+    }
+
+    /**
+     * Get the <code>Converters</code> used by the typed getters of this <code>Jarg</code> and its commands.
+     * The registry is created on the first call, so a <code>Jarg</code> without typed values does not load it.
+     *
+     * @return the converters
+     */
+    @Override
+    public Converters getConverters() {
+        if (converters == null) {
+            converters = new Converters();
+        }
+        return converters;
+    }
+
+    /**
+     * Get the converters registered to this <code>Jarg</code>.
+     *
+     * @return the converters, or null if the default converters are used
+     */
+    Converters getCustomConverters() {
+        return converters;
+    }
+
     /**
      * Get all the arguments.
      *
@@ -95,34 +274,76 @@ public final class Jarg extends JCommand {
      * @param e The exception
      */
     public void handleError(Exception e) {
-        System.err.println(e.getMessage());
+        printError(e, output, System.err);
+        System.exit(1);
+    }
+
+    /**
+     * Print error message to the error stream and help message to the output stream, but do not exit.
+     * The help is of the command which failed to parse, see {@link ParseException#getCommand()},
+     * otherwise of the command of the last {@link #parse(String[])}.
+     *
+     * @param e           The exception
+     * @param printStream the output stream
+     * @param errorStream the error stream
+     */
+    public void printError(Exception e, PrintStream printStream, PrintStream errorStream) {
+        printError(e, command, printStream, errorStream);
+    }
+
+    /**
+     * Print error message to the error stream and help message to the output stream, but do not exit.
+     * The help is of the command which failed to parse, see {@link ParseException#getCommand()},
+     * otherwise of the present command of the result, such as for an error thrown by a handler.
+     * It does not use the state of the last {@link #parse(String[])}, so it can be called by many threads.
+     *
+     * @param e           The exception
+     * @param result      the result of the parse, or null if the parse failed
+     * @param printStream the output stream
+     * @param errorStream the error stream
+     */
+    public void printError(Exception e, ParseResult result, PrintStream printStream, PrintStream errorStream) {
+        printError(e, result == null ? null : result.getCommand(), printStream, errorStream);
+    }
+
+    private void printError(Exception e, JCommand current, PrintStream printStream, PrintStream errorStream) {
+        errorStream.println(e.getMessage());
         if (e instanceof ParseException) {
-            int code = ((ParseException) e).getCode();
+            ParseException pe = (ParseException) e;
+            JCommand command = pe.getCommand() != null ? pe.getCommand() : current;
+            if (command == this) {
+                command = null;
+            }
+            List<String> suggestions = pe.getSuggestions();
+            if (!suggestions.isEmpty()) {
+                errorStream.println("Did you mean " + joinString(suggestions, " or ") + "?");
+            }
 
-            switch (code) {
+            switch (pe.getCode()) {
                 case ParseException.UNKNOWN_OPTION:
-                    listOptions(output);
+                    listOptions(printStream, command);
                     break;
                 case ParseException.COMMAND_REQUIRED:
-                    printCommands(output);
+                    printCommands(printStream, command);
                     break;
                 case ParseException.OPTION_VAL_REQUIRED:
-                    JOption option = (JOption) ((ParseException) e).getData();
-                    printOption(output, option);
+                case ParseException.INVALID_VALUE:
+                    JOption option = (JOption) pe.getData();
+                    printOption(printStream, option);
                     break;
                 case ParseException.ARG_REQUIRED:
-                    printUsage(output);
+                case ParseException.CONSTRAINT_VIOLATION:
+                    printUsage(printStream, command);
                     break;
                 case ParseException.CONSOLE_ACCESS:
-                    output.println("Please specific option value in command line");
+                    printStream.println("Please specific option value in command line");
                     break;
                 default:
                     break;
             }
         } else {
-            logger.log(Level.WARNING, e.getMessage(), e);
+            Diagnostics.warning(e.getMessage(), e);
         }
-        System.exit(1);
     }
 
     /**
@@ -132,7 +353,12 @@ public final class Jarg extends JCommand {
      * @return true if the command present
      */
     public boolean isCommand(String name) {
-        return command != null && command.aliases.contains(name);
+        for (JCommand c = command; c != null && c != this; c = c.getParent()) {
+            if (c.aliases.contains(name)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -142,7 +368,8 @@ public final class Jarg extends JCommand {
      */
     public JCommand requireCommand() {
         if (command == null) {
-            throw new ParseException(ParseException.COMMAND_REQUIRED, "Command is required!");
+            List<String> suggestions = arguments.isEmpty() ? Collections.<String>emptyList() : compile().root.suggestCommands(arguments.get(0));
+            throw new ParseException(ParseException.COMMAND_REQUIRED, suggestions, "Command is required!");
         } else {
             return command;
         }
@@ -167,47 +394,12 @@ public final class Jarg extends JCommand {
     }
 
     /**
-     * Add a command.
+     * Get the names of the current command and its parent commands, such as "cluster node drain".
      *
-     * @param name        the command name
-     * @param description the command description
-     * @return the <code>JCommand</code>
+     * @return the command names separated by a space, or null if no command is present
      */
-    public JCommand addCommand(String name, String description) {
-        JCommand command = new JCommand(name, description, this);
-        if (autoHelp) {
-            command.addOption("--help", "Show the help and exit", false);
-        }
-        commands.add(command);
-        return command;
-    }
-
-    /**
-     * Clone a command with new name and description.
-     *
-     * @param sourceName  the source command name
-     * @param name        the command name
-     * @param description the command description
-     * @return the <code>JCommand</code>
-     */
-    public JCommand cloneCommand(String sourceName, String name, String description) {
-        JCommand source = null;
-        for (JCommand c : commands) {
-            if (c.getName().equals(sourceName)) {
-                source = c;
-                break;
-            }
-        }
-
-        if (source == null) {
-            throw new ParseException(ParseException.COMMAND_REQUIRED, "Cannot find source command \"" + sourceName + "\"");
-        }
-
-        JCommand command = new JCommand(name, description, this);
-        command.addOptions(source.options);
-        command.addParameters(source.parameters);
-        commands.add(command);
-        return command;
+    public String getCommandPath() {
+        return command == null ? null : command.commandPath();
     }
 
     /**
@@ -218,15 +410,11 @@ public final class Jarg extends JCommand {
      */
     @Override
     public JOption getOption(String name) {
-        if (command != null && command.hasOption(name)) {
-            return command.getOption(name);
-        }
-
-        if (map.containsKey(name)) {
-            return map.get(name);
+        JOption option = command != null ? command.resolveOption(name) : map.get(name);
+        if (option == null) {
+            throw new IllegalArgumentException("Unknown option: " + name);
         }
-
-        throw new IllegalArgumentException("Unknown option: " + name);
+        return option;
     }
 
     /**
@@ -237,138 +425,173 @@ public final class Jarg extends JCommand {
      */
     @Override
     public boolean isPresent(String name) {
-        JOption option = null;
-        if (command != null && command.hasOption(name)) {
-            option = command.getOption(name);
+        JOption option = command != null ? command.resolveOption(name) : map.get(name);
+        if (option == null) {
+            Diagnostics.debug("Unknown option: ", name);
         }
+        return option != null && option.isPresent();
+    }
 
-        if (map.containsKey(name)) {
-            option = map.get(name);
+    /**
+     * Compile this <code>Jarg</code> to an immutable <code>JSpec</code> which can be shared by many threads.
+     * Changes made to this <code>Jarg</code> after compiling are not visible to the returned spec.
+     *
+     * @return the compiled <code>JSpec</code>
+     */
+    public JSpec compile() {
+        if (snapshot != null && snapshotVersion != treeVersion()) {
+            snapshot = null;
         }
+        return new JSpec(this, snapshot);
+    }
 
-        if (option == null) {
-            logger.fine("Unknown option: " + name);
+    /**
+     * Get the spec compiled by the last parse, or compile it again if the definition has changed since.
+     */
+    private JSpec spec() {
+        int version = treeVersion() + (converters == null ? 0 : converters.getModCount());
+        if (spec == null || specVersion != version) {
+            spec = compile();
+            specVersion = version;
         }
-        return option != null && option.isPresent();
+        return spec;
     }
 
     /**
-     * Parse arguments.
+     * Parse arguments. The state of the last parse is cleared first, see {@link #reset()}.
+     * The definition is compiled once and reused by the next parses until it changes.
      *
      * @param args the arguments
      */
     public void parse(String[] args) {
-        boolean checkedCommand = false;
-        boolean optionsEnd = false;
-        List<JOption> prompts = new ArrayList<JOption>();
-        for (int i = 0; i < args.length; ++i) {
-            String arg = args[i];
-            String name = null;
-            String value = null;
-
-            if (optionsEnd) {
-                arguments.add(arg);
-                continue;
-            }
-
-            if (arg.equals("--")) {
-                optionsEnd = true;
-                continue;
-            }
+        JSpec spec = spec();
+        if (autoComplete && args.length > 0 && complete(spec, args)) {
+            System.exit(0);
+        }
 
-            if (arg.startsWith("--")) {
-                name = arg.substring(2);
-                int index = arg.indexOf('=');
-                if (index > -1) {
-                    name = arg.substring(2, index);
-                    value = arg.substring(index + 1);
-                }
-            } else if (arg.startsWith("-")) {
-                name = arg.substring(1);
+        if (this.result != null) {
+            reset();
+        }
+        ParseResult result = spec.acquire();
+        this.result = result;
+        ParseException error = null;
+        try {
+            spec.scan(args, result);
+
+            if (isHelp(result)) {
+                apply(spec, result);
+                spec.finish(result, null);
+                printHelp(result, output);
+                System.exit(0);
             }
 
-            if (name != null) {
-                JOption option = null;
-                if (map.containsKey(name)) {
-                    option = map.get(name);
-                } else if (command != null && command.hasOption(name)) {
-                    option = command.getOption(name);
-                }
-
-                if (option == null) {
-                    throw new ParseException(ParseException.UNKNOWN_OPTION, "Unknown option: " + arg);
-                }
+            spec.bind(result);
+            spec.prompt(result);
+            spec.validate(result);
+        } catch (ParseException e) {
+            error = e.withCommand(result.getScope().command);
+            throw e;
+        } finally {
+            apply(spec, result);
+            spec.finish(result, error);
+        }
+    }
 
-                if (value == null) {
-                    if (option.isHasValue()) {
-                        if (option.isInteractive()) {
-                            if (i + 1 == args.length || args[i + 1].equals("--") || isOption(args[i + 1])) {
-                                option.setPresent(true);
-                                prompts.add(option);
-                                continue;
-                            }
-                        }
-                        if (i + 1 == args.length || args[i + 1].equals("--")) {
-                            throw new ParseException(ParseException.OPTION_VAL_REQUIRED, option, "Missing required value for option " + option.getName());
-                        }
-                        value = args[++i];
-                    } else {
-                        value = Boolean.TRUE.toString();
-                    }
-                }
-                option.setPresent(true);
-                option.setValue(value);
-            } else if (!checkedCommand) {
-                for (JCommand command : commands) {
-                    if (command.aliases.contains(arg)) {
-                        this.command = command;
-                        break;
-                    }
-                }
+    /**
+     * Parse arguments like {@link #parse(String[])}, and run the handler of the present command,
+     * or the handler of its nearest parent command which has one, see {@link JCommand#setHandler(JCommand.Handler)}.
+     * <pre>
+     * try {
+     *     System.exit(jarg.execute(args));
+     * } catch (Exception e) {
+     *     jarg.handleError(e);
+     * }
+     * </pre>
+     *
+     * @param args the arguments
+     * @return the exit code of the handler
+     * @throws ParseException with code {@link ParseException#COMMAND_REQUIRED} if no command is present
+     *                        and this <code>Jarg</code> has no handler
+     * @throws Exception      the error of the handler
+     */
+    public int execute(String[] args) throws Exception {
+        parse(args);
+        return Dispatcher.run(this, result);
+    }
 
-                checkedCommand = true;
-                if (this.command == null) {
-                    arguments.add(arg);
+    /**
+     * Clear the state of the last parse: the present options and their values, the parameters, the arguments and the command,
+     * so this <code>Jarg</code> can be parsed again without building it again.
+     * The state of the last parse is kept in a pooled result, the next parse reuses it instead of allocating.
+     *
+     * @return this <code>Jarg</code>
+     */
+    public Jarg reset() {
+        if (result == null) {
+            resetValues();
+        } else {
+            JSpec spec = result.getSpec();
+            for (int i = 0; i < spec.options.length; ++i) {
+                if (result.isPresent(i) || spec.sources[i] != null) {
+                    spec.options[i].reset();
                 }
-            } else {
-                arguments.add(arg);
             }
-        }
-
-        if (autoHelp) {
-            if (isPresent("help")) {
-                if (command != null) {
-                    command.printHelp(output);
-                } else {
-                    printHelp();
-                }
-                System.exit(0);
-            } else if (isCommand("help")) {
-                printHelp();
-                System.exit(0);
+            for (JParameter parameter : result.getScope().parameters) {
+                parameter.reset();
             }
+            spec.release(result);
+            result = null;
         }
+        arguments = new ArrayList<String>();
+        command = null;
+        return this;
+    }
 
-        if (!isPresent("help") && !isPresent("version")) {
-            List<JParameter> parameters = getParameters();
-            for (int i = 0; i < parameters.size(); ++i) {
-                JParameter parameter = parameters.get(i);
-                if (i < this.arguments.size()) {
-                    parameter.setValue(this.arguments.get(i));
-                } else if (parameter.isRequired()) {
-                    throw new ParseException(ParseException.ARG_REQUIRED, "Missing required argument: " + parameter.getName());
-                }
+    /**
+     * Copy the state of the <code>ParseResult</code> to the options, parameters and arguments of this <code>Jarg</code>.
+     */
+    private void apply(JSpec spec, ParseResult result) {
+        for (int i = 0; i < spec.options.length; ++i) {
+            if (result.isPresent(i)) {
+                spec.options[i].setPresent(true);
+                spec.options[i].setValues(result.getValues(i));
+            } else if (spec.sources[i] != null) {
+                spec.options[i].setSource(spec.sources[i]);
+                spec.options[i].setValues(result.getValues(i));
             }
         }
 
-        for (JOption option : prompts) {
-            Console console = System.console();
-            if (console == null) {
-                throw new ParseException(ParseException.CONSOLE_ACCESS, "Cannot access the console device");
+        JSpec.Scope scope = result.getScope();
+        command = scope == spec.root ? null : scope.command;
+        for (int i = 0; i < scope.parameters.length; ++i) {
+            if (result.getParameter(i) != null) {
+                scope.parameters[i].setValue(result.getParameter(i));
             }
-            char[] password = console.readPassword("Enter value of %s:", option.getName());
-            option.setValue(new String(password));
         }
+
+        arguments = result.getArgumentList();
+    }
+
+    /**
+     * Replace the argument "@file" with the arguments in the file, like <code>javac @file</code>.
+     * The arguments are separated by white spaces, and quoted like a POSIX shell.
+     * The file is memory-mapped and decoded as UTF-8, the positional arguments from the file are not copied
+     * until they are accessed. Arguments after "--" are expanded too, but not the arguments in the file.
+     *
+     * @return this <code>Jarg</code>
+     */
+    public Jarg expandArgFiles() {
+        this.expandArgFiles = true;
+        spec = null;
+        return this;
+    }
+
+    Map<String, String> getSections() {
+        return sections;
+    }
+
+    public boolean isExpandArgFiles() {
+        return expandArgFiles;
     }
 
     public List<JParameter> getParameters() {
@@ -378,20 +601,9 @@ public final class Jarg extends JCommand {
         return parameters;
     }
 
-    private boolean isOption(String name) {
-        if (name.startsWith("--")) {
-            name = name.substring(2);
-        } else if (name.startsWith("-")) {
-            name = name.substring(1);
-        } else {
-            return false;
-        }
-
-        if (map.containsKey(name)) {
-            return true;
-        } else {
-            return command != null && command.hasOption(name);
-        }
+    @Override
+    boolean isAutoHelp() {
+        return autoHelp;
     }
 
     /**
@@ -409,6 +621,46 @@ public final class Jarg extends JCommand {
         return this;
     }
 
+    /**
+     * Answer the shell completion and exit when:
+     * 1. the first argument is "__complete", print the candidates of the last argument, one per line, or
+     * 2. the first argument is "__completion", print the completion script of the shell, such as "__completion bash"
+     *
+     * @return this <code>Jarg</code>
+     */
+    public Jarg autoComplete() {
+        this.autoComplete = true;
+        return this;
+    }
+
+    boolean isAutoComplete() {
+        return autoComplete;
+    }
+
+    private boolean complete(JSpec spec, String[] args) {
+        if (COMPLETE.equals(args[0])) {
+            for (String candidate : spec.complete(Arrays.copyOfRange(args, 1, args.length))) {
+                output.println(candidate);
+            }
+            return true;
+        }
+        if (COMPLETION.equals(args[0]) && args.length == 2) {
+            printCompletionScript(args[1], output);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Print the completion script of the shell, it calls the program with "__complete" as {@link #autoComplete()} does.
+     *
+     * @param shell       "bash" or "zsh"
+     * @param printStream the PrintStream
+     */
+    public void printCompletionScript(String shell, PrintStream printStream) {
+        printStream.print(CompletionScripts.generate(shell, getName()));
+    }
+
     /**
      * Display the help text, to the "standard" output stream by default.
      */
@@ -418,80 +670,96 @@ public final class Jarg extends JCommand {
 
     /**
      * Display the help text to PrintStream.
+     * The help text is rendered once and cached until the definition changes.
      *
      * @param printStream the PrintStream
      */
     @Override
     public void printHelp(PrintStream printStream) {
-        if (!arguments.isEmpty()) {
-            String name = arguments.get(0);
-            JCommand command = getCommandByName(name);
-            if (command != null) {
-                command.printHelp(printStream);
-                return;
-            }
-        }
-
-        printStream.println("NAME");
-        printStream.println(indent(4) + getName() + (getSummary() == null ? "" : "  -  " + getSummary()));
-        printStream.println();
-
-        if (synopsis == null) {
-            synopsis = generateSynopsis();
-        }
-        printStream.println("SYNOPSIS");
-        printStream.println(indentLines(synopsis, 4));
+        printHelp(printStream, arguments);
+    }
 
-        if (description != null) {
-            printStream.println("DESCRIPTION");
-            printStream.println(indentLines(description, 4));
+    /**
+     * Display the help text asked by the <code>ParseResult</code> of a <code>JSpec</code> compiled from this <code>Jarg</code>,
+     * the help of the present command for the help option, or the help of the command named by the help command.
+     *
+     * @param result      the result
+     * @param printStream the PrintStream
+     * @return false if {@link #autoHelp()} is not enabled or the result does not ask for help
+     */
+    public boolean printHelp(ParseResult result, PrintStream printStream) {
+        if (!isHelp(result)) {
+            return false;
         }
 
-        printOptions(printStream);
-        printCommands(printStream);
-
-        for (Map.Entry<String, String> entry : sections.entrySet()) {
-            printStream.println(entry.getKey().toUpperCase());
-            printStream.println(indentLines(entry.getValue(), 4));
+        if (result.isPresent("help") && result.getCommand() != null) {
+            result.getCommand().printHelp(printStream);
+        } else {
+            printHelp(printStream, result.getArguments());
         }
+        return true;
     }
 
-    private String generateSynopsis() {
-        if (commands.isEmpty()) {
-            return getName() + " [OPTION]... " + joinString(parameters, " ");
-        } else {
-            return getName() + " COMMAND [OPTION]... " + joinString(parameters, " ");
-        }
+    private boolean isHelp(ParseResult result) {
+        return autoHelp && (result.isPresent("help") || result.isCommand("help"));
     }
 
-    private JCommand getCommandByName(String name) {
-        for (JCommand command : commands) {
-            if (command.aliases.contains(name)) {
-                return command;
+    /**
+     * Print the help of the command named by the arguments, such as "cluster node", or the help of this <code>Jarg</code>.
+     */
+    void printHelp(PrintStream printStream, List<String> arguments) {
+        JCommand command = this;
+        for (int i = 0; i < arguments.size(); ++i) {
+            JCommand subcommand = command.findCommand(arguments.get(i));
+            if (subcommand == null) {
+                break;
             }
+            command = subcommand;
         }
-        return null;
+
+        printStream.print(command.getHelp());
     }
 
-    private void printCommands(PrintStream printStream) {
-        if (!this.commands.isEmpty()) {
-            printStream.println("COMMANDS");
-            int max = 0;
-            for (JCommand command : commands) {
-                max = Math.max(max, command.getName().length());
-            }
+    @Override
+    void renderHelp(StringBuilder sb) {
+        sb.append("NAME").append(LINE_SEPARATOR);
+        sb.append(indent(4)).append(getName()).append(getSummary() == null ? "" : "  -  " + getSummary()).append(LINE_SEPARATOR);
+        sb.append(LINE_SEPARATOR);
 
-            int m = max;
-            for (JCommand o : this.commands) {
-                printStream.println(indent(4) + o.getName() + indent(8) + indent(m - o.getName().length()) + o.getSummary());
-            }
+        sb.append("SYNOPSIS").append(LINE_SEPARATOR);
+        indentLines(sb, synopsis == null ? generateSynopsis() : synopsis, 4);
+        sb.append(LINE_SEPARATOR);
+
+        if (description != null) {
+            sb.append("DESCRIPTION").append(LINE_SEPARATOR);
+            indentLines(sb, description, 4);
+            sb.append(LINE_SEPARATOR);
+        }
+
+        renderOptions(sb);
+        renderCommands(sb);
+
+        for (Map.Entry<String, String> entry : sections.entrySet()) {
+            sb.append(entry.getKey().toUpperCase()).append(LINE_SEPARATOR);
+            indentLines(sb, entry.getValue(), 4);
+            sb.append(LINE_SEPARATOR);
         }
     }
 
+    private void printCommands(PrintStream printStream, JCommand command) {
+        StringBuilder sb = new StringBuilder();
+        (command == null ? this : command).renderCommands(sb);
+        printStream.print(sb);
+    }
+
     @Override
     protected void printUsage(PrintStream printStream) {
+        printUsage(printStream, command);
+    }
+
+    private void printUsage(PrintStream printStream, JCommand command) {
         if (command != null) {
-            command.printUsage(output);
+            command.printUsage(printStream);
             return;
         }
 
@@ -500,6 +768,10 @@ public final class Jarg extends JCommand {
 
     @Override
     protected void listOptions(PrintStream printStream) {
+        listOptions(printStream, command);
+    }
+
+    private void listOptions(PrintStream printStream, JCommand command) {
         if (command != null) {
             command.listOptions(printStream);
         } else {
@@ -0,0 +1,178 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * An open addressing hash table from names to indexes.
+ * <p>
+ * Names can be looked up by a range of a <code>CharSequence</code>,
+ * so the option name of "--file=app.conf" is matched without creating a substring.
+ * A table can have a parent table, which is looked up first, like the options of a command and its parents.
+ */
+final class NameTable {
+
+    private NameTable parent;
+    private String[] keys;
+    private int[] hashes;
+    private int[] values;
+    private int size;
+
+    NameTable() {
+        this(8);
+    }
+
+    NameTable(int expected) {
+        int capacity = 8;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Construct a table which is looked up after the parent table, so the names of the parent take precedence.
+     * The names of the parent are not copied.
+     *
+     * @param parent   the parent table
+     * @param expected the number of names to be added
+     */
+    NameTable(NameTable parent, int expected) {
+        this(expected);
+        this.parent = parent;
+    }
+
+    /**
+     * Get the number of the names of this table, without the parent table.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add the name if absent.
+     *
+     * @param name  the name
+     * @param value the index
+     * @return false if the name already exists
+     */
+    boolean add(String name, int value) {
+        if (get(name) > -1) {
+            return false;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        insert(name, hash(name, 0, name.length()), value);
+        ++size;
+        return true;
+    }
+
+    int get(String name) {
+        return get(name, 0, name.length());
+    }
+
+    /**
+     * Get the index of the name in the range of the characters.
+     *
+     * @param s     the characters
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the index, or -1 if not found
+     */
+    int get(CharSequence s, int start, int end) {
+        return get(s, start, end, hash(s, start, end));
+    }
+
+    private int get(CharSequence s, int start, int end, int hash) {
+        if (parent != null) {
+            int value = parent.get(s, start, end, hash);
+            if (value > -1) {
+                return value;
+            }
+        }
+        int mask = keys.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) {
+                return -1;
+            }
+            if (hashes[i] == hash && matches(key, s, start, end)) {
+                return values[i];
+            }
+        }
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int hashAt(int slot) {
+        return hashes[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Put the name in the slot of this table, which is known to be free, such as a slot read from a spec snapshot.
+     */
+    void put(int slot, String name, int hash, int value) {
+        keys[slot] = name;
+        hashes[slot] = hash;
+        values[slot] = value;
+        ++size;
+    }
+
+    private void insert(String name, int hash, int value) {
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = name;
+        hashes[i] = hash;
+        values[i] = value;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldHashes[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static boolean matches(String key, CharSequence s, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); ++i) {
+            if (key.charAt(i) != s.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; ++i) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,95 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * A typed handle of an option, returned by {@link JCommand#addOption(String, String, Class)} or {@link JOption#key(Class)}.
+ * <p>
+ * A handle reads its option without looking up the name: <code>ParseResult</code> reads the arrays of the result
+ * by the index of the option in the command of the result, which is resolved on the first access to a command
+ * and cached in the handle, and <code>JCommand</code> reads the <code>JOption</code> itself.
+ * An option added to several commands has an index in each of them.
+ * The value is converted by the <code>Converter</code> of the type.
+ *
+ * @param <T> the type of the value
+ */
+public final class OptionKey<T> {
+
+    private final JOption option;
+    private final Class<T> type;
+    private volatile Slot slot;
+
+    OptionKey(JOption option, Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type is null");
+        }
+        this.option = option;
+        this.type = type;
+    }
+
+    public JOption getOption() {
+        return option;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Get the primary name of the option.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return option.getName();
+    }
+
+    /**
+     * Get the index of the option in the command of a result, the index is cached for the last command.
+     *
+     * @param spec  the compiled <code>Jarg</code>
+     * @param scope the compiled command of the result
+     * @return the index
+     * @throws IllegalArgumentException if the option is not compiled in the spec
+     */
+    int indexIn(JSpec spec, JSpec.Scope scope) {
+        Slot current = slot;
+        if (current != null && current.scope == scope) {
+            return current.index;
+        }
+        int index = spec.indexOf(option, scope);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown option: " + option.getName());
+        }
+        slot = new Slot(scope, index);
+        return index;
+    }
+
+    /**
+     * Get the value of the option which is not set: false for a <code>Boolean</code> flag, otherwise null.
+     */
+    @SuppressWarnings("unchecked")
+    T unset() {
+        if (!option.isHasValue() && (type == Boolean.class || type == boolean.class)) {
+            return (T) Boolean.FALSE;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return option.getName() + ": " + type.getSimpleName();
+    }
+
+    /**
+     * The index of the option in a command, replaced as a whole so the pair is always consistent.
+     */
+    private static final class Slot {
+        final JSpec.Scope scope;
+        final int index;
+
+        Slot(JSpec.Scope scope, int index) {
+            this.scope = scope;
+            this.index = index;
+        }
+    }
+
+}
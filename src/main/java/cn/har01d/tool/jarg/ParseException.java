@@ -1,5 +1,8 @@
 package cn.har01d.tool.jarg;
 
+import java.util.Collections;
+import java.util.List;
+
 public class ParseException extends RuntimeException {
 
     public static final int UNKNOWN_OPTION = 1;
@@ -7,9 +10,14 @@ public class ParseException extends RuntimeException {
     public static final int OPTION_VAL_REQUIRED = 4;
     public static final int ARG_REQUIRED = 5;
     public static final int CONSOLE_ACCESS = 6;
+    public static final int INVALID_VALUE = 7;
+    public static final int INVALID_COMMAND_LINE = 8;
+    public static final int INVALID_ARG_FILE = 9;
+    public static final int CONSTRAINT_VIOLATION = 10;
 
     private final int code;
     private Object data;
+    private transient JCommand command;
 
     public ParseException(int code, String message) {
         super(message);
@@ -22,6 +30,12 @@ public class ParseException extends RuntimeException {
         this.code = code;
     }
 
+    public ParseException(int code, Object data, String message, Throwable cause) {
+        super(message, cause);
+        this.data = data;
+        this.code = code;
+    }
+
     public ParseException(int code, String message, Throwable cause) {
         super(message, cause);
         this.code = code;
@@ -40,4 +54,52 @@ public class ParseException extends RuntimeException {
         return data;
     }
 
+    /**
+     * Get the command which was parsed when the error occurred, the <code>Jarg</code> itself if no command was present.
+     *
+     * @return the command, or null if the error is not thrown by a parse
+     */
+    public JCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * Set the command of the error, unless it is already set.
+     *
+     * @param command the command
+     * @return this exception
+     */
+    ParseException withCommand(JCommand command) {
+        if (this.command == null) {
+            this.command = command;
+        }
+        return this;
+    }
+
+    /**
+     * Get the nearest names of an unknown option or command, the nearer first.
+     *
+     * @return the suggested names, empty if the data is not suggestions
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getSuggestions() {
+        if ((code == UNKNOWN_OPTION || code == COMMAND_REQUIRED) && data instanceof List) {
+            return (List<String>) data;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get the messages of the constraints violated by the arguments, one per option, parameter or group.
+     *
+     * @return the messages, empty if the code is not {@link #CONSTRAINT_VIOLATION}
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getViolations() {
+        if (code == CONSTRAINT_VIOLATION && data instanceof List) {
+            return (List<String>) data;
+        }
+        return Collections.emptyList();
+    }
+
 }
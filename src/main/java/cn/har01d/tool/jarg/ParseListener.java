@@ -0,0 +1,16 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * Receive the metrics of every parse, such as to export them to a metrics system.
+ * <p>
+ * The listener is called by the parsing thread after the parse succeeds or fails,
+ * so it must be thread-safe if the <code>JSpec</code> is shared, and should return quickly.
+ * An exception thrown by the listener is logged and ignored.
+ *
+ * @see Jarg#addParseListener(ParseListener)
+ */
+public interface ParseListener {
+
+    void parsed(ParseMetrics metrics);
+
+}
@@ -0,0 +1,130 @@
+package cn.har01d.tool.jarg;
+
+/**
+ * The timings and counters of one parse.
+ * <p>
+ * The phases are measured by <code>System.nanoTime()</code> only when a <code>ParseListener</code> is added.
+ * The command is resolved in the same pass which matches the options, so its time is part of {@link #getScanNanos()}.
+ */
+public final class ParseMetrics {
+
+    long tokenizeNanos;
+    long scanNanos;
+    long bindNanos;
+    long promptNanos;
+    long validateNanos;
+    int tokens;
+    int options;
+    int arguments;
+    String command;
+    ParseException error;
+
+    ParseMetrics() {
+    }
+
+    /**
+     * Get the time to split a command line and to expand the argument files.
+     *
+     * @return the nanoseconds
+     */
+    public long getTokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    /**
+     * Get the time to match the options and to resolve the command.
+     *
+     * @return the nanoseconds
+     */
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    /**
+     * Get the time to assign the positional arguments to the parameters.
+     *
+     * @return the nanoseconds
+     */
+    public long getBindNanos() {
+        return bindNanos;
+    }
+
+    /**
+     * Get the time to read the interactive options from the console, including the time the user takes.
+     *
+     * @return the nanoseconds
+     */
+    public long getPromptNanos() {
+        return promptNanos;
+    }
+
+    /**
+     * Get the time to check the constraints of the options and the parameters.
+     *
+     * @return the nanoseconds
+     */
+    public long getValidateNanos() {
+        return validateNanos;
+    }
+
+    public long getTotalNanos() {
+        return tokenizeNanos + scanNanos + bindNanos + promptNanos + validateNanos;
+    }
+
+    /**
+     * Get the number of arguments after the argument files are expanded.
+     *
+     * @return the number of tokens
+     */
+    public int getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Get the number of options present, an option present twice is counted twice.
+     *
+     * @return the number of options
+     */
+    public int getOptions() {
+        return options;
+    }
+
+    public int getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Get the present command.
+     *
+     * @return the command names, such as "cluster node", or null if no command is present
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Get the error of a failed parse.
+     *
+     * @return the error, or null if the parse succeeded
+     */
+    public ParseException getError() {
+        return error;
+    }
+
+    /**
+     * Get the code of the error.
+     *
+     * @return the code of the <code>ParseException</code>, or 0 if the parse succeeded
+     */
+    public int getErrorCode() {
+        return error == null ? 0 : error.getCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ParseMetrics{tokenize=" + tokenizeNanos + "ns, scan=" + scanNanos + "ns, bind=" + bindNanos
+                + "ns, prompt=" + promptNanos + "ns, validate=" + validateNanos + "ns, tokens=" + tokens + ", options=" + options + ", arguments=" + arguments
+                + ", command=" + command + ", error=" + getErrorCode() + "}";
+    }
+
+}
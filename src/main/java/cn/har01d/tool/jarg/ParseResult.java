@@ -0,0 +1,563 @@
+package cn.har01d.tool.jarg;
+
+import java.util.*;
+
+/**
+ * The result of one {@link JSpec#parse(String[])} call.
+ * <p>
+ * Option names are resolved against the root options first, then against the options of the present command,
+ * the same order used while parsing.
+ */
+public final class ParseResult {
+
+    private static final int[] NO_PROMPTS = new int[0];
+
+    private final JSpec spec;
+    /**
+     * The present options, a bit per option.
+     */
+    private final long[] present;
+    private final String[] values;
+    private final ArgumentList[] allValues;
+    private final Converters.Converted[] converted;
+    private final Converters.Converted[] convertedValues;
+    private final ArgumentList arguments = new ArgumentList();
+    private JSpec.Scope scope;
+    private String[] parameters;
+    private int[] prompts = NO_PROMPTS;
+    private int optionCount;
+    private ParseMetrics metrics;
+    private boolean released;
+
+    ParseResult(JSpec spec) {
+        this.spec = spec;
+        this.present = new long[(spec.options.length + 63) >>> 6];
+        this.values = new String[spec.options.length];
+        this.allValues = new ArgumentList[spec.options.length];
+        this.converted = new Converters.Converted[spec.options.length];
+        this.convertedValues = new Converters.Converted[spec.options.length];
+        this.metrics = spec.listeners.length == 0 ? null : new ParseMetrics();
+        setScope(spec.root);
+    }
+
+    void setScope(JSpec.Scope scope) {
+        this.scope = scope;
+        if (parameters != null && parameters.length == scope.parameterDefaults.length) {
+            System.arraycopy(scope.parameterDefaults, 0, parameters, 0, parameters.length);
+        } else {
+            this.parameters = scope.parameterDefaults.clone();
+        }
+    }
+
+    /**
+     * Clear this result for another parse, the arrays and the lists of values are kept.
+     */
+    void reset() {
+        Arrays.fill(present, 0);
+        Arrays.fill(values, null);
+        for (ArgumentList list : allValues) {
+            if (list != null) {
+                list.clear();
+            }
+        }
+        Arrays.fill(converted, null);
+        Arrays.fill(convertedValues, null);
+        arguments.clear();
+        prompts = NO_PROMPTS;
+        optionCount = 0;
+        metrics = spec.listeners.length == 0 ? null : new ParseMetrics();
+        setScope(spec.root);
+    }
+
+    JSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Mark this result as released to the pool.
+     *
+     * @return false if it is already released
+     */
+    boolean release() {
+        if (released) {
+            return false;
+        }
+        released = true;
+        return true;
+    }
+
+    void acquire() {
+        released = false;
+    }
+
+    JSpec.Scope getScope() {
+        return scope;
+    }
+
+    void addArgument(String argument) {
+        arguments.add(argument);
+    }
+
+    void addArgument(ArgumentList args, int index) {
+        arguments.add(args, index);
+    }
+
+    void addArguments(ArgumentList args, int start) {
+        arguments.addAll(args, start);
+    }
+
+    ArgumentList getArgumentList() {
+        return arguments;
+    }
+
+    ParseMetrics getMetrics() {
+        return metrics;
+    }
+
+    int getOptionCount() {
+        return optionCount;
+    }
+
+    void addValue(int option, String value) {
+        valuesOf(option).add(value);
+    }
+
+    /**
+     * Add the argument as the option value, a token of a command line is kept as a range until the value is read.
+     */
+    void addValue(int option, ArgumentList args, int index) {
+        valuesOf(option).add(args, index);
+    }
+
+    /**
+     * Add the end of the argument as the option value, such as the value of "--name=value".
+     */
+    void addValue(int option, ArgumentList args, int index, int begin) {
+        valuesOf(option).add(args, index, begin);
+    }
+
+    private ArgumentList valuesOf(int option) {
+        ++optionCount;
+        present[option >>> 6] |= 1L << option;
+        values[option] = null;
+        if (allValues[option] == null) {
+            allValues[option] = new ArgumentList();
+        }
+        return allValues[option];
+    }
+
+    void setValue(int option, String value) {
+        values[option] = value;
+        converted[option] = null;
+        convertedValues[option] = null;
+        if (allValues[option] == null) {
+            allValues[option] = new ArgumentList();
+        }
+        allValues[option].add(value);
+    }
+
+    void addPrompt(int option) {
+        ++optionCount;
+        present[option >>> 6] |= 1L << option;
+        prompts = Arrays.copyOf(prompts, prompts.length + 1);
+        prompts[prompts.length - 1] = option;
+    }
+
+    long[] getPresence() {
+        return present;
+    }
+
+    int[] getPrompts() {
+        return prompts;
+    }
+
+    void setParameter(int index, String value) {
+        parameters[index] = value;
+    }
+
+    boolean isPresent(int option) {
+        return (present[option >>> 6] & (1L << option)) != 0;
+    }
+
+    /**
+     * Get the last value of the option, the string is created on the first call.
+     */
+    String getValue(int option) {
+        if (values[option] == null && allValues[option] != null && !allValues[option].isEmpty()) {
+            values[option] = allValues[option].get(allValues[option].size() - 1);
+        }
+        return values[option] != null ? values[option] : spec.defaults[option];
+    }
+
+    List<String> getValues(int option) {
+        if (allValues[option] == null || allValues[option].isEmpty()) {
+            return spec.sources[option] == null ? Collections.<String>emptyList() : Collections.singletonList(spec.defaults[option]);
+        }
+        return allValues[option];
+    }
+
+    /**
+     * Check if the option has a value from the arguments or a <code>ValueSource</code>.
+     */
+    boolean isSet(int option) {
+        return isPresent(option) || spec.sources[option] != null;
+    }
+
+    String getParameter(int index) {
+        return parameters[index];
+    }
+
+    private int indexOf(String name) {
+        int index = spec.indexOf(name, scope);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown option: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Check if the command present by name, the present command or one of its parent commands.
+     *
+     * @param name the command name
+     * @return true if the command present
+     */
+    public boolean isCommand(String name) {
+        for (JSpec.Scope s = scope; s != spec.root; s = s.parent) {
+            for (String alias : s.aliases) {
+                if (alias.equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the present command.
+     *
+     * @return the command, or null if no command is present
+     */
+    public JCommand getCommand() {
+        return scope == spec.root ? null : scope.command;
+    }
+
+    /**
+     * Get the present command name.
+     *
+     * @return the command name
+     */
+    public String getCommandName() {
+        return scope == spec.root ? null : scope.command.getName();
+    }
+
+    /**
+     * Get the names of the present command and its parent commands, such as "cluster node drain".
+     *
+     * @return the command names separated by a space, or null if no command is present
+     */
+    public String getCommandPath() {
+        return scope == spec.root ? null : scope.command.commandPath();
+    }
+
+    /**
+     * Required one command is present.
+     *
+     * @return the present <code>JCommand</code>
+     */
+    public JCommand requireCommand() {
+        if (scope == spec.root) {
+            List<String> suggestions = arguments.isEmpty() ? Collections.<String>emptyList() : spec.root.suggestCommands(arguments.get(0));
+            throw new ParseException(ParseException.COMMAND_REQUIRED, suggestions, "Command is required!").withCommand(scope.command);
+        }
+        return scope.command;
+    }
+
+    /**
+     * Get all the arguments. The arguments read from an argument file are created when they are accessed.
+     *
+     * @return the arguments
+     */
+    public List<String> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Get the argument size.
+     *
+     * @return the argument size
+     */
+    public int getArgumentSize() {
+        return arguments.size();
+    }
+
+    /**
+     * Get the positional argument by index.
+     *
+     * @param index the index
+     * @return the positional argument
+     */
+    public String getArgument(int index) {
+        return arguments.get(index);
+    }
+
+    /**
+     * Get the argument by name which is add as <code>JParameter</code> to the present command,
+     * or to the <code>Jarg</code> if no command is present.
+     *
+     * @param name the argument name
+     * @return the argument
+     */
+    public String getArgument(String name) {
+        JParameter[] parameters = scope.parameters;
+        for (int i = 0; i < parameters.length; ++i) {
+            if (parameters[i].getName().equals(name)) {
+                return this.parameters[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown argument: " + name);
+    }
+
+    public boolean hasOption(String name) {
+        return spec.indexOf(name, scope) > -1;
+    }
+
+    /**
+     * Check if the option present in arguments.
+     *
+     * @param name the option name
+     * @return true if the option present
+     */
+    public boolean isPresent(String name) {
+        int index = spec.indexOf(name, scope);
+        return index > -1 && isPresent(index);
+    }
+
+    /**
+     * Get the source of the option value which is not present in the arguments.
+     *
+     * @param name the option name
+     * @return the source, or null if the option is present in the arguments or no source has its value
+     */
+    public ValueSource getSource(String name) {
+        int index = indexOf(name);
+        return isPresent(index) ? null : spec.sources[index];
+    }
+
+    public String getValue(String name) {
+        return getValue(indexOf(name));
+    }
+
+    public String getValue(String name, String defaultValue) {
+        int index = indexOf(name);
+        return isSet(index) ? getValue(index) : defaultValue;
+    }
+
+    /**
+     * Get the option value converted by the <code>Converter</code> of the type.
+     * The converted value is computed once and cached in this result.
+     *
+     * @param name the option name
+     * @param type the target type
+     * @param <T>  the target type
+     * @return the converted value, or null if the option doesn't have value
+     */
+    public <T> T getValue(String name, Class<T> type) {
+        return convert(indexOf(name), type);
+    }
+
+    /**
+     * Get all the option values converted by the <code>Converter</code> of the type.
+     * A single value is split by the separators of the option.
+     * The converted values are computed once and cached in this result.
+     *
+     * @param name the option name
+     * @param type the target type
+     * @param <T>  the target type
+     * @return the unmodifiable list of converted values
+     */
+    public <T> List<T> getValues(String name, Class<T> type) {
+        return getValues(indexOf(name), type);
+    }
+
+    /**
+     * Check if the option of the handle present in arguments, by its index in the command of this result.
+     *
+     * @param key the handle
+     * @return true if the option present
+     */
+    public boolean isPresent(OptionKey<?> key) {
+        return isPresent(key.indexIn(spec, scope));
+    }
+
+    public ValueSource getSource(OptionKey<?> key) {
+        int index = key.indexIn(spec, scope);
+        return isPresent(index) ? null : spec.sources[index];
+    }
+
+    /**
+     * Get the value of the option of the handle, converted to the type of the handle.
+     * The option is read by its index in the command of this result, and the converted value is cached in this result.
+     *
+     * @param key the handle
+     * @param <T> the type of the value
+     * @return the converted value, false for a <code>Boolean</code> flag which is not present,
+     * or null if the option doesn't have value
+     */
+    public <T> T getValue(OptionKey<T> key) {
+        int index = key.indexIn(spec, scope);
+        return !spec.hasValue[index] && !isSet(index) ? key.unset() : convert(index, key.getType());
+    }
+
+    public <T> T getValue(OptionKey<T> key, T defaultValue) {
+        return isSet(key.indexIn(spec, scope)) ? getValue(key) : defaultValue;
+    }
+
+    /**
+     * Get all the values of the option of the handle, converted to the type of the handle.
+     *
+     * @param key the handle
+     * @param <T> the type of the value
+     * @return the unmodifiable list of converted values
+     */
+    public <T> List<T> getValues(OptionKey<T> key) {
+        return getValues(key.indexIn(spec, scope), key.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> getValues(int index, Class<T> type) {
+        Converters.Converted result = convertedValues[index];
+        if (result == null || result.type != type) {
+            JOption option = spec.options[index];
+            result = new Converters.Converted(type, spec.getConverters().convert(option, spec.separators[index].split(getValues(index)), type));
+            convertedValues[index] = result;
+        }
+        return (List<T>) result.value;
+    }
+
+    public boolean getBooleanValue(String name) {
+        Boolean value = getValue(name, Boolean.class);
+        return value != null && value;
+    }
+
+    public byte getByteValue(String name) {
+        return require(indexOf(name), Byte.class);
+    }
+
+    public byte getByteValue(String name, byte defaultValue) {
+        return getValue(indexOf(name), Byte.class, defaultValue);
+    }
+
+    public int getIntValue(String name) {
+        return require(indexOf(name), Integer.class);
+    }
+
+    public int getIntValue(String name, int defaultValue) {
+        return getValue(indexOf(name), Integer.class, defaultValue);
+    }
+
+    public long getLongValue(String name) {
+        return require(indexOf(name), Long.class);
+    }
+
+    public long getLongValue(String name, long defaultValue) {
+        return getValue(indexOf(name), Long.class, defaultValue);
+    }
+
+    public float getFloatValue(String name) {
+        return require(indexOf(name), Float.class);
+    }
+
+    public float getFloatValue(String name, float defaultValue) {
+        return getValue(indexOf(name), Float.class, defaultValue);
+    }
+
+    public double getDoubleValue(String name) {
+        return require(indexOf(name), Double.class);
+    }
+
+    public double getDoubleValue(String name, double defaultValue) {
+        return getValue(indexOf(name), Double.class, defaultValue);
+    }
+
+    public List<String> getStringValues(String name) {
+        int index = indexOf(name);
+        return Collections.unmodifiableList(spec.separators[index].split(getValues(index)));
+    }
+
+    public List<Integer> getIntValues(String name) {
+        return getValues(name, Integer.class);
+    }
+
+    public List<Long> getLongValues(String name) {
+        return getValues(name, Long.class);
+    }
+
+    public List<Float> getFloatValues(String name) {
+        return getValues(name, Float.class);
+    }
+
+    public List<Double> getDoubleValues(String name) {
+        return getValues(name, Double.class);
+    }
+
+    /**
+     * Get all the option values as an <code>int</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public int[] getIntArray(String name) {
+        int index = indexOf(name);
+        return spec.separators[index].toIntArray(spec.options[index], getValues(index));
+    }
+
+    /**
+     * Get all the option values as a <code>long</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public long[] getLongArray(String name) {
+        int index = indexOf(name);
+        return spec.separators[index].toLongArray(spec.options[index], getValues(index));
+    }
+
+    /**
+     * Get all the option values as a <code>double</code> array.
+     * A single value is split by the separators of the option.
+     *
+     * @param name the option name
+     * @return the values
+     */
+    public double[] getDoubleArray(String name) {
+        int index = indexOf(name);
+        return spec.separators[index].toDoubleArray(spec.options[index], getValues(index));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T convert(int index, Class<T> type) {
+        Converters.Converted result = converted[index];
+        if (result == null || result.type != type) {
+            result = new Converters.Converted(type, spec.getConverters().convert(spec.options[index], getValue(index), type));
+            converted[index] = result;
+        }
+        return (T) result.value;
+    }
+
+    private <T> T require(int index, Class<T> type) {
+        T value = convert(index, type);
+        if (value == null) {
+            JOption option = spec.options[index];
+            throw new ParseException(ParseException.OPTION_VAL_REQUIRED, option, "Missing value for option " + option.getName())
+                    .withCommand(scope.command);
+        }
+        return value;
+    }
+
+    private <T> T getValue(int index, Class<T> type, T defaultValue) {
+        return isSet(index) ? require(index, type) : defaultValue;
+    }
+
+}
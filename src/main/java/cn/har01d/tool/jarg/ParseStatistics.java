@@ -0,0 +1,93 @@
+package cn.har01d.tool.jarg;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A <code>ParseListener</code> which adds up the metrics of all the parses, it can be shared by many threads.
+ */
+public final class ParseStatistics implements ParseListener {
+
+    private static final int MAX_CODE = 15;
+
+    private final AtomicLong parses = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong options = new AtomicLong();
+    private final AtomicLong tokenizeNanos = new AtomicLong();
+    private final AtomicLong scanNanos = new AtomicLong();
+    private final AtomicLong bindNanos = new AtomicLong();
+    private final AtomicLong promptNanos = new AtomicLong();
+    private final AtomicLong validateNanos = new AtomicLong();
+    private final AtomicLongArray errors = new AtomicLongArray(MAX_CODE + 1);
+
+    @Override
+    public void parsed(ParseMetrics metrics) {
+        parses.incrementAndGet();
+        tokens.addAndGet(metrics.getTokens());
+        options.addAndGet(metrics.getOptions());
+        tokenizeNanos.addAndGet(metrics.getTokenizeNanos());
+        scanNanos.addAndGet(metrics.getScanNanos());
+        bindNanos.addAndGet(metrics.getBindNanos());
+        promptNanos.addAndGet(metrics.getPromptNanos());
+        validateNanos.addAndGet(metrics.getValidateNanos());
+        if (metrics.getError() != null) {
+            errors.incrementAndGet(Math.min(Math.max(metrics.getErrorCode(), 0), MAX_CODE));
+        }
+    }
+
+    public long getParses() {
+        return parses.get();
+    }
+
+    public long getTokens() {
+        return tokens.get();
+    }
+
+    public long getOptions() {
+        return options.get();
+    }
+
+    public long getTokenizeNanos() {
+        return tokenizeNanos.get();
+    }
+
+    public long getScanNanos() {
+        return scanNanos.get();
+    }
+
+    public long getBindNanos() {
+        return bindNanos.get();
+    }
+
+    public long getPromptNanos() {
+        return promptNanos.get();
+    }
+
+    public long getValidateNanos() {
+        return validateNanos.get();
+    }
+
+    /**
+     * Get the number of parses failed with the error code, such as {@link ParseException#ARG_REQUIRED}.
+     *
+     * @param code the code of the <code>ParseException</code>
+     * @return the number of errors
+     */
+    public long getErrors(int code) {
+        return code < 0 || code > MAX_CODE ? 0 : errors.get(code);
+    }
+
+    /**
+     * Get the number of failed parses.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        long sum = 0;
+        for (int i = 0; i <= MAX_CODE; ++i) {
+            sum += errors.get(i);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,50 @@
+package cn.har01d.tool.jarg;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A sorted array of names, the names starting with a prefix are a contiguous range found by two binary searches.
+ */
+final class PrefixIndex {
+
+    private final String[] names;
+
+    PrefixIndex(Collection<String> names) {
+        this.names = names.toArray(new String[names.size()]);
+        Arrays.sort(this.names);
+    }
+
+    /**
+     * Add the names starting with the prefix, in the order of the names.
+     *
+     * @param prefix the prefix
+     * @param result the list to add to
+     */
+    void collect(String prefix, List<String> result) {
+        int i = lowerBound(prefix);
+        String last = null;
+        for (; i < names.length && names[i].startsWith(prefix); ++i) {
+            if (!names[i].equals(last)) {
+                result.add(names[i]);
+                last = names[i];
+            }
+        }
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
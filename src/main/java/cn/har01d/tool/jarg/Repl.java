@@ -0,0 +1,324 @@
+package cn.har01d.tool.jarg;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An interactive shell which runs the command lines read line by line with one compiled <code>Jarg</code>.
+ * <p>
+ * A line is split like {@link Tokenizer#split(CharSequence)}. A line ending with a backslash, or in a quoted string,
+ * continues on the next line. Every line is parsed by the same <code>JSpec</code>, and the result is returned to its pool
+ * after the handler, so a line costs no more than a parse.
+ * <p>
+ * Besides the commands of the <code>Jarg</code>, the shell understands:
+ * <pre>
+ * help [COMMAND]...  print the help of the command
+ * history            print the history
+ * !!                 run the last line again
+ * !N                 run the line N of the history again
+ * exit, quit         leave the shell
+ * </pre>
+ * A command of the <code>Jarg</code> with the same name takes precedence.
+ * An error is printed like {@link Jarg#printError(Exception, ParseResult, PrintStream, PrintStream)} and the shell goes on.
+ */
+public final class Repl {
+
+    private static final int DEFAULT_HISTORY_SIZE = 500;
+
+    private final Jarg jarg;
+    private final Handler handler;
+    private final JSpec spec;
+    private final Deque<String> history = new ArrayDeque<String>();
+    private int historyCount;
+    private int historySize = DEFAULT_HISTORY_SIZE;
+    private File historyFile;
+    private String prompt;
+    private String continuationPrompt = "> ";
+
+    /**
+     * Create a shell, the <code>Jarg</code> is compiled once, the changes made after are not visible to the shell.
+     *
+     * @param jarg    the <code>Jarg</code>
+     * @param handler the handler of the parsed lines
+     */
+    public Repl(Jarg jarg, Handler handler) {
+        this.jarg = jarg;
+        this.handler = handler;
+        this.spec = jarg.compile();
+        this.prompt = jarg.getName() + "> ";
+    }
+
+    public Repl setPrompt(String prompt) {
+        this.prompt = prompt;
+        return this;
+    }
+
+    public Repl setContinuationPrompt(String continuationPrompt) {
+        this.continuationPrompt = continuationPrompt;
+        return this;
+    }
+
+    /**
+     * Set the number of lines kept in the history, 500 by default.
+     *
+     * @param historySize the number of lines
+     * @return this <code>Repl</code>
+     */
+    public Repl setHistorySize(int historySize) {
+        if (historySize < 0) {
+            throw new IllegalArgumentException("Invalid history size: " + historySize);
+        }
+        this.historySize = historySize;
+        return this;
+    }
+
+    /**
+     * Load the history from the file when the shell starts, and append every line to it.
+     * A line which continues on more lines is only kept in memory.
+     *
+     * @param historyFile the history file in UTF-8
+     * @return this <code>Repl</code>
+     */
+    public Repl setHistoryFile(File historyFile) {
+        this.historyFile = historyFile;
+        return this;
+    }
+
+    /**
+     * Get the lines in the history, the oldest first.
+     *
+     * @return the lines
+     */
+    public List<String> getHistory() {
+        return new ArrayList<String>(history);
+    }
+
+    /**
+     * Run the shell on the standard streams until the end of the input or "exit".
+     * The values of the interactive options are read from the console, if there is one.
+     *
+     * @throws IOException if the input or the history file cannot be read
+     */
+    public void run() throws IOException {
+        run(new InputStreamReader(System.in), System.out, System.err, System.console() != null);
+    }
+
+    /**
+     * Run the shell until the end of the input or "exit". The interactive options are not prompted,
+     * an interactive option without value is a <code>ParseException</code>.
+     *
+     * @param reader the input
+     * @param out    the output stream, for the prompts, the help and the handler
+     * @param err    the error stream
+     * @throws IOException if the input or the history file cannot be read
+     */
+    public void run(Reader reader, PrintStream out, PrintStream err) throws IOException {
+        run(reader, out, err, false);
+    }
+
+    private void run(Reader reader, PrintStream out, PrintStream err, boolean interactive) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Writer historyWriter = openHistory();
+        try {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                out.print(line.length() == 0 ? prompt : continuationPrompt);
+                out.flush();
+                String next = in.readLine();
+                if (next == null) {
+                    if (line.length() > 0) {
+                        err.println("Unexpected end of input: " + line);
+                    }
+                    break;
+                }
+
+                line.append(next);
+                int continuation = Tokenizer.continuation(line);
+                if (continuation == Tokenizer.LINE_CONTINUATION) {
+                    line.setLength(line.length() - 1);
+                    continue;
+                } else if (continuation == Tokenizer.OPEN_QUOTE) {
+                    line.append('\n');
+                    continue;
+                }
+
+                String text = line.toString();
+                line.setLength(0);
+                if (text.trim().isEmpty()) {
+                    continue;
+                }
+                text = expandHistory(text, err);
+                if (text == null) {
+                    continue;
+                }
+                addHistory(text, historyWriter);
+                if (!execute(text, out, err, interactive)) {
+                    break;
+                }
+            }
+        } finally {
+            if (historyWriter != null) {
+                historyWriter.close();
+            }
+        }
+    }
+
+    /**
+     * Run one line.
+     *
+     * @return false to leave the shell
+     */
+    private boolean execute(String line, PrintStream out, PrintStream err, boolean interactive) {
+        String[] args;
+        try {
+            args = Tokenizer.split(line);
+        } catch (ParseException e) {
+            err.println(e.getMessage());
+            return true;
+        }
+        if (args.length == 0) {
+            return true;
+        }
+
+        String name = args[0];
+        if (spec.root.getCommand(name) == null) {
+            if ("exit".equals(name) || "quit".equals(name)) {
+                return false;
+            } else if ("help".equals(name)) {
+                jarg.printHelp(out, Arrays.asList(args).subList(1, args.length));
+                return true;
+            } else if ("history".equals(name)) {
+                printHistory(out);
+                return true;
+            }
+        }
+
+        ParseResult result = null;
+        try {
+            result = spec.parse(args, interactive);
+            if (!jarg.printHelp(result, out)) {
+                handler.handle(result, out);
+            }
+        } catch (Exception e) {
+            jarg.printError(e, result, out, err);
+        } finally {
+            if (result != null) {
+                spec.release(result);
+            }
+            out.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Replace "!!" with the last line, or "!N" with the line N of the history.
+     *
+     * @return the line, or null if the history does not have the line
+     */
+    private String expandHistory(String line, PrintStream err) {
+        String text = line.trim();
+        if (!text.startsWith("!") || text.length() < 2) {
+            return line;
+        }
+
+        int number;
+        if ("!!".equals(text)) {
+            number = historyCount;
+        } else {
+            try {
+                number = Integer.parseInt(text.substring(1));
+            } catch (NumberFormatException e) {
+                return line;
+            }
+        }
+
+        int first = historyCount - history.size() + 1;
+        if (number < first || number > historyCount) {
+            err.println(text + ": event not found");
+            return null;
+        }
+        int i = first;
+        for (String entry : history) {
+            if (i++ == number) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void addHistory(String line, Writer historyWriter) throws IOException {
+        if (historySize == 0) {
+            return;
+        }
+        ++historyCount;
+        history.addLast(line);
+        while (history.size() > historySize) {
+            history.removeFirst();
+        }
+        if (historyWriter != null && line.indexOf('\n') < 0) {
+            historyWriter.write(line);
+            historyWriter.write('\n');
+            historyWriter.flush();
+        }
+    }
+
+    private void printHistory(PrintStream out) {
+        int number = historyCount - history.size() + 1;
+        for (String line : history) {
+            out.println(String.format("%5d  %s", number++, line));
+        }
+    }
+
+    /**
+     * Load the last lines of the history file, and open it for appending.
+     *
+     * @return the writer, or null if there is no history file
+     */
+    private Writer openHistory() throws IOException {
+        if (historyFile == null) {
+            return null;
+        }
+        if (historyFile.isFile()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(historyFile), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        addHistory(line, null);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return new OutputStreamWriter(new FileOutputStream(historyFile, true), "UTF-8");
+    }
+
+    /**
+     * Run a parsed line of the shell.
+     */
+    public interface Handler {
+        /**
+         * Run the command. The result is reused by the next line after this method returns, so it must not be kept.
+         *
+         * @param result the parsed line
+         * @param out    the output stream of the shell
+         * @throws Exception the error is printed and the shell goes on
+         */
+        void handle(ParseResult result, PrintStream out) throws Exception;
+    }
+
+}
@@ -0,0 +1,194 @@
+package cn.har01d.tool.jarg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The characters which split a single value of an option to multiple values.
+ * <p>
+ * The separators are immutable, a change of the option creates new ones, so a compiled <code>JSpec</code>
+ * keeps the separators it was compiled with, and splits and converts the values of a parse with them.
+ * The ASCII characters are tested against two 64 bit masks.
+ */
+final class Separators {
+
+    private final String chars;
+    private final long low;
+    private final long high;
+
+    Separators(String chars) {
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < chars.length(); ++i) {
+            char c = chars.charAt(i);
+            if (c < 64) {
+                low |= 1L << c;
+            } else if (c < 128) {
+                high |= 1L << (c - 64);
+            }
+        }
+        this.chars = chars;
+        this.low = low;
+        this.high = high;
+    }
+
+    String getChars() {
+        return chars;
+    }
+
+    boolean contains(char c) {
+        if (c < 64) {
+            return (low & (1L << c)) != 0;
+        } else if (c < 128) {
+            return (high & (1L << (c - 64))) != 0;
+        }
+        return chars.indexOf(c) > -1;
+    }
+
+    /**
+     * Split a single value by the separators. Multiple values are returned as is.
+     * Like <code>String.split</code>, trailing empty strings are removed.
+     *
+     * @param values the values of the option
+     * @return the split values
+     */
+    List<String> split(List<String> values) {
+        if (values.size() != 1) {
+            return values;
+        }
+
+        String value = values.get(0);
+        List<String> result = null;
+        int start = 0;
+        for (int i = 0; i < value.length(); ++i) {
+            if (contains(value.charAt(i))) {
+                if (result == null) {
+                    result = new ArrayList<String>();
+                }
+                result.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (result == null) {
+            return values;
+        }
+        result.add(value.substring(start));
+
+        int size = result.size();
+        while (size > 0 && result.get(size - 1).isEmpty()) {
+            result.remove(--size);
+        }
+        return result;
+    }
+
+    /**
+     * Convert the values of the option to numbers, a single value is split by the separators.
+     *
+     * @param option the option, which is reported by the <code>ParseException</code> of an invalid number
+     * @param values the values of the option
+     * @return the numbers
+     */
+    int[] toIntArray(JOption option, List<String> values) {
+        long[] longs = toLongArray(option, values, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        int[] result = new int[longs.length];
+        for (int i = 0; i < longs.length; ++i) {
+            result[i] = (int) longs[i];
+        }
+        return result;
+    }
+
+    long[] toLongArray(JOption option, List<String> values) {
+        return toLongArray(option, values, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    double[] toDoubleArray(JOption option, List<String> values) {
+        List<String> list = split(values);
+        double[] result = new double[list.size()];
+        for (int i = 0; i < result.length; ++i) {
+            try {
+                result[i] = Double.parseDouble(list.get(i));
+            } catch (NumberFormatException e) {
+                throw invalidValue(option, list.get(i), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the numbers in place, a single value is split by the separators in the same pass.
+     */
+    private long[] toLongArray(JOption option, List<String> values, long min, long max) {
+        if (values.size() != 1) {
+            long[] result = new long[values.size()];
+            for (int i = 0; i < result.length; ++i) {
+                String value = values.get(i);
+                result[i] = parseLong(option, value, 0, value.length(), min, max);
+            }
+            return result;
+        }
+
+        String value = values.get(0);
+        long[] result = new long[16];
+        int size = 0;
+        int start = 0;
+        int empty = -1;
+        for (int i = 0; i <= value.length(); ++i) {
+            if (i < value.length() && !contains(value.charAt(i))) {
+                continue;
+            }
+            if (i == start) {
+                // trailing empty strings are ignored
+                if (empty < 0) {
+                    empty = start;
+                }
+            } else {
+                if (empty > -1) {
+                    throw invalidValue(option, "", null);
+                }
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, size * 2);
+                }
+                result[size++] = parseLong(option, value, start, i, min, max);
+            }
+            start = i + 1;
+        }
+        if (size == 0 && value.isEmpty()) {
+            throw invalidValue(option, value, null);
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static long parseLong(JOption option, String s, int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            ++i;
+        }
+        if (i == end) {
+            throw invalidValue(option, s.substring(start, end), null);
+        }
+
+        long limit = negative ? min : -max;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < end; ++i) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || result < multiplyMin) {
+                throw invalidValue(option, s.substring(start, end), null);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalidValue(option, s.substring(start, end), null);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static ParseException invalidValue(JOption option, String value, Throwable cause) {
+        return new ParseException(ParseException.INVALID_VALUE, option, "Invalid value for option " + option.getName() + ": " + value, cause);
+    }
+
+}
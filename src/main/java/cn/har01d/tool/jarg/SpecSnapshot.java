@@ -0,0 +1,495 @@
+package cn.har01d.tool.jarg;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * A binary snapshot of a <code>Jarg</code> definition and of the option indexes of its compiled <code>JSpec</code>,
+ * written at build time by {@link Jarg#writeSnapshot(OutputStream)} and read by {@link Jarg#loadSnapshot(ByteBuffer)}.
+ * <p>
+ * Loading creates the commands, options and parameters without parsing the option strings again, and the first
+ * compile fills the hash tables of the option names from the slots in the snapshot instead of hashing the names.
+ * The index of a command only has the names of the command, the names of its parents are looked up in their
+ * indexes. If the definition is changed after loading, the <code>Jarg</code> is compiled as usual.
+ * <p>
+ * The snapshot is a list of big-endian ints, which is read with one bulk copy, and the bytes of the strings:
+ * <pre>
+ * snapshot: int magic, int version, int string count, int int count, int string length*, int*, UTF-8 bytes
+ * ints:     command, int table count, table*
+ * command:  name, summary, synopsis, description, (int flags, int section count, (title, content)*, for the root),
+ *           aliases, int option count, option*, int parameter count, parameter*, int group count, names*,
+ *           int command count, command*
+ * option:   int id, and for the first occurrence of the option: long names, short names, names without the dashes,
+ *           description, int flags, label, default, separators, completions, constraint, requires
+ * table:    int capacity, int entry count, (int slot, name, int hash, int value)*
+ * </pre>
+ * Strings are the indexes in the string list, -1 for null, and a list of names is an int count and the strings.
+ * A range is an int kind and the two bounds, each written as two ints.
+ */
+final class SpecSnapshot {
+
+    private static final int MAGIC = 0x4A415247;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int HAS_VALUE = 1;
+    private static final int INTERACTIVE = 2;
+    private static final int REQUIRED = 1;
+    private static final int AUTO_HELP = 1;
+    private static final int AUTO_COMPLETE = 2;
+    private static final int EXPAND_ARG_FILES = 4;
+    private static final int LONG_RANGE = 1;
+    private static final int DOUBLE_RANGE = 2;
+
+    private final Table[] tables;
+
+    private SpecSnapshot(Table[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Get a cursor over the indexes, in the order the scopes are compiled.
+     */
+    Tables tables() {
+        return new Tables();
+    }
+
+    /**
+     * Write the snapshot of the <code>Jarg</code> and its spec.
+     *
+     * @param jarg the <code>Jarg</code>
+     * @param spec the spec compiled from the <code>Jarg</code>
+     * @param out  the output stream, which is not closed
+     * @throws IOException if failed to write
+     */
+    static void write(Jarg jarg, JSpec spec, OutputStream out) throws IOException {
+        Writer writer = new Writer();
+        writer.writeCommand(jarg);
+        List<JSpec.Scope> scopes = new ArrayList<JSpec.Scope>();
+        collect(spec.root, scopes);
+        writer.write(scopes.size());
+        for (JSpec.Scope scope : scopes) {
+            writer.writeTable(scope.index);
+        }
+
+        byte[][] bytes = new byte[writer.strings.size()][];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = writer.strings.get(i).getBytes(UTF_8);
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(bytes.length);
+        data.writeInt(writer.size);
+        for (byte[] string : bytes) {
+            data.writeInt(string.length);
+        }
+        for (int i = 0; i < writer.size; ++i) {
+            data.writeInt(writer.ints[i]);
+        }
+        for (byte[] string : bytes) {
+            data.write(string);
+        }
+        data.flush();
+    }
+
+    private static void collect(JSpec.Scope scope, List<JSpec.Scope> scopes) {
+        scopes.add(scope);
+        for (JSpec.Scope command : scope.commands) {
+            collect(command, scopes);
+        }
+    }
+
+    /**
+     * Read a snapshot, the position of the buffer is not changed.
+     *
+     * @param buffer the bytes of the snapshot
+     * @return the <code>Jarg</code>
+     * @throws IllegalArgumentException if the bytes are not a snapshot of this version
+     */
+    static Jarg read(ByteBuffer buffer) {
+        try {
+            return new Reader(buffer.slice().order(ByteOrder.BIG_ENDIAN)).read();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated snapshot", e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid snapshot", e);
+        } catch (NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Invalid snapshot", e);
+        }
+    }
+
+    /**
+     * The names of an index and their slots.
+     */
+    private static final class Table {
+        final int capacity;
+        final int[] slots;
+        final String[] names;
+        final int[] hashes;
+        final int[] values;
+
+        Table(int capacity, int size) {
+            this.capacity = capacity;
+            this.slots = new int[size];
+            this.names = new String[size];
+            this.hashes = new int[size];
+            this.values = new int[size];
+        }
+    }
+
+    /**
+     * Build the indexes of a compile one by one, each of a scope after the index of its parent.
+     */
+    final class Tables {
+        private int next;
+
+        NameTable next(NameTable parent) {
+            if (next == tables.length) {
+                throw new IllegalStateException("The snapshot does not match the commands");
+            }
+            Table table = tables[next++];
+            NameTable index = new NameTable(parent, table.capacity / 2);
+            for (int i = 0; i < table.slots.length; ++i) {
+                index.put(table.slots[i], table.names[i], table.hashes[i], table.values[i]);
+            }
+            return index;
+        }
+    }
+
+    private static final class Writer {
+        final List<String> strings = new ArrayList<String>();
+        int[] ints = new int[1024];
+        int size;
+        private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        private final Map<JOption, Integer> optionIds = new IdentityHashMap<JOption, Integer>();
+
+        void writeCommand(JCommand command) {
+            writeString(command.getName());
+            writeString(command.getSummary());
+            writeString(command.synopsis);
+            writeString(command.description);
+            if (command instanceof Jarg) {
+                Jarg jarg = (Jarg) command;
+                write((jarg.isAutoHelp() ? AUTO_HELP : 0)
+                        | (jarg.isAutoComplete() ? AUTO_COMPLETE : 0)
+                        | (jarg.isExpandArgFiles() ? EXPAND_ARG_FILES : 0));
+                Map<String, String> sections = jarg.getSections();
+                write(sections.size());
+                for (Map.Entry<String, String> entry : sections.entrySet()) {
+                    writeString(entry.getKey());
+                    writeString(entry.getValue());
+                }
+            }
+            writeStrings(command.aliases.subList(1, command.aliases.size()));
+
+            write(command.options.size());
+            for (JOption option : command.options) {
+                writeOption(option);
+            }
+            write(command.parameters.size());
+            for (JParameter parameter : command.parameters) {
+                writeString(parameter.getName());
+                write(parameter.isRequired() ? REQUIRED : 0);
+                writeString(parameter.getDefaultValue());
+                writeStrings(parameter.getCompletions());
+                writeConstraint(parameter.getConstraint());
+            }
+            write(command.exclusiveGroups.size());
+            for (String[] names : command.exclusiveGroups) {
+                writeStrings(Arrays.asList(names));
+            }
+            write(command.commands.size());
+            for (JCommand subcommand : command.commands) {
+                writeCommand(subcommand);
+            }
+        }
+
+        /**
+         * Write an option once, an option shared by the commands, such as by {@link JCommand#cloneCommand}, is
+         * written as the id of its first occurrence.
+         */
+        private void writeOption(JOption option) {
+            Integer id = optionIds.get(option);
+            if (id != null) {
+                write(id);
+                return;
+            }
+            write(optionIds.size());
+            optionIds.put(option, optionIds.size());
+
+            writeStrings(option.getLongOptions());
+            writeStrings(option.getShortOptions());
+            writeStrings(option.getOptions());
+            writeString(option.getDescription());
+            write((option.isHasValue() ? HAS_VALUE : 0) | (option.isInteractive() ? INTERACTIVE : 0));
+            writeString(option.getLabel());
+            writeString(option.getDefaultValue());
+            writeString(option.getSeparators());
+            writeStrings(option.getCompletions());
+            writeConstraint(option.getConstraint());
+            writeStrings(option.getRequires());
+        }
+
+        private void writeConstraint(ValueConstraint constraint) {
+            Number min = constraint.getMin();
+            if (min == null) {
+                write(0);
+            } else if (min instanceof Long) {
+                write(LONG_RANGE);
+                writeLong(min.longValue());
+                writeLong(constraint.getMax().longValue());
+            } else {
+                write(DOUBLE_RANGE);
+                writeLong(Double.doubleToLongBits(min.doubleValue()));
+                writeLong(Double.doubleToLongBits(constraint.getMax().doubleValue()));
+            }
+            writeString(constraint.getPattern() == null ? null : constraint.getPattern().pattern());
+            List<String> choices = constraint.getChoices();
+            if (choices == null) {
+                write(-1);
+            } else {
+                writeStrings(choices);
+            }
+        }
+
+        void writeTable(NameTable index) {
+            write(index.capacity());
+            write(index.size());
+            for (int i = 0; i < index.capacity(); ++i) {
+                if (index.keyAt(i) != null) {
+                    write(i);
+                    writeString(index.keyAt(i));
+                    write(index.hashAt(i));
+                    write(index.valueAt(i));
+                }
+            }
+        }
+
+        private void writeStrings(List<String> list) {
+            write(list.size());
+            for (String s : list) {
+                writeString(s);
+            }
+        }
+
+        private void writeString(String s) {
+            if (s == null) {
+                write(-1);
+                return;
+            }
+            Integer id = stringIds.get(s);
+            if (id == null) {
+                id = strings.size();
+                strings.add(s);
+                stringIds.put(s, id);
+            }
+            write(id);
+        }
+
+        private void writeLong(long value) {
+            write((int) (value >>> 32));
+            write((int) value);
+        }
+
+        void write(int value) {
+            if (size == ints.length) {
+                ints = Arrays.copyOf(ints, size * 2);
+            }
+            ints[size++] = value;
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final List<JOption> options = new ArrayList<JOption>();
+        private String[] strings;
+        private int[] ints;
+        private int next;
+        private int commands;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        Jarg read() {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a Jarg snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+            }
+            int[] lengths = new int[buffer.getInt()];
+            ints = new int[buffer.getInt()];
+            IntBuffer view = buffer.asIntBuffer();
+            view.get(lengths);
+            view.get(ints);
+            buffer.position(buffer.position() + (lengths.length + ints.length) * 4);
+            readStrings(lengths);
+
+            Jarg jarg = new Jarg(readString(), readString());
+            readCommand(jarg);
+            Table[] tables = new Table[readInt()];
+            if (tables.length != commands) {
+                throw new IllegalArgumentException("Invalid snapshot: " + tables.length + " indexes of " + commands + " commands");
+            }
+            for (int i = 0; i < tables.length; ++i) {
+                Table table = new Table(readInt(), readInt());
+                for (int j = 0; j < table.slots.length; ++j) {
+                    table.slots[j] = readInt();
+                    table.names[j] = readString();
+                    table.hashes[j] = readInt();
+                    table.values[j] = readInt();
+                }
+                tables[i] = table;
+            }
+            jarg.restore(new SpecSnapshot(tables));
+            return jarg;
+        }
+
+        /**
+         * Decode the strings from the array of the buffer, or from a copy of the bytes of a direct buffer.
+         */
+        private void readStrings(int[] lengths) {
+            int total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            byte[] bytes;
+            int offset;
+            if (buffer.hasArray()) {
+                if (buffer.remaining() < total) {
+                    throw new BufferUnderflowException();
+                }
+                bytes = buffer.array();
+                offset = buffer.arrayOffset() + buffer.position();
+            } else {
+                bytes = new byte[total];
+                buffer.get(bytes);
+                offset = 0;
+            }
+            strings = new String[lengths.length];
+            for (int i = 0; i < lengths.length; ++i) {
+                strings[i] = new String(bytes, offset, lengths[i], UTF_8);
+                offset += lengths[i];
+            }
+        }
+
+        /**
+         * Read the command after its name and summary.
+         */
+        private void readCommand(JCommand command) {
+            ++commands;
+            command.synopsis = readString();
+            command.description = readString();
+            if (command instanceof Jarg) {
+                Jarg jarg = (Jarg) command;
+                int flags = readInt();
+                int sections = readInt();
+                for (int i = 0; i < sections; ++i) {
+                    jarg.addSection(readString(), readString());
+                }
+                jarg.restore((flags & AUTO_HELP) != 0, (flags & AUTO_COMPLETE) != 0, (flags & EXPAND_ARG_FILES) != 0);
+            }
+            String[] aliases = readArray(readInt());
+            if (aliases.length > 0) {
+                command.aliases(aliases);
+            }
+
+            int count = readInt();
+            for (int i = 0; i < count; ++i) {
+                command.addOption(readOption());
+            }
+            count = readInt();
+            for (int i = 0; i < count; ++i) {
+                JParameter parameter = command.addParameter(readString(), (readInt() & REQUIRED) != 0);
+                parameter.restore(readString(), readList(), readConstraint());
+            }
+            count = readInt();
+            for (int i = 0; i < count; ++i) {
+                command.exclusive(readArray(readInt()));
+            }
+            count = readInt();
+            for (int i = 0; i < count; ++i) {
+                JCommand subcommand = new JCommand(readString(), readString(), command);
+                command.addCommand(subcommand);
+                readCommand(subcommand);
+            }
+        }
+
+        private JOption readOption() {
+            int id = readInt();
+            if (id < options.size()) {
+                return options.get(id);
+            }
+            String[] longOptions = readArray(readInt());
+            String[] shortOptions = readArray(readInt());
+            String[] names = readArray(readInt());
+            String description = readString();
+            int flags = readInt();
+            JOption option = new JOption(longOptions, shortOptions, names, description, (flags & HAS_VALUE) != 0);
+            option.restore(readString(), readString(), (flags & INTERACTIVE) != 0, readString(),
+                    readList(), readConstraint(), readList());
+            options.add(option);
+            return option;
+        }
+
+        private ValueConstraint readConstraint() {
+            ValueConstraint constraint = ValueConstraint.NONE;
+            int range = readInt();
+            if (range == LONG_RANGE) {
+                constraint = constraint.range(readLong(), readLong());
+            } else if (range == DOUBLE_RANGE) {
+                constraint = constraint.range(Double.longBitsToDouble(readLong()), Double.longBitsToDouble(readLong()));
+            }
+            String pattern = readString();
+            if (pattern != null) {
+                constraint = constraint.pattern(pattern);
+            }
+            int choices = readInt();
+            if (choices >= 0) {
+                constraint = constraint.choices(Collections.unmodifiableList(Arrays.asList(readArray(choices))));
+            }
+            return constraint;
+        }
+
+        private List<String> readList() {
+            int count = readInt();
+            if (count == 0) {
+                return Collections.emptyList();
+            }
+            return Collections.unmodifiableList(Arrays.asList(readArray(count)));
+        }
+
+        private String[] readArray(int count) {
+            String[] array = new String[count];
+            for (int i = 0; i < count; ++i) {
+                array[i] = readString();
+            }
+            return array;
+        }
+
+        private String readString() {
+            int id = ints[next++];
+            return id < 0 ? null : strings[id];
+        }
+
+        private long readLong() {
+            long high = ints[next++];
+            return high << 32 | ints[next++] & 0xFFFFFFFFL;
+        }
+
+        private int readInt() {
+            return ints[next++];
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package cn.har01d.tool.jarg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Find the names nearest to a misspelled name, by the Levenshtein distance.
+ * <p>
+ * The names are stored in a BK-tree: the children of a node are keyed by their distance to the node,
+ * so by the triangle inequality a search only visits the children whose key is within the maximal distance
+ * of the distance to the node. The tree is immutable after construction.
+ */
+final class Suggester {
+
+    private static final int MAX_DISTANCE = 2;
+
+    private Node root;
+
+    Suggester(Iterable<String> names) {
+        for (String name : names) {
+            add(name);
+        }
+    }
+
+    private void add(String name) {
+        if (root == null) {
+            root = new Node(name);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(name, node.name);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(name));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Get the nearest names, the nearer first.
+     *
+     * @param name  the misspelled name
+     * @param limit the maximal number of names
+     * @return the names
+     */
+    List<String> suggest(String name, int limit) {
+        int max = maxDistance(name);
+        if (root == null || max == 0) {
+            return Collections.emptyList();
+        }
+
+        final List<Match> matches = new ArrayList<Match>();
+        List<Node> stack = new ArrayList<Node>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            int distance = distance(name, node.name);
+            if (distance <= max) {
+                matches.add(new Match(node.name, distance));
+            }
+            for (int i = 0; i < node.size; ++i) {
+                if (Math.abs(node.distances[i] - distance) <= max) {
+                    stack.add(node.children[i]);
+                }
+            }
+        }
+
+        Collections.sort(matches, new Comparator<Match>() {
+            @Override
+            public int compare(Match a, Match b) {
+                return a.distance != b.distance ? a.distance - b.distance : a.name.compareTo(b.name);
+            }
+        });
+        List<String> names = new ArrayList<String>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; ++i) {
+            names.add(matches.get(i).name);
+        }
+        return names;
+    }
+
+    /**
+     * The allowed distance grows with the length without the leading dashes,
+     * so a name of one character, such as "-x", has no suggestion.
+     */
+    private static int maxDistance(String name) {
+        int start = 0;
+        while (start < name.length() && name.charAt(start) == '-') {
+            ++start;
+        }
+        return Math.min(MAX_DISTANCE, (name.length() - start + 1) / 3);
+    }
+
+    /**
+     * The Levenshtein distance of the two strings.
+     */
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); ++j) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); ++i) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); ++j) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] row = previous;
+            previous = current;
+            current = row;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Node {
+        final String name;
+        int[] distances = new int[0];
+        Node[] children = new Node[0];
+        int size;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < size; ++i) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (size == children.length) {
+                distances = Arrays.copyOf(distances, Math.max(4, size * 2));
+                children = Arrays.copyOf(children, Math.max(4, size * 2));
+            }
+            distances[size] = distance;
+            children[size++] = child;
+        }
+    }
+
+    private static final class Match {
+        final String name;
+        final int distance;
+
+        Match(String name, int distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+    }
+
+}
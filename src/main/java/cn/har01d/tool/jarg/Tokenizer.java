@@ -0,0 +1,174 @@
+package cn.har01d.tool.jarg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split a command line to arguments like a POSIX shell.
+ * <p>
+ * Arguments are separated by white spaces. Characters in single quotes are kept as is,
+ * in double quotes a backslash only escapes '"', '\\', '$' and '`'.
+ * Outside of quotes a backslash escapes any character.
+ */
+public final class Tokenizer {
+
+    /**
+     * The line is complete.
+     */
+    static final int COMPLETE = 0;
+    /**
+     * The line ends in a quoted string, the next line continues the string after a newline.
+     */
+    static final int OPEN_QUOTE = 1;
+    /**
+     * The line ends with a backslash, the next line continues the line without the backslash.
+     */
+    static final int LINE_CONTINUATION = 2;
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Check if a line read from a terminal or a script needs the next line, like a POSIX shell.
+     *
+     * @param line the line read so far, without the last newline
+     * @return {@link #COMPLETE}, {@link #OPEN_QUOTE} or {@link #LINE_CONTINUATION}
+     */
+    static int continuation(CharSequence line) {
+        char quote = 0;
+        int length = line.length();
+        for (int i = 0; i < length; ++i) {
+            char c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                }
+            } else if (c == '\\') {
+                if (i + 1 == length) {
+                    return LINE_CONTINUATION;
+                }
+                ++i;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            }
+        }
+        return quote == 0 ? COMPLETE : OPEN_QUOTE;
+    }
+
+    /**
+     * Split the command line.
+     *
+     * @param line the command line
+     * @return the arguments
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    public static String[] split(CharSequence line) {
+        List<String> args = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (isWhitespace(line.charAt(i))) {
+                ++i;
+                continue;
+            }
+            sb.setLength(0);
+            i = token(line, i, length, sb, true);
+            args.add(sb.toString());
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * Remove the quotes and the escapes of one token, a white space outside of quotes is kept
+     * instead of ending the token.
+     *
+     * @param token the token
+     * @return the argument
+     * @throws ParseException with code {@link ParseException#INVALID_COMMAND_LINE} if a quote is not closed
+     */
+    static String unquote(CharSequence token) {
+        StringBuilder sb = new StringBuilder(token.length());
+        token(token, 0, token.length(), sb, false);
+        return sb.toString();
+    }
+
+    /**
+     * Check if the character separates the arguments, the same as {@link Character#isWhitespace(int)}.
+     *
+     * @param c the character or code point
+     * @return true if it is a white space
+     */
+    static boolean isWhitespace(int c) {
+        return Character.isWhitespace(c);
+    }
+
+    /**
+     * Append the content of the token which starts at the index.
+     *
+     * @param split end the token at a white space outside of quotes or not
+     * @return the index after the token
+     */
+    private static int token(CharSequence line, int start, int length, StringBuilder sb, boolean split) {
+        int i = start;
+        for (; i < length; ++i) {
+            char c = line.charAt(i);
+            if (c == '\'') {
+                int end = indexOf(line, '\'', i + 1);
+                if (end < 0) {
+                    throw new ParseException(ParseException.INVALID_COMMAND_LINE, "Unterminated quote: " + line);
+                }
+                sb.append(line, i + 1, end);
+                i = end;
+            } else if (c == '"') {
+                i = doubleQuoted(line, i + 1, sb);
+            } else if (c == '\\') {
+                if (i + 1 < length) {
+                    sb.append(line.charAt(++i));
+                }
+            } else if (split && isWhitespace(c)) {
+                break;
+            } else {
+                sb.append(c);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Append the content of a double quoted string.
+     *
+     * @return the index of the closing quote
+     */
+    private static int doubleQuoted(CharSequence line, int start, StringBuilder sb) {
+        for (int i = start; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(i + 1);
+                if (next == '"' || next == '\\' || next == '$' || next == '`') {
+                    c = next;
+                    ++i;
+                }
+            }
+            sb.append(c);
+        }
+        throw new ParseException(ParseException.INVALID_COMMAND_LINE, "Unterminated quote: " + line);
+    }
+
+    private static int indexOf(CharSequence s, char c, int start) {
+        for (int i = start; i < s.length(); ++i) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
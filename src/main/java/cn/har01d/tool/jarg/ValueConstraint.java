@@ -0,0 +1,113 @@
+package cn.har01d.tool.jarg;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The constraints of the values of an option or a parameter: a numeric range, a pattern and a set of choices.
+ * <p>
+ * A constraint is immutable, a change of the option creates a new one, so a compiled <code>JSpec</code>
+ * keeps the constraints it was compiled with. The pattern is compiled and the choices are hashed once.
+ */
+final class ValueConstraint {
+
+    static final ValueConstraint NONE = new ValueConstraint(null, null, null, null, null);
+
+    /**
+     * The bounds of the range, <code>Long</code>s for an integral range.
+     */
+    private final Number min;
+    private final Number max;
+    private final Pattern pattern;
+    private final List<String> choices;
+    private final NameTable choiceIndex;
+
+    private ValueConstraint(Number min, Number max, Pattern pattern, List<String> choices, NameTable choiceIndex) {
+        this.min = min;
+        this.max = max;
+        this.pattern = pattern;
+        this.choices = choices;
+        this.choiceIndex = choiceIndex;
+    }
+
+    ValueConstraint range(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Invalid range: [" + min + ", " + max + "]");
+        }
+        return new ValueConstraint(min, max, pattern, choices, choiceIndex);
+    }
+
+    ValueConstraint range(double min, double max) {
+        if (!(min <= max)) {
+            throw new IllegalArgumentException("Invalid range: [" + min + ", " + max + "]");
+        }
+        return new ValueConstraint(min, max, pattern, choices, choiceIndex);
+    }
+
+    ValueConstraint pattern(String regex) {
+        return new ValueConstraint(min, max, Pattern.compile(regex), choices, choiceIndex);
+    }
+
+    ValueConstraint choices(List<String> choices) {
+        NameTable index = new NameTable(choices.size());
+        for (int i = 0; i < choices.size(); ++i) {
+            index.add(choices.get(i), i);
+        }
+        return new ValueConstraint(min, max, pattern, choices, index);
+    }
+
+    Number getMin() {
+        return min;
+    }
+
+    Number getMax() {
+        return max;
+    }
+
+    Pattern getPattern() {
+        return pattern;
+    }
+
+    List<String> getChoices() {
+        return choices;
+    }
+
+    boolean isEmpty() {
+        return this == NONE;
+    }
+
+    /**
+     * Check the value.
+     *
+     * @param name  the name of the option or the parameter, for the message
+     * @param value the value
+     * @return the message of the violation, or null if the value is valid
+     */
+    String check(String name, String value) {
+        if (choiceIndex != null && choiceIndex.get(value) < 0) {
+            return "Value of " + name + " must be one of " + choices + ": " + value;
+        }
+        if (pattern != null && !pattern.matcher(value).matches()) {
+            return "Value of " + name + " does not match " + pattern.pattern() + ": " + value;
+        }
+        if (min != null) {
+            boolean inRange;
+            try {
+                if (min instanceof Long) {
+                    long number = Long.parseLong(value.trim());
+                    inRange = number >= min.longValue() && number <= max.longValue();
+                } else {
+                    double number = Double.parseDouble(value.trim());
+                    inRange = number >= min.doubleValue() && number <= max.doubleValue();
+                }
+            } catch (NumberFormatException e) {
+                return "Invalid value for " + name + ": " + value;
+            }
+            if (!inRange) {
+                return "Value of " + name + " is out of range [" + min + ", " + max + "]: " + value;
+            }
+        }
+        return null;
+    }
+
+}
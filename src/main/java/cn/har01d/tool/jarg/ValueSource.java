@@ -0,0 +1,131 @@
+package cn.har01d.tool.jarg;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A source of option values which are not given in the arguments, such as the environment variables or a config file.
+ * <p>
+ * The values are read once when the source is created. An option is looked up by its key, the long name without dashes
+ * qualified by the command names, such as "level" for "--level" and "cluster.context" for "--context" of the command
+ * "cluster". The environment variable of the key is upper case with "_" for "-" and ".", such as "TOOL_CLUSTER_CONTEXT".
+ */
+public final class ValueSource {
+
+    private final String name;
+    private final Map<String, String> values;
+    private final String prefix;
+    private final boolean upperCase;
+
+    private ValueSource(String name, Map<String, String> values, String prefix, boolean upperCase) {
+        this.name = name;
+        this.values = values;
+        this.prefix = prefix == null ? "" : prefix;
+        this.upperCase = upperCase;
+    }
+
+    /**
+     * Read the values from the environment variables, such as "TOOL_LEVEL" for the prefix "TOOL_".
+     *
+     * @param prefix the prefix of the variable names
+     * @return the <code>ValueSource</code>
+     */
+    public static ValueSource environment(String prefix) {
+        return new ValueSource("environment", System.getenv(), prefix, true);
+    }
+
+    /**
+     * Read the values from the system properties, such as "tool.level" for the prefix "tool.".
+     *
+     * @param prefix the prefix of the property names
+     * @return the <code>ValueSource</code>
+     */
+    public static ValueSource systemProperties(String prefix) {
+        return new ValueSource("system properties", toMap(System.getProperties()), prefix, false);
+    }
+
+    /**
+     * Read the values from a properties file in UTF-8, the lines are "key=value" or "key: value".
+     *
+     * @param file the properties file
+     * @return the <code>ValueSource</code>
+     * @throws IOException if the file cannot be read
+     */
+    public static ValueSource properties(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(new InputStreamReader(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+        return new ValueSource(file.getPath(), toMap(properties), null, false);
+    }
+
+    /**
+     * Read the values from the key-value pairs.
+     *
+     * @param name   the source name
+     * @param values the values by key
+     * @return the <code>ValueSource</code>
+     */
+    public static ValueSource of(String name, Map<String, String> values) {
+        return new ValueSource(name, Collections.unmodifiableMap(new HashMap<String, String>(values)), null, false);
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> map = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the values are read from the environment variables of this JVM.
+     *
+     * @return true if created by {@link #environment(String)}
+     */
+    public boolean isEnvironment() {
+        return upperCase;
+    }
+
+    Map<String, String> getValues() {
+        return values;
+    }
+
+    /**
+     * Get the name of the key in this source.
+     *
+     * @param key the option key, such as "cluster.context"
+     * @return the name, such as "TOOL_CLUSTER_CONTEXT"
+     */
+    String nameOf(String key) {
+        if (!upperCase) {
+            return prefix + key;
+        }
+        StringBuilder sb = new StringBuilder(prefix.length() + key.length()).append(prefix);
+        for (int i = 0; i < key.length(); ++i) {
+            char c = key.charAt(i);
+            sb.append(c == '-' || c == '.' ? '_' : Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
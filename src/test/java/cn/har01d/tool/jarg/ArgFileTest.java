@@ -0,0 +1,123 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArgFileTest {
+
+    private final List<File> files = new ArrayList<File>();
+
+    @Before
+    public void setUp() {
+        files.clear();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static JSpec spec() {
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--file|-f", "The file");
+        jarg.addOption("--verbose|-v", "Verbose", false);
+        jarg.expandArgFiles();
+        return jarg.compile();
+    }
+
+    @Test
+    public void expandsQuotedAndUnicodeWhitespaceTokens() throws IOException {
+        String content = "--file 'a b'\n"
+                + "# not a comment\n"
+                + "\"c\\\"d\"\u3000e\u2003f\r\n"
+                + "'\u3000x\u3000' \\\u3000y\n"
+                + "caf\u00e9\u00a0bar \u4e2d\u6587";
+        File file = write(content);
+
+        ParseResult result = spec().parse(new String[]{"-v", "@" + file.getPath(), "last"});
+
+        String[] expected = Tokenizer.split(content);
+        assertEquals("a b", result.getValue("file"));
+        assertTrue(result.isPresent("verbose"));
+        List<String> arguments = new ArrayList<String>(Arrays.asList(expected).subList(2, expected.length));
+        arguments.add("last");
+        assertEquals(arguments, new ArrayList<String>(result.getArguments()));
+        assertArrayEquals(new String[]{"#", "not", "a", "comment", "c\"d", "e", "f", "\u3000x\u3000", "\u3000y",
+                "caf\u00e9\u00a0bar", "\u4e2d\u6587"}, arguments.subList(0, arguments.size() - 1).toArray());
+    }
+
+    @Test
+    public void keepsArgumentsWithoutExpansion() throws IOException {
+        File file = write("-v");
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--verbose|-v", "Verbose", false);
+
+        ParseResult result = jarg.compile().parse(new String[]{"@" + file.getPath()});
+
+        assertEquals(Arrays.asList("@" + file.getPath()), result.getArguments());
+    }
+
+    @Test
+    public void reportsMissingFile() {
+        try {
+            spec().parse(new String[]{"@does-not-exist.args"});
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_ARG_FILE, e.getCode());
+        }
+    }
+
+    @Test
+    public void reportsUnterminatedQuote() throws IOException {
+        File file = write("--file 'a\u3000b");
+        try {
+            spec().parse(new String[]{"@" + file.getPath()});
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_COMMAND_LINE, e.getCode());
+            assertEquals(file.getPath(), e.getData());
+        }
+    }
+
+    @Test
+    public void expandsWithJargParse() throws IOException {
+        File file = write("-f\u3000'x y'\u2003z");
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--file|-f", "The file");
+        jarg.expandArgFiles();
+
+        jarg.parse(new String[]{"@" + file.getPath()});
+
+        assertEquals("x y", jarg.getValue("file"));
+        assertEquals(Arrays.asList("z"), jarg.getArguments());
+    }
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("jarg", ".args");
+        files.add(file);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+}
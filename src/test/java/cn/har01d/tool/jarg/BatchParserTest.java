@@ -0,0 +1,126 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BatchParserTest {
+
+    @Test
+    public void deliversResultsInInputOrder() {
+        List<String[]> lines = new ArrayList<String[]>();
+        for (int i = 0; i < 1000; ++i) {
+            lines.add(new String[]{"run", "-c", String.valueOf(i % 101), "job" + i});
+        }
+        List<BatchResult> results = new BatchParser(Fixtures.createJarg().compile(), 4).chunkSize(7).parse(lines);
+
+        assertEquals(1000, results.size());
+        for (int i = 0; i < 1000; ++i) {
+            BatchResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            assertTrue(result.isSuccess());
+            assertEquals(i % 101, result.getResult().getIntValue("count"));
+            assertEquals("job" + i, result.getResult().getArgument("job"));
+        }
+    }
+
+    @Test
+    public void matchesSingleParse() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--password|-p", "The password").interactive();
+        jarg.findCommand("run").getOption("count").range(0, 100);
+        JSpec spec = jarg.compile();
+        List<String[]> lines = Arrays.asList(
+                new String[]{"-p"},
+                new String[]{"-p", "secret"},
+                new String[]{"--unknown"},
+                new String[]{"run", "-c", "101", "job"},
+                new String[]{"run"},
+                new String[]{"run", "-c"},
+                new String[]{"run", "job"});
+
+        List<BatchResult> results = new BatchParser(spec, 2).parse(lines);
+
+        for (int i = 0; i < lines.size(); ++i) {
+            BatchResult result = results.get(i);
+            int code = 0;
+            ParseResult expected = null;
+            try {
+                expected = spec.parse(lines.get(i), false);
+            } catch (ParseException e) {
+                code = e.getCode();
+            }
+            assertEquals(Arrays.toString(lines.get(i)), code, result.getErrorCode());
+            assertEquals(code == 0, result.isSuccess());
+            if (expected != null) {
+                assertEquals(expected.getValue("password"), result.getResult().getValue("password"));
+                assertEquals(expected.getArguments(), result.getResult().getArguments());
+            }
+        }
+    }
+
+    @Test
+    public void interactiveOptionWithoutValueFails() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--password|-p", "The password").interactive();
+        BatchResult result = new BatchParser(jarg.compile(), 1).parse(Arrays.<String[]>asList(new String[]{"-p"})).get(0);
+
+        assertFalse(result.isSuccess());
+        assertNull(result.getResult());
+        assertEquals(ParseException.CONSOLE_ACCESS, result.getErrorCode());
+    }
+
+    @Test
+    public void parsesFileWithLineNumbers() throws IOException {
+        File file = File.createTempFile("jarg", ".txt");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write("run -c 2 a\n\nrun 'b c'\nrun -c 'x\n".getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+
+            List<BatchResult> results = new BatchParser(Fixtures.createJarg().compile(), 2).parse(file, "UTF-8");
+
+            assertEquals(3, results.size());
+            assertEquals(1, results.get(0).getIndex());
+            assertEquals("a", results.get(0).getResult().getArgument("job"));
+            assertEquals(2, results.get(0).getResult().getIntValue("count"));
+            assertEquals(3, results.get(1).getIndex());
+            assertEquals("b c", results.get(1).getResult().getArgument("job"));
+            assertEquals(4, results.get(2).getIndex());
+            assertNull(results.get(2).getArgs());
+            assertEquals(ParseException.INVALID_COMMAND_LINE, results.get(2).getErrorCode());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void notifiesListeners() {
+        ParseStatistics statistics = new ParseStatistics();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--password|-p", "The password").interactive();
+        jarg.addParseListener(statistics);
+        List<String[]> lines = Arrays.asList(new String[]{"run", "a"}, new String[]{"--bad"}, new String[]{"-p"});
+
+        new BatchParser(jarg.compile(), 2).parse(lines);
+
+        assertEquals(3, statistics.getParses());
+        assertEquals(1, statistics.getErrors(ParseException.UNKNOWN_OPTION));
+        assertEquals(1, statistics.getErrors(ParseException.CONSOLE_ACCESS));
+    }
+
+}
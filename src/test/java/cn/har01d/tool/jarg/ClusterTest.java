@@ -0,0 +1,109 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClusterTest {
+
+    @Test
+    public void splitsTheCluster() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--extract|-x", "Extract", false);
+        jarg.addOption("--gzip|-z", "Gzip", false);
+        ParseResult result = jarg.compile().parse(new String[]{"-xvn", "app.tar"});
+
+        assertTrue(result.isPresent("extract"));
+        assertTrue(result.isPresent("verbose"));
+        assertFalse(result.isPresent("gzip"));
+        assertEquals("app.tar", result.getValue("name"));
+        assertEquals(0, result.getArgumentSize());
+    }
+
+    @Test
+    public void takesTheRestOfTheClusterAsTheValue() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--extract|-x", "Extract", false);
+        jarg.addOption("--gzip|-z", "Gzip", false);
+        JSpec spec = jarg.compile();
+
+        assertEquals("app.tar", spec.parse(new String[]{"-xznapp.tar"}).getValue("name"));
+        assertEquals("=x", spec.parse(new String[]{"-n=x"}).getValue("name"));
+        assertEquals(Arrays.asList("a", "b"), spec.parse(new String[]{"-na", "-n", "b"}).getStringValues("name"));
+    }
+
+    @Test
+    public void attachesTheValueOfAShortOption() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"run", "-c8", "all"});
+
+        assertEquals("8", result.getValue("count"));
+        assertEquals(Arrays.asList("all"), result.getArguments());
+    }
+
+    @Test
+    public void usesTheShortOptionsOfTheParents() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"run", "-vc4", "job"});
+
+        assertTrue(result.isPresent("verbose"));
+        assertEquals("4", result.getValue("count"));
+    }
+
+    @Test
+    public void matchesTheOptionNameFirst() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--level|-n1", "The level");
+        ParseResult result = jarg.compile().parse(new String[]{"-n1", "9", "-n2"});
+
+        assertEquals("9", result.getValue("level"));
+        assertEquals("2", result.getValue("name"));
+    }
+
+    @Test
+    public void rejectsAnUnknownShortOption() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--extract|-x", "Extract", false);
+        JSpec spec = jarg.compile();
+        try {
+            spec.parse(new String[]{"-xqv"}, false);
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.UNKNOWN_OPTION, e.getCode());
+            assertEquals("Unknown option: -q in -xqv", e.getMessage());
+        }
+
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "-qx");
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "-cx");
+    }
+
+    @Test
+    public void requiresTheValueOfTheLastOption() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--extract|-x", "Extract", false);
+        JSpec spec = jarg.compile();
+
+        Fixtures.assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "-xvn");
+        Fixtures.assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "-xn", "--", "app.tar");
+    }
+
+    @Test
+    public void matchesTheSeparateOptions() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--extract|-x", "Extract", false);
+        jarg.addOption("--gzip|-z", "Gzip", false);
+        JSpec spec = jarg.compile();
+        ParseResult cluster = spec.parse(new String[]{"-zvxn", "a.tgz", "run", "-c2", "job"});
+        ParseResult separate = spec.parse(new String[]{"-z", "-v", "-x", "-n", "a.tgz", "run", "-c", "2", "job"});
+
+        for (String name : new String[]{"extract", "verbose", "gzip", "name", "count"}) {
+            assertEquals(name, separate.isPresent(name), cluster.isPresent(name));
+            assertEquals(name, separate.getValue(name), cluster.getValue(name));
+        }
+        assertEquals(separate.getCommandPath(), cluster.getCommandPath());
+    }
+
+}
@@ -0,0 +1,123 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CommandLineTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String[] LINES = {
+            "--file=a\u3000b c\u2003d",
+            "--file x\u3000y",
+            "\"x\"\u000bb",
+            "  --file  'a b'  \"c \\\"d\\\"\"  e\\ f  ",
+            "--file=\"\u4e2d \u6587\" \u00e9t\u00e9 caf\u00e9\u00a0bar",
+            "a\u2028b\u2029c\u205fd\u1680e\u001cf",
+            "'\u3000' \\\u3000 x",
+            "-- --file '' \"\"",
+            "\ud83d\ude00 --file=\ud83d\ude00",
+    };
+
+    private static JSpec spec() {
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--file|-f", "The file");
+        return jarg.compile();
+    }
+
+    @Test
+    public void splitsOnJavaWhitespace() {
+        assertArrayEquals(new String[]{"--file=a", "b", "c", "d"}, Tokenizer.split("--file=a\u3000b c\u2003d"));
+        assertArrayEquals(new String[]{"x", "b"}, Tokenizer.split("\"x\"\u000bb"));
+        assertArrayEquals(new String[]{"\u3000", "\u3000", "x"}, Tokenizer.split("'\u3000' \\\u3000 x"));
+        assertArrayEquals(new String[]{"caf\u00e9\u00a0bar"}, Tokenizer.split("caf\u00e9\u00a0bar"));
+    }
+
+    @Test
+    public void sameResultForStringsCharactersAndBytes() {
+        JSpec spec = spec();
+        for (String line : LINES) {
+            ParseResult strings = spec.parse(Tokenizer.split(line));
+            ParseResult chars = spec.parse(new StringBuilder(line));
+            ParseResult bytes = spec.parse(ByteBuffer.wrap(line.getBytes(UTF_8)));
+            ParseResult direct = spec.parse(direct(line));
+
+            for (ParseResult result : Arrays.asList(chars, bytes, direct)) {
+                assertEquals(line, strings.getValue("file"), result.getValue("file"));
+                assertEquals(line, strings.getArguments(), new ArrayList<String>(result.getArguments()));
+            }
+        }
+    }
+
+    @Test
+    public void keepsUnicodeWhitespaceTokens() {
+        ParseResult result = spec().parse(ByteBuffer.wrap("--file=a\u3000b c\u2003d".getBytes(UTF_8)));
+
+        assertEquals("a", result.getValue("file"));
+        assertEquals(Arrays.asList("b", "c", "d"), new ArrayList<String>(result.getArguments()));
+    }
+
+    @Test
+    public void decodesQuotedTokensWithoutSplittingThem() {
+        ParseResult result = spec().parse(ByteBuffer.wrap("-f '\u3000x y' \"a\u2003b\"".getBytes(UTF_8)));
+
+        assertEquals("\u3000x y", result.getValue("file"));
+        assertEquals(Arrays.asList("a\u2003b"), new ArrayList<String>(result.getArguments()));
+    }
+
+    @Test
+    public void rejectsUnterminatedQuotes() {
+        JSpec spec = spec();
+        for (String line : new String[]{"'abc", "--file \"abc", "a 'b\u3000c"}) {
+            try {
+                Tokenizer.split(line);
+                fail(line);
+            } catch (ParseException e) {
+                assertEquals(ParseException.INVALID_COMMAND_LINE, e.getCode());
+            }
+            try {
+                spec.parse(new StringBuilder(line));
+                fail(line);
+            } catch (ParseException e) {
+                assertEquals(ParseException.INVALID_COMMAND_LINE, e.getCode());
+            }
+            try {
+                spec.parse(ByteBuffer.wrap(line.getBytes(UTF_8)));
+                fail(line);
+            } catch (ParseException e) {
+                assertEquals(ParseException.INVALID_COMMAND_LINE, e.getCode());
+            }
+        }
+    }
+
+    @Test
+    public void readsFromThePositionOfTheBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap("skip -f x y".getBytes(UTF_8));
+        buffer.position(5);
+        ParseResult result = spec().parse(buffer);
+
+        assertEquals("x", result.getValue("file"));
+        assertEquals(Arrays.asList("y"), new ArrayList<String>(result.getArguments()));
+        assertEquals(5, buffer.position());
+    }
+
+    /**
+     * A direct buffer, which is read by absolute gets only.
+     */
+    private static ByteBuffer direct(String line) {
+        byte[] bytes = line.getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+}
@@ -0,0 +1,85 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompletionTest {
+
+    @Test
+    public void completesTheOptions() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--version", "Print the version", false);
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("--verbose", "--version"), spec.complete(new String[]{"--ver"}));
+        assertEquals(Arrays.asList("--count", "--name", "--verbose", "--version"), spec.complete(new String[]{"run", "--"}));
+        assertEquals(Collections.<String>emptyList(), spec.complete(new String[]{"--count"}));
+    }
+
+    @Test
+    public void completesTheCommands() {
+        JSpec spec = Fixtures.createJarg().compile();
+
+        assertEquals(Arrays.asList("run"), spec.complete(new String[]{"r"}));
+        assertEquals(Arrays.asList("cl", "cluster", "run"), spec.complete(new String[]{""}));
+        assertEquals(Arrays.asList("cl", "cluster"), spec.complete(new String[]{"-v", "c"}));
+        assertEquals(Arrays.asList("no", "node", "nodes"), spec.complete(new String[]{"cl", "-c", "prod", "n"}));
+    }
+
+    @Test
+    public void completesTheOptionValues() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.getOption("name").completions("json", "yaml", "yml");
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("yaml", "yml"), spec.complete(new String[]{"--name", "y"}));
+        assertEquals(Arrays.asList("json"), spec.complete(new String[]{"run", "-n", "j"}));
+        assertEquals(Arrays.asList("--name=yaml", "--name=yml"), spec.complete(new String[]{"--name=y"}));
+        assertEquals(Arrays.asList("cl", "cluster", "run"), spec.complete(new String[]{"--name", "json", ""}));
+    }
+
+    @Test
+    public void completesTheParametersByPosition() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.findCommand("run");
+        run.getParameters().get(0).completions("build", "deploy");
+        run.addParameter("target").completions("dev", "prod");
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("build", "deploy"), spec.complete(new String[]{"run", ""}));
+        assertEquals(Arrays.asList("prod"), spec.complete(new String[]{"run", "-c", "1", "build", "p"}));
+        assertEquals(Collections.<String>emptyList(), spec.complete(new String[]{"run", "build", "dev", ""}));
+    }
+
+    @Test
+    public void doesNotCompleteOptionsAfterDoubleDash() {
+        assertEquals(Collections.<String>emptyList(), Fixtures.createJarg().compile().complete(new String[]{"run", "--", "--c"}));
+    }
+
+    @Test
+    public void printsTheCompletionScripts() throws UnsupportedEncodingException {
+        Jarg jarg = new Jarg("tool");
+        for (String shell : new String[]{"bash", "zsh"}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            jarg.printCompletionScript(shell, new PrintStream(bytes, true, "UTF-8"));
+            String script = bytes.toString("UTF-8");
+
+            assertTrue(script, script.contains("__complete"));
+            assertTrue(script, script.contains("tool"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnsupportedShell() {
+        new Jarg("tool").printCompletionScript("fish", System.out);
+    }
+
+}
@@ -0,0 +1,191 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConstraintTest {
+
+    private enum Format {
+        json, yaml
+    }
+
+    @Test
+    public void acceptsTheValidValues() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--port|-p", "The port").range(1, 65535);
+        jarg.getOption("name").pattern("[a-z][a-z0-9-]*");
+        jarg.findCommand("run").getOption("count").range(1, 10);
+        ParseResult result = jarg.compile().parse(new String[]{"-p", "8080", "-n", "web-1", "run", "-c", "3", "build"});
+
+        assertEquals(Integer.valueOf(8080), result.getValue("port", Integer.class));
+        assertEquals(3, result.getIntValue("count"));
+        assertEquals("build", result.getArgument("job"));
+    }
+
+    @Test
+    public void checksTheRange() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--port|-p", "The port").range(1, 65535);
+        jarg.addOption("--ratio", "The ratio").range(0.0, 1.0);
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("Value of option --port is out of range [1, 65535]: 0"), violations(spec, "-p", "0"));
+        Fixtures.assertCode(ParseException.CONSTRAINT_VIOLATION, spec, "--port", "65536");
+        Fixtures.assertCode(ParseException.CONSTRAINT_VIOLATION, spec, "--port", "x");
+        Fixtures.assertCode(ParseException.CONSTRAINT_VIOLATION, spec, "--ratio", "1.5");
+        spec.parse(new String[]{"--port", "1", "--ratio", "1"});
+    }
+
+    @Test
+    public void checksEveryValue() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--port|-p", "The port").range(1, 65535);
+        JSpec spec = jarg.compile();
+
+        Fixtures.assertCode(ParseException.CONSTRAINT_VIOLATION, spec, "-p", "80", "-p", "0");
+        spec.parse(new String[]{"-p", "80", "-p", "443"});
+    }
+
+    @Test
+    public void checksThePatternAndTheChoices() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.getOption("name").pattern("[a-z][a-z0-9-]*");
+        jarg.addOption("--format|-f", "The format").choices((Object[]) Format.values());
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("Value of option --name does not match [a-z][a-z0-9-]*: Web"), violations(spec, "-n", "Web"));
+        assertEquals(Arrays.asList("Value of option --format must be one of [json, yaml]: xml"), violations(spec, "-f", "xml"));
+    }
+
+    @Test
+    public void checksTheRequiredOptions() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--user|-u", "The user");
+        jarg.addOption("--password", "The password").requires("user");
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("Option --password requires --user"), violations(spec, "--password", "secret"));
+        spec.parse(new String[]{"--user", "admin"});
+    }
+
+    @Test
+    public void acceptsARequiredOptionFromASource() {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("user", "admin");
+        Jarg jarg = Fixtures.createJarg().addSource(ValueSource.of("config", values));
+        jarg.addOption("--user|-u", "The user");
+        jarg.addOption("--password", "The password").requires("user");
+
+        jarg.compile().parse(new String[]{"--password", "secret"});
+    }
+
+    @Test
+    public void checksTheExclusiveGroups() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--json", "JSON output", false);
+        jarg.addOption("--yaml", "YAML output", false);
+        jarg.addOption("--table", "Table output", false);
+        jarg.exclusive("json", "--yaml", "table");
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("Options --json, --table cannot be used together"), violations(spec, "--table", "--json"));
+        assertEquals(Arrays.asList("Options --json, --yaml cannot be used together"), violations(spec, "run", "--json", "--yaml", "a"));
+        spec.parse(new String[]{"--yaml"});
+    }
+
+    @Test
+    public void checksTheParameters() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.findCommand("run");
+        run.getParameters().get(0).pattern("\\w+");
+        run.addParameter("times").range(1, 10);
+        JSpec spec = jarg.compile();
+
+        assertEquals(Arrays.asList("Value of argument job does not match \\w+: a-b", "Value of argument times is out of range [1, 10]: 11"),
+                violations(spec, "run", "a-b", "11"));
+        spec.parse(new String[]{"run", "a"});
+    }
+
+    @Test
+    public void reportsAllTheViolations() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--port|-p", "The port").range(1, 65535);
+        jarg.addOption("--format|-f", "The format").choices((Object[]) Format.values());
+        jarg.addOption("--json", "JSON output", false);
+        jarg.addOption("--yaml", "YAML output", false);
+        jarg.exclusive("json", "yaml");
+        ParseException e = parseError(jarg.compile(), "-p", "0", "-f", "xml", "--json", "--yaml");
+
+        assertEquals(3, e.getViolations().size());
+        assertEquals(e.getViolations().get(0) + JCommand.LINE_SEPARATOR + e.getViolations().get(1)
+                + JCommand.LINE_SEPARATOR + e.getViolations().get(2), e.getMessage());
+    }
+
+    @Test
+    public void skipsTheChecksForHelp() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--port|-p", "The port").range(1, 65535);
+        jarg.autoHelp();
+
+        assertTrue(jarg.compile().parse(new String[]{"--help", "-p", "0"}).isPresent("help"));
+    }
+
+    @Test
+    public void rejectsAnUnknownOptionWhenCompiled() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addCommand("stop", "Stop a job").exclusive("verbose", "force");
+        try {
+            jarg.compile();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown option in exclusive group of stop: force", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsTheInvalidConstraints() {
+        Jarg jarg = Fixtures.createJarg();
+        try {
+            jarg.addOption("--port", "The port").range(10, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid range: [10, 1]", e.getMessage());
+        }
+        try {
+            jarg.getOption("verbose").pattern("y");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Option --verbose doesn't have value", e.getMessage());
+        }
+        try {
+            jarg.exclusive("verbose");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("An exclusive group needs two options at least", e.getMessage());
+        }
+    }
+
+    private static List<String> violations(JSpec spec, String... args) {
+        ParseException e = parseError(spec, args);
+        assertEquals(ParseException.CONSTRAINT_VIOLATION, e.getCode());
+        return e.getViolations();
+    }
+
+    private static ParseException parseError(JSpec spec, String... args) {
+        try {
+            spec.parse(args, false);
+        } catch (ParseException e) {
+            return e;
+        }
+        throw new AssertionError("Expected a ParseException");
+    }
+
+}
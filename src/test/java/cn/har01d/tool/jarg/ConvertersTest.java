@@ -0,0 +1,123 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ConvertersTest {
+
+    private static final class Color {
+        final String name;
+
+        Color(String name) {
+            this.name = name;
+        }
+    }
+
+    @Test
+    public void convertsTheDefaultTypes() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--unit", "The unit");
+        jarg.addOption("--price", "The price");
+        jarg.addOption("--file", "The file");
+        jarg.addOption("--address", "The address");
+        jarg.parse(new String[]{"--unit", "seconds", "--price", "1.50", "--file", "a.txt", "--address", "[::1]:80", "run", "-c", "8080", "job"});
+
+        assertEquals(Integer.valueOf(8080), jarg.getCommand().getValue("count", Integer.class));
+        assertEquals(Long.valueOf(8080), jarg.getCommand().getValue("count", Long.class));
+        assertEquals(TimeUnit.SECONDS, jarg.getValue("unit", TimeUnit.class));
+        assertEquals(new BigDecimal("1.50"), jarg.getValue("price", BigDecimal.class));
+        assertEquals(new File("a.txt"), jarg.getValue("file", File.class));
+        assertEquals(InetSocketAddress.createUnresolved("::1", 80), jarg.getValue("address", InetSocketAddress.class));
+        assertNull(jarg.getValue("verbose", Integer.class));
+    }
+
+    @Test
+    public void usesTheRegisteredConverter() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addConverter(Color.class, new Converter<Color>() {
+            @Override
+            public Color convert(String value) {
+                return new Color(value.toUpperCase());
+            }
+        });
+        jarg.parse(new String[]{"--name", "red"});
+
+        assertEquals("RED", jarg.getValue("name", Color.class).name);
+        assertEquals("BLUE", jarg.compile().parse(new String[]{"--name", "blue"}).getValue("name", Color.class).name);
+    }
+
+    @Test
+    public void memoizesTheConvertedValue() {
+        final AtomicInteger calls = new AtomicInteger();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addConverter(Color.class, new Converter<Color>() {
+            @Override
+            public Color convert(String value) {
+                calls.incrementAndGet();
+                return new Color(value);
+            }
+        });
+        jarg.parse(new String[]{"--name", "red"});
+
+        Color color = jarg.getValue("name", Color.class);
+        assertSame(color, jarg.getValue("name", Color.class));
+        assertEquals(1, calls.get());
+
+        jarg.parse(new String[]{"--name", "green"});
+        assertEquals("green", jarg.getValue("name", Color.class).name);
+        assertEquals(2, calls.get());
+
+        ParseResult result = jarg.compile().parse(new String[]{"--name", "blue"});
+        assertSame(result.getValue("name", Color.class), result.getValue("name", Color.class));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void convertsEveryValue() {
+        JSpec spec = Fixtures.createJarg().compile();
+
+        assertEquals(Arrays.asList(1L, 2L), spec.parse(new String[]{"run", "-c", "1", "-c", "2", "job"}).getValues("count", Long.class));
+        assertEquals(Arrays.asList(1L, 2L, 3L), spec.parse(new String[]{"run", "-c", "1,2,3", "job"}).getValues("count", Long.class));
+    }
+
+    @Test
+    public void reportsAnInvalidValueOfTheOption() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--unit", "The unit");
+        jarg.parse(new String[]{"--name", "http", "--unit", "weeks"});
+
+        for (String name : new String[]{"name", "unit"}) {
+            try {
+                if ("name".equals(name)) {
+                    jarg.getValue(name, Integer.class);
+                } else {
+                    jarg.getValue(name, TimeUnit.class);
+                }
+                fail(name);
+            } catch (ParseException e) {
+                assertEquals(ParseException.INVALID_VALUE, e.getCode());
+                assertSame(jarg.getOption(name), e.getData());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsATypeWithoutConverter() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[]{"--name", "red"});
+
+        jarg.getValue("name", Color.class);
+    }
+
+}
@@ -0,0 +1,108 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DiagnosticsTest {
+
+    private final Logger logger = Logger.getLogger("cn.har01d.tool.jarg");
+    private final List<LogRecord> records = new ArrayList<LogRecord>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private boolean useParentHandlers;
+
+    @Before
+    public void setUp() {
+        useParentHandlers = logger.getUseParentHandlers();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+    }
+
+    @After
+    public void tearDown() {
+        logger.removeHandler(handler);
+        logger.setUseParentHandlers(useParentHandlers);
+    }
+
+    @Test
+    public void usesTheDefaultConvertersUntilOneIsAdded() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[]{"run", "-c", "2", "job"});
+        JSpec spec = jarg.compile();
+
+        assertNull(jarg.getCustomConverters());
+        assertSame(Converters.getDefault(), spec.getConverters());
+        assertEquals(Integer.valueOf(2), spec.parse(new String[]{"run", "-c", "2", "job"}).getValue("count", Integer.class));
+        assertNull(jarg.getCustomConverters());
+
+        jarg.addConverter(StringBuilder.class, new Converter<StringBuilder>() {
+            @Override
+            public StringBuilder convert(String value) {
+                return new StringBuilder(value);
+            }
+        });
+
+        assertTrue(jarg.compile().getConverters() != Converters.getDefault());
+    }
+
+    @Test
+    public void logsAnUnsupportedOptionName() {
+        new Jarg("tool").addOption("--file|file", "The file");
+
+        assertEquals(1, records.size());
+        assertEquals(Level.WARNING, records.get(0).getLevel());
+        assertEquals("Unsupported option: file", records.get(0).getMessage());
+    }
+
+    @Test
+    public void logsAndIgnoresAFailedListener() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(new ParseListener() {
+            @Override
+            public void parsed(ParseMetrics metrics) {
+                throw new IllegalStateException("broken");
+            }
+        });
+
+        assertEquals("x", jarg.compile().parse(new String[]{"--name", "x"}).getValue("name"));
+        assertEquals(1, records.size());
+        assertEquals("Parse listener failed", records.get(0).getMessage());
+        assertEquals("broken", records.get(0).getThrown().getMessage());
+    }
+
+    @Test
+    public void doesNotLogTheDebugMessagesByDefault() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[0]);
+
+        jarg.isPresent("unknown");
+
+        assertEquals(Diagnostics.DEBUG, !records.isEmpty());
+    }
+
+}
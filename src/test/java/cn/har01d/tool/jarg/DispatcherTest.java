@@ -0,0 +1,155 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DispatcherTest {
+
+    /**
+     * Add the handlers to the commands of the shared <code>Jarg</code>, and a stop command which always fails.
+     */
+    private static Jarg createJarg() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.autoHelp();
+        jarg.findCommand("run").setHandler(new JCommand.Handler() {
+            @Override
+            public int execute(ParseResult result) {
+                return result.getIntValue("count");
+            }
+        });
+        JCommand stop = jarg.addCommand("stop", "Stop a job");
+        stop.addOption("--force|-f", "Force", false);
+        stop.addParameter("job", true);
+        stop.setHandler(new JCommand.Handler() {
+            @Override
+            public int execute(ParseResult result) throws Exception {
+                throw new IllegalStateException("Cannot stop " + result.getArgument("job"));
+            }
+        });
+        return jarg;
+    }
+
+    @Test
+    public void runsTheHandlerOfTheCommand() throws UnsupportedEncodingException {
+        Output output = new Output();
+        Dispatcher dispatcher = new Dispatcher(createJarg());
+        try {
+            assertEquals(7, dispatcher.execute(new String[]{"run", "-c", "7", "job"}, output.out, output.err));
+        } finally {
+            dispatcher.close();
+        }
+        assertEquals("", output.err());
+    }
+
+    @Test
+    public void runsTheHandlerOfTheNearestParent() {
+        Jarg jarg = new Jarg("tool");
+        final AtomicInteger count = new AtomicInteger();
+        JCommand cluster = jarg.addCommand("cluster", "Manage clusters");
+        cluster.addCommand("node", "Manage nodes");
+        cluster.setHandler(new JCommand.Handler() {
+            @Override
+            public int execute(ParseResult result) {
+                count.incrementAndGet();
+                return "cluster node".equals(result.getCommandPath()) ? 3 : 4;
+            }
+        });
+        Output output = new Output();
+
+        assertEquals(3, new Dispatcher(jarg).execute(new String[]{"cluster", "node"}, output.out, output.err));
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void reportsAMissingCommand() throws UnsupportedEncodingException {
+        Output output = new Output();
+
+        assertEquals(1, new Dispatcher(createJarg()).execute(new String[0], output.out, output.err));
+        assertFalse(output.err().isEmpty());
+        assertTrue(output.out().contains("run"));
+        assertTrue(output.out().contains("stop"));
+    }
+
+    @Test
+    public void reportsTheErrorOfTheHandler() throws UnsupportedEncodingException {
+        Output output = new Output();
+
+        assertEquals(1, new Dispatcher(createJarg()).execute(new String[]{"stop", "web"}, output.out, output.err));
+        assertEquals("Cannot stop web", output.err().trim());
+    }
+
+    @Test
+    public void printsTheHelpWithoutRunningTheHandler() throws UnsupportedEncodingException {
+        Output output = new Output();
+
+        assertEquals(0, new Dispatcher(createJarg()).execute(new String[]{"run", "--help"}, output.out, output.err));
+        assertTrue(output.out().contains("--count"));
+    }
+
+    @Test
+    public void reportsConcurrentErrorsForTheirOwnCommand() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Dispatcher dispatcher = new Dispatcher(createJarg(), executor);
+        try {
+            List<Output> outputs = new ArrayList<Output>();
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 400; ++i) {
+                Output output = new Output();
+                outputs.add(output);
+                String[] args = i % 2 == 0 ? new String[]{"run", "--bad"} : new String[]{"stop", "--bad"};
+                futures.add(dispatcher.submit(args, output.out, output.err));
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                assertEquals(1, futures.get(i).get().intValue());
+                String out = outputs.get(i).out();
+                assertEquals(out, i % 2 == 0, out.contains("--count"));
+                assertEquals(out, i % 2 != 0, out.contains("--force"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void executesWithTheJarg() throws Exception {
+        assertEquals(2, createJarg().execute(new String[]{"run", "--count=2", "job"}));
+    }
+
+    private static final class Output {
+        final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        final PrintStream out;
+        final PrintStream err;
+
+        Output() {
+            try {
+                out = new PrintStream(outBytes, true, "UTF-8");
+                err = new PrintStream(errBytes, true, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String out() throws UnsupportedEncodingException {
+            return outBytes.toString("UTF-8");
+        }
+
+        String err() throws UnsupportedEncodingException {
+            return errBytes.toString("UTF-8");
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ErrorOutputTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void carriesTheFailingCommand() {
+        Jarg jarg = Fixtures.createJarg();
+        ParseException e = parseError(jarg.compile(), "run", "--fats");
+
+        assertEquals(ParseException.UNKNOWN_OPTION, e.getCode());
+        assertSame(jarg.getCommands().get(0), e.getCommand());
+        assertSame(jarg, parseError(jarg.compile(), "--fats").getCommand());
+    }
+
+    @Test
+    public void listsTheOptionsOfTheFailingCommand() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        ParseException e = parseError(jarg.compile(), "run", "--fats");
+
+        jarg.printError(e, null, stream(out), stream(err));
+
+        assertTrue(err.toString("UTF-8").startsWith("Unknown option: --fats"));
+        assertTrue(out.toString("UTF-8").contains("--count"));
+        assertFalse(out.toString("UTF-8").contains("--name"));
+    }
+
+    @Test
+    public void ignoresTheLastParseOfTheJarg() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        JSpec spec = jarg.compile();
+        jarg.parse(new String[]{"run", "job"});
+        ParseException e = parseError(spec, "--fats");
+
+        jarg.printError(e, null, stream(out), stream(err));
+
+        assertTrue(out.toString("UTF-8").contains("--name"));
+        assertFalse(out.toString("UTF-8").contains("--count"));
+    }
+
+    @Test
+    public void printsTheUsageOfTheFailingCommand() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        ParseException e = parseError(jarg.compile(), "run");
+
+        jarg.printError(e, null, stream(out), stream(err));
+
+        assertEquals(ParseException.ARG_REQUIRED, e.getCode());
+        assertTrue(out.toString("UTF-8").startsWith("Usage: run [OPTION]..."));
+    }
+
+    @Test
+    public void usesTheCommandOfTheResultForOtherErrors() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        ParseResult result = jarg.compile().parse(new String[]{"run", "job"});
+
+        jarg.printError(new ParseException(ParseException.UNKNOWN_OPTION, "Unknown option: --late"), result, stream(out), stream(err));
+
+        assertTrue(out.toString("UTF-8").contains("--count"));
+    }
+
+    @Test
+    public void keepsTheLegacyOutputOfJargParse() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        try {
+            jarg.parse(new String[]{"run", "--fats"});
+            fail();
+        } catch (ParseException e) {
+            assertSame(jarg.getCommands().get(0), e.getCommand());
+            jarg.printError(e, stream(out), stream(err));
+        }
+
+        assertTrue(out.toString("UTF-8").contains("--count"));
+    }
+
+    private static ParseException parseError(JSpec spec, String... args) {
+        try {
+            spec.parse(args, false);
+        } catch (ParseException e) {
+            return e;
+        }
+        throw new AssertionError("Expected a ParseException");
+    }
+
+    private static PrintStream stream(ByteArrayOutputStream bytes) {
+        try {
+            return new PrintStream(bytes, true, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package cn.har01d.tool.jarg;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The <code>Jarg</code> shared by the tests, a test adds the options and the commands it is about.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Create the <code>Jarg</code> of the commands:
+     * <pre>
+     * tool [-v] [-n NAME]
+     * tool run [-c COUNT] JOB
+     * tool cluster|cl [-c CONTEXT] node|nodes|no drain NAME
+     * tool cluster|cl [-c CONTEXT] node|nodes|no list [-a]
+     * </pre>
+     */
+    static Jarg createJarg() {
+        Jarg jarg = new Jarg("tool", "A tool");
+        jarg.addOption("--verbose|-v", "Verbose output", false);
+        jarg.addOption("--name|-n", "The name").defaultValue("world");
+        JCommand run = jarg.addCommand("run", "Run a job");
+        run.addOption("--count|-c", "The count").defaultValue(1);
+        run.addParameter("job", true);
+        JCommand cluster = jarg.addCommand("cluster", "Manage clusters").aliases("cl");
+        cluster.addOption("--context|-c", "The cluster context");
+        JCommand node = cluster.addCommand("node", "Manage nodes").aliases("nodes", "no");
+        node.addCommand("drain", "Drain a node").addParameter("name", true);
+        node.addCommand("list", "List the nodes").addOption("--all|-a", "All nodes", false);
+        return jarg;
+    }
+
+    static void assertCode(int code, JSpec spec, String... args) {
+        try {
+            spec.parse(args, false);
+            fail("Expected a ParseException for " + Arrays.toString(args));
+        } catch (ParseException e) {
+            assertEquals(e.getMessage(), code, e.getCode());
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HelpTest {
+
+    @Test
+    public void rendersTheHelpOnce() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.getCommands().get(0);
+
+        assertSame(jarg.getHelp(), jarg.getHelp());
+        assertSame(run.getHelp(), run.getHelp());
+    }
+
+    @Test
+    public void rendersAgainAfterAChange() {
+        Jarg jarg = Fixtures.createJarg();
+        String help = jarg.getHelp();
+
+        jarg.addOption("--output|-o", "The output");
+
+        assertNotSame(help, jarg.getHelp());
+        assertTrue(jarg.getHelp().contains("--output"));
+    }
+
+    @Test
+    public void rendersAgainAfterAnOptionChanges() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.getCommands().get(0);
+        assertTrue(run.getHelp().contains("--count=COUNT"));
+
+        run.getOption("count").setLabel("N");
+
+        assertTrue(run.getHelp().contains("--count=N"));
+        assertFalse(run.getHelp().contains("--count=COUNT"));
+    }
+
+    @Test
+    public void rendersTheCommandAgainAfterTheParentChanges() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.getCommands().get(0);
+        assertFalse(run.getHelp().contains("--output"));
+
+        jarg.addOption("--output|-o", "The output");
+
+        assertTrue(run.getHelp().contains("--output"));
+    }
+
+    @Test
+    public void rendersAgainAfterACommandIsAdded() {
+        Jarg jarg = Fixtures.createJarg();
+        assertFalse(jarg.getHelp().contains("stop"));
+
+        jarg.addCommand("stop", "Stop a job");
+
+        assertTrue(jarg.getHelp().contains("stop"));
+    }
+
+    @Test
+    public void rendersAgainAfterTheDescriptionChanges() {
+        Jarg jarg = Fixtures.createJarg();
+        JCommand run = jarg.getCommands().get(0);
+        run.getHelp();
+
+        run.setDescription("Run the job until it ends.");
+
+        assertTrue(run.getHelp().contains("Run the job until it ends."));
+    }
+
+    @Test
+    public void printsTheRenderedHelp() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        jarg.printHelp(new PrintStream(bytes, true, "UTF-8"));
+
+        assertEquals(jarg.getHelp(), bytes.toString("UTF-8"));
+    }
+
+}
@@ -0,0 +1,155 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static cn.har01d.tool.jarg.Fixtures.assertCode;
+import static cn.har01d.tool.jarg.Fixtures.createJarg;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSpecTest {
+
+    @Test
+    public void parsesOptionsCommandAndParameters() {
+        JSpec spec = createJarg().compile();
+        ParseResult result = spec.parse(new String[]{"-v", "--name", "jarg", "run", "-c", "3", "build", "extra"});
+
+        assertTrue(result.isPresent("verbose"));
+        assertEquals("jarg", result.getValue("name"));
+        assertTrue(result.isCommand("run"));
+        assertEquals("run", result.getCommandName());
+        assertEquals(3, result.getIntValue("count"));
+        assertEquals("build", result.getArgument("job"));
+        assertEquals(Arrays.asList("build", "extra"), result.getArguments());
+    }
+
+    @Test
+    public void usesDefaultValues() {
+        ParseResult result = createJarg().compile().parse(new String[0]);
+
+        assertFalse(result.isPresent("verbose"));
+        assertFalse(result.isPresent("name"));
+        assertEquals("world", result.getValue("name"));
+        assertNull(result.getCommand());
+        assertEquals(0, result.getArgumentSize());
+    }
+
+    @Test
+    public void acceptsInlineValues() {
+        ParseResult result = createJarg().compile().parse(new String[]{"--name=a=b", "run", "--count=5", "job"});
+
+        assertEquals("a=b", result.getValue("name"));
+        assertEquals(5, result.getIntValue("count"));
+    }
+
+    @Test
+    public void resultsAreIndependent() {
+        JSpec spec = createJarg().compile();
+        ParseResult first = spec.parse(new String[]{"--name", "first"});
+        ParseResult second = spec.parse(new String[]{"--name", "second", "run", "job"});
+
+        assertNotSame(first, second);
+        assertEquals("first", first.getValue("name"));
+        assertNull(first.getCommand());
+        assertEquals("second", second.getValue("name"));
+        assertTrue(second.isCommand("run"));
+    }
+
+    @Test
+    public void specIsNotChangedByTheJarg() {
+        Jarg jarg = createJarg();
+        JSpec spec = jarg.compile();
+        jarg.addOption("--late", "Added after compiling");
+
+        try {
+            spec.parse(new String[]{"--late", "x"});
+            fail("The spec must not see the late option");
+        } catch (ParseException e) {
+            assertEquals(ParseException.UNKNOWN_OPTION, e.getCode());
+        }
+        assertEquals("x", jarg.compile().parse(new String[]{"--late", "x"}).getValue("late"));
+    }
+
+    @Test
+    public void specKeepsTheSeparators() {
+        Jarg jarg = createJarg();
+        JSpec spec = jarg.compile();
+        jarg.findCommand("run").getOption("count").setSeparators(":");
+
+        ParseResult result = spec.parse(new String[]{"run", "-c", "1,2", "job"});
+        assertEquals(Arrays.asList("1", "2"), result.getStringValues("count"));
+        assertArrayEquals(new int[]{1, 2}, result.getIntArray("count"));
+        assertArrayEquals(new long[]{1, 2}, result.getLongArray("count"));
+        assertEquals(Arrays.asList(1, 2), result.getIntValues("count"));
+
+        result = jarg.compile().parse(new String[]{"run", "-c", "1:2", "job"});
+        assertArrayEquals(new double[]{1, 2}, result.getDoubleArray("count"), 0);
+        assertEquals(Arrays.asList("1,2"), jarg.compile().parse(new String[]{"run", "-c", "1,2", "job"}).getStringValues("count"));
+    }
+
+    @Test
+    public void reportsErrorCodes() {
+        JSpec spec = createJarg().compile();
+        assertCode(ParseException.UNKNOWN_OPTION, spec, "--unknown");
+        assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "--name");
+        assertCode(ParseException.ARG_REQUIRED, spec, "run");
+    }
+
+    @Test
+    public void matchesJargParse() {
+        String[] args = {"-v", "run", "--count", "7", "deploy"};
+        Jarg jarg = createJarg();
+        jarg.parse(args);
+        ParseResult result = createJarg().compile().parse(args);
+
+        assertEquals(jarg.isPresent("verbose"), result.isPresent("verbose"));
+        assertEquals(jarg.getCommandName(), result.getCommandName());
+        assertEquals(jarg.getCommand().getIntValue("count"), result.getIntValue("count"));
+        assertEquals(jarg.getArguments(), result.getArguments());
+    }
+
+    @Test
+    public void parsesConcurrently() throws Exception {
+        final JSpec spec = createJarg().compile();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; ++t) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 2000; ++i) {
+                            String name = thread + "-" + i;
+                            ParseResult result = spec.parse(new String[]{"--name", name, "run", "-c", String.valueOf(i), "job"});
+                            if (!name.equals(result.getValue("name")) || result.getIntValue("count") != i) {
+                                return false;
+                            }
+                            spec.release(result);
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NestedCommandTest {
+
+    @Test
+    public void selectsTheNestedCommand() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"cluster", "-c", "prod", "node", "drain", "node-1"});
+
+        assertEquals("cluster node drain", result.getCommandPath());
+        assertEquals("drain", result.getCommandName());
+        assertTrue(result.isCommand("cluster"));
+        assertTrue(result.isCommand("node"));
+        assertTrue(result.isCommand("drain"));
+        assertFalse(result.isCommand("list"));
+        assertEquals("prod", result.getValue("context"));
+        assertEquals("node-1", result.getArgument("name"));
+    }
+
+    @Test
+    public void selectsTheCommandByAlias() {
+        Jarg jarg = Fixtures.createJarg();
+        ParseResult result = jarg.compile().parse(new String[]{"cl", "no", "list", "-a"});
+
+        assertEquals("cluster node list", result.getCommandPath());
+        assertTrue(result.isCommand("cl"));
+        assertTrue(result.isCommand("nodes"));
+        assertTrue(result.isPresent("all"));
+        assertSame(jarg.findCommand("cluster"), jarg.findCommand("cl"));
+        assertNull(jarg.findCommand("node"));
+    }
+
+    @Test
+    public void usesTheOptionsOfTheParents() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"cluster", "node", "list", "-v", "--context", "dev"});
+
+        assertTrue(result.isPresent("verbose"));
+        assertEquals("dev", result.getValue("context"));
+    }
+
+    @Test
+    public void doesNotUseTheOptionsOfTheChildren() {
+        JSpec spec = Fixtures.createJarg().compile();
+
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "--context", "prod", "cluster");
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "cluster", "node", "-a", "list");
+    }
+
+    @Test
+    public void stopsLookingUpCommandsAfterAnArgument() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"cluster", "x", "node"});
+
+        assertEquals("cluster", result.getCommandPath());
+        assertEquals(Arrays.asList("x", "node"), result.getArguments());
+    }
+
+    @Test
+    public void stopsAtTheLastCommandFound() {
+        ParseResult result = Fixtures.createJarg().compile().parse(new String[]{"cluster", "node"});
+
+        assertEquals("cluster node", result.getCommandPath());
+        assertSame(result.getCommand(), result.requireCommand());
+    }
+
+    @Test
+    public void matchesJargParse() {
+        String[] args = {"cl", "-c", "prod", "nodes", "drain", "n1"};
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(args);
+
+        assertEquals("cluster node drain", jarg.getCommandPath());
+        assertTrue(jarg.isCommand("cluster"));
+        assertEquals("prod", jarg.getValue("context"));
+        assertEquals("n1", jarg.getArgument("name"));
+    }
+
+}
@@ -0,0 +1,171 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OptionKeyTest {
+
+    @Test
+    public void readsTheTypedValues() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> port = jarg.addOption("--port|-p", "The port", Integer.class);
+        OptionKey<Boolean> verbose = jarg.addOption("--verbose|-v", "Verbose", Boolean.class);
+        OptionKey<Double> ratio = jarg.addOption("--ratio", "The ratio", Double.class);
+
+        ParseResult result = jarg.compile().parse(new String[]{"-p", "8080"});
+
+        assertEquals(Integer.valueOf(8080), result.getValue(port));
+        assertTrue(result.isPresent(port));
+        assertEquals(Boolean.FALSE, result.getValue(verbose));
+        assertFalse(result.isPresent(verbose));
+        assertNull(result.getValue(ratio));
+        assertEquals(Double.valueOf(0.5), result.getValue(ratio, 0.5));
+        assertEquals(Boolean.TRUE, jarg.compile().parse(new String[]{"-v"}).getValue(verbose));
+    }
+
+    @Test
+    public void readsTheSameValuesAsTheNames() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> port = jarg.addOption("--port|-p", "The port", Integer.class);
+        port.getOption().setSeparators(",");
+        ParseResult result = jarg.compile().parse(new String[]{"--port=80,443"});
+
+        assertEquals(Arrays.asList(80, 443), result.getValues(port));
+        assertEquals(result.getValues("port", Integer.class), result.getValues(port));
+        assertSame(result.getValues(port), result.getValues(port));
+    }
+
+    @Test
+    public void readsTheOptionsOfTheCommands() {
+        Jarg jarg = new Jarg("tool");
+        JCommand run = jarg.addCommand("run", "Run a job");
+        OptionKey<Long> count = run.addOption("--count|-c", "The count", Long.class);
+        OptionKey<Boolean> force = run.addOption("--force", "Force", boolean.class);
+
+        ParseResult result = jarg.compile().parse(new String[]{"run", "-c", "3", "--force"});
+        assertEquals(Long.valueOf(3), result.getValue(count));
+        assertEquals(Boolean.TRUE, result.getValue(force));
+
+        jarg.parse(new String[]{"run", "--count", "4"});
+        assertEquals(Long.valueOf(4), run.getValue(count));
+        assertTrue(run.isPresent(count));
+        assertEquals(Boolean.FALSE, run.getValue(force));
+        assertEquals(Collections.singletonList(4L), run.getValues(count));
+    }
+
+    @Test
+    public void resolvesTheIndexForEachSpec() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> port = jarg.addOption("--port|-p", "The port", Integer.class);
+        ParseResult first = jarg.compile().parse(new String[]{"-p", "1"});
+
+        jarg.addCommand("run", "Run a job").addOption("--count", "The count");
+        jarg.addOption("--host", "The host");
+        ParseResult second = jarg.compile().parse(new String[]{"--host", "h", "-p", "2"});
+
+        assertEquals(Integer.valueOf(2), second.getValue(port));
+        assertEquals(Integer.valueOf(1), first.getValue(port));
+        assertEquals(Integer.valueOf(2), second.getValue(port));
+    }
+
+    @Test
+    public void readsTheOptionOfAClonedCommand() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<String> out = jarg.addCommand("build", "Build").addOption("--out|-o", "The output", String.class);
+        jarg.cloneCommand("build", "rebuild", "Build again");
+        JSpec spec = jarg.compile();
+
+        ParseResult result = spec.parse(new String[]{"rebuild", "--out", "x"});
+        assertTrue(result.isPresent(out));
+        assertEquals("x", result.getValue(out));
+        assertEquals(result.getValue("out"), result.getValue(out));
+
+        result = spec.parse(new String[]{"build", "-o", "y"});
+        assertEquals("y", result.getValue(out));
+        assertFalse(spec.parse(new String[]{"rebuild"}).isPresent(out));
+    }
+
+    @Test
+    public void readsAnOptionAddedToSeveralCommands() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> level = jarg.addCommand("compress", "Compress").addOption("--level|-l", "The level", Integer.class);
+        JCommand pack = jarg.addCommand("pack", "Pack");
+        pack.addOption(level.getOption());
+        JSpec spec = jarg.compile();
+
+        ParseResult result = spec.parse(new String[]{"pack", "-l", "9"});
+        assertTrue(result.isPresent(level));
+        assertEquals(Integer.valueOf(9), result.getValue(level));
+        assertEquals(Collections.singletonList(9), result.getValues(level));
+        assertEquals(Integer.valueOf(1), spec.parse(new String[]{"pack"}).getValue(level, 1));
+        assertEquals(Integer.valueOf(3), spec.parse(new String[]{"compress", "-l", "3"}).getValue(level));
+    }
+
+    @Test
+    public void readsTheSourceOfTheValue() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> port = jarg.addOption("--port|-p", "The port", Integer.class);
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("port", "9090");
+        ValueSource source = ValueSource.of("config", values);
+        jarg.addSource(source);
+
+        ParseResult result = jarg.compile().parse(new String[0]);
+
+        assertEquals(Integer.valueOf(9090), result.getValue(port));
+        assertFalse(result.isPresent(port));
+        assertSame(source, result.getSource(port));
+    }
+
+    @Test
+    public void rejectsAnOptionOfAnotherJarg() {
+        OptionKey<Integer> port = new Jarg("other").addOption("--port", "The port", Integer.class);
+        ParseResult result = new Jarg("tool").compile().parse(new String[0]);
+        try {
+            result.getValue(port);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown option: --port", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsAnInvalidValue() {
+        Jarg jarg = new Jarg("tool");
+        OptionKey<Integer> port = jarg.addOption("--port", "The port", Integer.class);
+        ParseResult result = jarg.compile().parse(new String[]{"--port", "http"});
+        try {
+            result.getValue(port);
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_VALUE, e.getCode());
+        }
+    }
+
+    @Test
+    public void describesTheHandle() {
+        OptionKey<Integer> port = new Jarg("tool").addOption("--port|-p", "The port", Integer.class);
+
+        assertEquals("--port", port.getName());
+        assertEquals(Integer.class, port.getType());
+        assertEquals("--port: Integer", port.toString());
+        assertTrue(port.getOption().isHasValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANullType() {
+        new Jarg("tool").addOption("--port", "The port").key(null);
+    }
+
+}
@@ -0,0 +1,150 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParseStatisticsTest {
+
+    @Test
+    public void sendsTheMetricsOfEveryParse() {
+        final List<ParseMetrics> list = new ArrayList<ParseMetrics>();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(new ParseListener() {
+            @Override
+            public void parsed(ParseMetrics metrics) {
+                list.add(metrics);
+            }
+        });
+
+        jarg.compile().parse(new String[]{"-v", "run", "-c", "2", "--count=3", "build", "extra"});
+
+        assertEquals(1, list.size());
+        ParseMetrics metrics = list.get(0);
+        assertEquals(7, metrics.getTokens());
+        assertEquals(3, metrics.getOptions());
+        assertEquals(2, metrics.getArguments());
+        assertEquals("run", metrics.getCommand());
+        assertNull(metrics.getError());
+        assertEquals(0, metrics.getErrorCode());
+        assertTrue(metrics.getScanNanos() >= 0);
+        assertEquals(metrics.getTokenizeNanos() + metrics.getScanNanos() + metrics.getBindNanos()
+                + metrics.getPromptNanos() + metrics.getValidateNanos(), metrics.getTotalNanos());
+    }
+
+    @Test
+    public void sendsTheMetricsOfAFailedParse() {
+        final List<ParseMetrics> list = new ArrayList<ParseMetrics>();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(new ParseListener() {
+            @Override
+            public void parsed(ParseMetrics metrics) {
+                list.add(metrics);
+            }
+        });
+
+        ParseException error = null;
+        try {
+            jarg.compile().parse(new String[]{"run", "--unknown"});
+        } catch (ParseException e) {
+            error = e;
+        }
+
+        assertEquals(1, list.size());
+        assertSame(error, list.get(0).getError());
+        assertEquals(ParseException.UNKNOWN_OPTION, list.get(0).getErrorCode());
+        assertEquals("run", list.get(0).getCommand());
+    }
+
+    @Test
+    public void countsTheTokensOfACommandLine() {
+        ParseStatistics statistics = new ParseStatistics();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(statistics);
+
+        jarg.compile().parse("run 'a job' --count 2");
+
+        assertEquals(1, statistics.getParses());
+        assertEquals(4, statistics.getTokens());
+        assertEquals(1, statistics.getOptions());
+    }
+
+    @Test
+    public void addsUpTheParses() {
+        ParseStatistics statistics = new ParseStatistics();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(statistics);
+        JSpec spec = jarg.compile();
+
+        spec.parse(new String[]{"-v", "--name", "x"});
+        spec.parse(new String[]{"run", "build"});
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "--unknown");
+        Fixtures.assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "--name");
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "-x");
+
+        assertEquals(5, statistics.getParses());
+        assertEquals(8, statistics.getTokens());
+        assertEquals(3, statistics.getErrors());
+        assertEquals(2, statistics.getErrors(ParseException.UNKNOWN_OPTION));
+        assertEquals(1, statistics.getErrors(ParseException.OPTION_VAL_REQUIRED));
+        assertEquals(0, statistics.getErrors(ParseException.ARG_REQUIRED));
+        assertEquals(0, statistics.getErrors(-1));
+        assertEquals(0, statistics.getErrors(100));
+    }
+
+    @Test
+    public void addsUpTheParsesOfManyThreads() throws InterruptedException {
+        final ParseStatistics statistics = new ParseStatistics();
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addParseListener(statistics);
+        final JSpec spec = jarg.compile();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 250; ++j) {
+                        spec.parse(new String[]{"-v", "run", "build"});
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, statistics.getParses());
+        assertEquals(3000, statistics.getTokens());
+        assertEquals(1000, statistics.getOptions());
+    }
+
+    @Test
+    public void sendsTheMetricsOnlyToTheSpecsCompiledAfter() {
+        ParseStatistics statistics = new ParseStatistics();
+        Jarg jarg = Fixtures.createJarg();
+        JSpec spec = jarg.compile();
+
+        jarg.addParseListener(statistics);
+        spec.parse(new String[0]);
+        jarg.parse(new String[0]);
+
+        assertEquals(1, statistics.getParses());
+    }
+
+}
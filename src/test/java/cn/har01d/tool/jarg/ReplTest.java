@@ -0,0 +1,141 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final List<String> lines = new ArrayList<String>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private Repl createRepl() {
+        Jarg jarg = new Jarg("tool", "A tool");
+        jarg.autoHelp();
+        jarg.addOption("--verbose|-v", "Verbose output", false);
+        JCommand run = jarg.addCommand("run", "Run a job");
+        run.addOption("--count|-c", "The count");
+        run.addParameter("job", true);
+        return new Repl(jarg, new Repl.Handler() {
+            @Override
+            public void handle(ParseResult result, PrintStream out) {
+                lines.add(result.getArgument("job") + ":" + result.getValue("count"));
+            }
+        }).setPrompt("");
+    }
+
+    @Test
+    public void runsTheLinesUntilExit() throws IOException {
+        run(createRepl(), "run -c 2 a", "", "run b", "exit", "run c");
+
+        assertEquals(Arrays.asList("a:2", "b:null"), lines);
+    }
+
+    @Test
+    public void joinsContinuationLines() throws IOException {
+        run(createRepl(), "run -c 3 \\", "a", "run 'b", "c'");
+
+        assertEquals(Arrays.asList("a:3", "b\nc:null"), lines);
+    }
+
+    @Test
+    public void runsTheHistoryAgain() throws IOException {
+        Repl repl = createRepl();
+        run(repl, "run a", "run -c 1 b", "!!", "!1", "!9", "history");
+
+        assertEquals(Arrays.asList("a:null", "b:1", "b:1", "a:null"), lines);
+        assertEquals(Arrays.asList("run a", "run -c 1 b", "run -c 1 b", "run a", "history"), repl.getHistory());
+        assertTrue(err().contains("!9: event not found"));
+        assertTrue(out().contains("    5  history"));
+    }
+
+    @Test
+    public void keepsTheLastLinesOfTheHistory() throws IOException {
+        Repl repl = createRepl().setHistorySize(2);
+        run(repl, "run a", "run b", "run c", "!1", "!2");
+
+        assertEquals(Arrays.asList("run c", "run b"), repl.getHistory());
+        assertTrue(err().contains("!1: event not found"));
+    }
+
+    @Test
+    public void loadsAndAppendsTheHistoryFile() throws IOException {
+        File file = File.createTempFile("jarg", ".history");
+        try {
+            run(createRepl().setHistoryFile(file), "run a", "run 'b", "c'");
+            Repl repl = createRepl().setHistoryFile(file);
+            run(repl, "!1");
+
+            assertEquals(Arrays.asList("run a", "run a"), repl.getHistory());
+            assertEquals(Arrays.asList("a:null", "b\nc:null", "a:null"), lines);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void printsTheErrorAndGoesOn() throws IOException {
+        run(createRepl(), "run --bad", "run", "run a");
+
+        assertEquals(Arrays.asList("a:null"), lines);
+        assertTrue(err().startsWith("Unknown option: --bad" + LINE_SEPARATOR));
+        assertTrue(out().contains("Options: --help, --count=COUNT"));
+    }
+
+    /**
+     * The help of a command is the help printed by the command line, the --help of the parent and of the command.
+     */
+    @Test
+    public void printsTheHelpOfTheCommand() throws IOException {
+        run(createRepl(), "help run");
+
+        assertEquals("COMMAND\n"
+                + "    run  -  Run a job\n"
+                + "\n"
+                + "SYNOPSIS\n"
+                + "    run [OPTION]... JOB\n"
+                + "\n"
+                + "OPTIONS\n"
+                + "    Mandatory arguments to long options are mandatory for short options too.\n"
+                + "\n"
+                + "    --help\n"
+                + "        Show the help and exit\n"
+                + "    -v, --verbose\n"
+                + "        Verbose output\n"
+                + "    --help\n"
+                + "        Show the help and exit\n"
+                + "    -c, --count=COUNT\n"
+                + "        The count\n"
+                + "\n", out().replace(LINE_SEPARATOR, "\n"));
+    }
+
+    private void run(Repl repl, String... input) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : input) {
+            sb.append(line).append('\n');
+        }
+        repl.run(new StringReader(sb.toString()), new PrintStream(out, true, "UTF-8"), new PrintStream(err, true, "UTF-8"));
+    }
+
+    private String out() throws IOException {
+        return out.toString("UTF-8");
+    }
+
+    private String err() throws IOException {
+        return err.toString("UTF-8");
+    }
+
+}
@@ -0,0 +1,90 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResetTest {
+
+    @Test
+    public void clearsTheStateOfTheLastParse() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[]{"-v", "--name", "jarg", "run", "-c", "3", "job"});
+
+        jarg.reset();
+
+        assertFalse(jarg.isPresent("verbose"));
+        assertEquals("world", jarg.getValue("name"));
+        assertNull(jarg.getCommand());
+        assertEquals(Collections.<String>emptyList(), jarg.getArguments());
+    }
+
+    @Test
+    public void keepsTheArgumentsMutableAfterReset() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.reset();
+        jarg.getArguments().add("a");
+
+        jarg.parse(new String[]{"b"});
+        jarg.reset();
+        jarg.getArguments().add("c");
+
+        assertEquals(Arrays.asList("c"), jarg.getArguments());
+    }
+
+    @Test
+    public void parsesAgainWithoutTheOldValues() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[]{"-v", "run", "-c", "3", "job"});
+        jarg.parse(new String[]{"--name", "again"});
+
+        assertFalse(jarg.isPresent("verbose"));
+        assertEquals("again", jarg.getValue("name"));
+        assertNull(jarg.getCommand());
+        assertEquals(Collections.<String>emptyList(), jarg.getArguments());
+    }
+
+    @Test
+    public void seesChangesOfTheDefinitionBetweenParses() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.parse(new String[0]);
+
+        jarg.addOption("--late", "Added after the parse");
+        jarg.parse(new String[]{"--late", "x"});
+        assertEquals("x", jarg.getValue("late"));
+
+        jarg.getCommands().get(0).addOption("--deep", "Added to a command");
+        jarg.parse(new String[]{"run", "--deep", "y", "job"});
+        assertEquals("y", jarg.getCommand().getValue("deep"));
+    }
+
+    @Test
+    public void seesChangesOfASharedOption() {
+        JOption shared = new JOption("--level", "The level", true);
+        Jarg first = new Jarg("first");
+        first.addOption(shared);
+        Jarg second = new Jarg("second");
+        second.addOption(shared);
+        first.parse(new String[]{"--level", "1"});
+        second.parse(new String[]{"--level", "2"});
+
+        shared.range(0, 1);
+
+        try {
+            second.parse(new String[]{"--level", "2"});
+            fail("The range must apply to the second Jarg");
+        } catch (ParseException e) {
+            assertEquals(ParseException.CONSTRAINT_VIOLATION, e.getCode());
+        }
+        first.parse(new String[]{"--level", "1"});
+        assertTrue(first.isPresent("level"));
+    }
+
+}
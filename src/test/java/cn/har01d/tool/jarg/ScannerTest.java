@@ -0,0 +1,101 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScannerTest {
+
+    private static JSpec spec() {
+        Jarg jarg = new Jarg("tool");
+        jarg.addOption("--file|-f", "The file");
+        jarg.addOption("--verbose|-v", "Verbose", false);
+        jarg.addOption("--level", "The level");
+        return jarg.compile();
+    }
+
+    @Test
+    public void readsTheValueOfTheNextToken() {
+        ParseResult result = spec().parse(new String[]{"--file", "a.txt", "-f", "b.txt", "x"});
+
+        assertEquals(Arrays.asList("a.txt", "b.txt"), result.getStringValues("file"));
+        assertEquals(Arrays.asList("x"), result.getArguments());
+    }
+
+    @Test
+    public void readsTheInlineValueAfterTheFirstEquals() {
+        ParseResult result = spec().parse(new String[]{"--file=a=b", "--level=", "--verbose"});
+
+        assertEquals("a=b", result.getValue("file"));
+        assertEquals("", result.getValue("level"));
+        assertTrue(result.isPresent("verbose"));
+    }
+
+    @Test
+    public void takesAValueWhichLooksLikeAnOption() {
+        ParseResult result = spec().parse(new String[]{"--file", "-v"});
+
+        assertEquals("-v", result.getValue("file"));
+        assertFalse(result.isPresent("verbose"));
+    }
+
+    @Test
+    public void stopsReadingOptionsAfterDoubleDash() {
+        ParseResult result = spec().parse(new String[]{"-v", "--", "--file", "x", "--", "-v"});
+
+        assertTrue(result.isPresent("verbose"));
+        assertFalse(result.isPresent("file"));
+        assertEquals(Arrays.asList("--file", "x", "--", "-v"), result.getArguments());
+    }
+
+    @Test
+    public void keepsReadingOptionsAfterArguments() {
+        ParseResult result = spec().parse(new String[]{"a", "-v", "b", "--file", "c"});
+
+        assertTrue(result.isPresent("verbose"));
+        assertEquals("c", result.getValue("file"));
+        assertEquals(Arrays.asList("a", "b"), result.getArguments());
+    }
+
+    @Test
+    public void reportsAnOptionWithoutValue() {
+        JSpec spec = spec();
+        Fixtures.assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "--file");
+        Fixtures.assertCode(ParseException.OPTION_VAL_REQUIRED, spec, "--file", "--");
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "--fil=x");
+        Fixtures.assertCode(ParseException.UNKNOWN_OPTION, spec, "--verbose-mode");
+    }
+
+    @Test
+    public void parsesNoArguments() {
+        ParseResult result = spec().parse(new String[0]);
+
+        assertEquals(Collections.<String>emptyList(), result.getArguments());
+        assertFalse(result.isPresent("verbose"));
+    }
+
+    @Test
+    public void looksUpRangesOfCharacters() {
+        NameTable parent = new NameTable();
+        parent.add("file", 0);
+        NameTable table = new NameTable(parent, 20);
+        for (int i = 0; i < 20; ++i) {
+            assertTrue(table.add("name" + i, i + 1));
+        }
+        assertFalse(table.add("name3", 99));
+        assertFalse(table.add("file", 99));
+
+        assertEquals(20, table.size());
+        assertEquals(0, table.get("--file=a.txt", 2, 6));
+        assertEquals(4, table.get("--name3", 2, 7));
+        assertEquals(20, table.get("name19"));
+        assertEquals(-1, table.get("--name3x", 2, 8));
+        assertEquals(-1, table.get("--nam", 2, 5));
+    }
+
+}
@@ -0,0 +1,198 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+
+    private static final String[][] ARGS = {
+            {},
+            {"-v", "--name", "caf\u00e9"},
+            {"-vn", "x", "run", "build", "dev"},
+            {"cl", "-c", "prod", "node", "drain", "node-1"},
+            {"cluster", "nodes", "list", "-a", "--json"},
+            {"run", "--count=3", "--", "-x"},
+            {"--json", "--yaml"},
+            {"--level", "11"},
+            {"--password", "secret"},
+            {"-u", "admin", "--password", "secret", "--format", "xml"},
+            {"--unknown"},
+            {"--verbse"},
+            {"run"},
+            {"--name"},
+    };
+
+    /**
+     * Add every setting kept by a snapshot to the shared <code>Jarg</code>.
+     */
+    private static Jarg createJarg() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.setSynopsis("tool [OPTION]... COMMAND");
+        jarg.setDescription("Run the jobs of the clusters.");
+        jarg.addSection("Author", "Har01d");
+        jarg.autoHelp().autoComplete().expandArgFiles();
+        jarg.getOption("name").setLabel("NAME").setSeparators(",");
+        jarg.addOption("--level", "The level").range(1, 10);
+        jarg.addOption("--ratio", "The ratio").range(0.0, 1.0);
+        jarg.addOption("--format|-f", "The format").choices("json", "yaml").pattern("[a-z]+");
+        jarg.addOption("--user|-u", "The user");
+        jarg.addOption("--password", "The password").requires("user").interactive();
+        jarg.addOption("--json", "JSON output", false);
+        jarg.addOption("--yaml", "YAML output", false);
+        jarg.exclusive("json", "yaml");
+        JCommand run = jarg.findCommand("run");
+        run.getOption("count").completions("1", "2");
+        run.getParameters().get(0).completions("build", "deploy");
+        run.addParameter("target").choices("dev", "prod");
+        return jarg;
+    }
+
+    private static byte[] write(Jarg jarg) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jarg.writeSnapshot(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void parsesLikeTheOriginal() throws IOException {
+        Jarg jarg = createJarg();
+        Jarg loaded = Jarg.loadSnapshot(ByteBuffer.wrap(write(jarg)));
+
+        assertSameParses(jarg.compile(), loaded.compile());
+    }
+
+    @Test
+    public void rendersTheSameHelp() throws IOException {
+        Jarg jarg = createJarg();
+        Jarg loaded = Jarg.loadSnapshot(ByteBuffer.wrap(write(jarg)));
+
+        assertEquals(jarg.getHelp(), loaded.getHelp());
+        assertEquals(jarg.findCommand("cluster").getHelp(), loaded.findCommand("cl").getHelp());
+        assertEquals(jarg.compile().complete(new String[]{"run", ""}), loaded.compile().complete(new String[]{"run", ""}));
+        assertEquals(jarg.compile().complete(new String[]{"run", "-c", ""}), loaded.compile().complete(new String[]{"run", "-c", ""}));
+        assertTrue(loaded.isExpandArgFiles());
+    }
+
+    @Test
+    public void writesTheSameSnapshotAgain() throws IOException {
+        byte[] bytes = write(createJarg());
+
+        assertTrue(Arrays.equals(bytes, write(Jarg.loadSnapshot(ByteBuffer.wrap(bytes)))));
+    }
+
+    @Test
+    public void compilesAgainAfterAChange() throws IOException {
+        Jarg loaded = Jarg.loadSnapshot(ByteBuffer.wrap(write(createJarg())));
+        loaded.compile();
+
+        loaded.addOption("--output|-o", "The output");
+        loaded.findCommand("run").addOption("--force", "Force", false);
+        Jarg jarg = createJarg();
+        jarg.addOption("--output|-o", "The output");
+        jarg.findCommand("run").addOption("--force", "Force", false);
+
+        assertSameParses(jarg.compile(), loaded.compile());
+        assertEquals("out", loaded.compile().parse(new String[]{"run", "-o", "out", "--force", "build"}).getValue("output"));
+    }
+
+    @Test
+    public void loadsAStreamAndAFile() throws IOException {
+        byte[] bytes = write(createJarg());
+        assertEquals(createJarg().getHelp(), Jarg.loadSnapshot(new ByteArrayInputStream(bytes)).getHelp());
+
+        File file = File.createTempFile("jarg", ".snapshot");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            assertSameParses(createJarg().compile(), Jarg.loadSnapshot(file).compile());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void keepsThePositionOfTheBuffer() throws IOException {
+        byte[] bytes = write(createJarg());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 4);
+        buffer.putInt(42).put(bytes).position(4);
+
+        assertSameParses(createJarg().compile(), Jarg.loadSnapshot(buffer).compile());
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void rejectsAnInvalidSnapshot() throws IOException {
+        byte[] bytes = write(createJarg());
+
+        assertInvalid(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, "Not a Jarg snapshot");
+        assertInvalid(new byte[0], "Not a Jarg snapshot");
+        byte[] version = bytes.clone();
+        version[7] = 9;
+        assertInvalid(version, "Unsupported snapshot version: 9");
+        assertInvalid(Arrays.copyOf(bytes, 40), null);
+        assertInvalid(Arrays.copyOf(bytes, bytes.length - 1), null);
+        try {
+            Jarg.loadSnapshot((InputStream) null);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Snapshot not found", e.getMessage());
+        }
+    }
+
+    private static void assertInvalid(byte[] bytes, String message) {
+        try {
+            Jarg.loadSnapshot(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (IllegalArgumentException e) {
+            if (message != null) {
+                assertEquals(message, e.getMessage());
+            }
+        }
+    }
+
+    private static void assertSameParses(JSpec expected, JSpec actual) {
+        for (String[] args : ARGS) {
+            assertEquals(Arrays.toString(args), describe(expected, args), describe(actual, args));
+        }
+    }
+
+    /**
+     * Describe the parse by the command, the arguments and the values of every option name, or by the error.
+     */
+    private static List<String> describe(JSpec spec, String[] args) {
+        List<String> list = new ArrayList<String>();
+        try {
+            ParseResult result = spec.parse(args, false);
+            list.add(result.getCommandPath());
+            list.add(result.getArguments().toString());
+            for (String name : new String[]{"verbose", "name", "level", "format", "user", "json", "count", "context", "all"}) {
+                if (spec.indexOf(name, result.getScope()) > -1) {
+                    list.add(name + "=" + result.isPresent(name) + ":" + result.getStringValues(name));
+                }
+            }
+        } catch (ParseException e) {
+            list.add(e.getCode() + ": " + e.getMessage() + " " + e.getSuggestions() + " " + e.getViolations());
+        }
+        return list;
+    }
+
+}
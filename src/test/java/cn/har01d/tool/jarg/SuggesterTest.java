@@ -0,0 +1,140 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SuggesterTest {
+
+    @Test
+    public void suggestsTheNearestOptions() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--version", "Print the version", false);
+        ParseException e = parseError(jarg.compile(), "--verison");
+
+        assertEquals(ParseException.UNKNOWN_OPTION, e.getCode());
+        assertEquals(Arrays.asList("--version"), e.getSuggestions());
+        assertEquals(Arrays.asList("--verbose"), parseError(jarg.compile(), "--verbse").getSuggestions());
+    }
+
+    @Test
+    public void suggestsTheOptionsOfTheCommandAndItsParents() {
+        JSpec spec = Fixtures.createJarg().compile();
+
+        assertEquals(Arrays.asList("--count"), parseError(spec, "run", "--cont").getSuggestions());
+        assertEquals(Arrays.asList("--name"), parseError(spec, "run", "--nam=x").getSuggestions());
+        assertEquals(Collections.<String>emptyList(), parseError(spec, "--cont").getSuggestions());
+    }
+
+    @Test
+    public void suggestsTheNearestCommands() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addCommand("rerun", "Run a job again");
+        jarg.addCommand("status", "Show the status");
+        ParseResult result = jarg.compile().parse(new String[]{"rum"});
+        try {
+            result.requireCommand();
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.COMMAND_REQUIRED, e.getCode());
+            assertEquals(Arrays.asList("run"), e.getSuggestions());
+        }
+    }
+
+    @Test
+    public void printsTheSuggestions() throws UnsupportedEncodingException {
+        Jarg jarg = Fixtures.createJarg();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        jarg.printError(parseError(jarg.compile(), "--verbos"), null, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err, true, "UTF-8"));
+
+        assertTrue(err.toString("UTF-8").contains("Did you mean --verbose?"));
+    }
+
+    @Test
+    public void doesNotSuggestForShortNames() {
+        assertEquals(Collections.<String>emptyList(), parseError(Fixtures.createJarg().compile(), "-x").getSuggestions());
+    }
+
+    @Test
+    public void computesTheEditDistance() {
+        assertEquals(3, Suggester.distance("kitten", "sitting"));
+        assertEquals(0, Suggester.distance("run", "run"));
+        assertEquals(3, Suggester.distance("", "run"));
+        assertEquals(1, Suggester.distance("--verbos", "--verbose"));
+    }
+
+    @Test
+    public void findsTheSameNamesAsALinearScan() {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 500; ++i) {
+            names.add("--" + randomName(random));
+        }
+        Suggester suggester = new Suggester(names);
+
+        for (int i = 0; i < 200; ++i) {
+            String name = i % 2 == 0 ? "--" + randomName(random) : mutate(names.get(random.nextInt(names.size())), random);
+            assertEquals(name, linearScan(names, name, 3), suggester.suggest(name, 3));
+        }
+    }
+
+    private static List<String> linearScan(List<String> names, final String name, int limit) {
+        int start = 0;
+        while (start < name.length() && name.charAt(start) == '-') {
+            ++start;
+        }
+        int max = Math.min(2, (name.length() - start + 1) / 3);
+        List<String> matches = new ArrayList<String>();
+        for (String candidate : names) {
+            if (max > 0 && Suggester.distance(name, candidate) <= max && !matches.contains(candidate)) {
+                matches.add(candidate);
+            }
+        }
+        Collections.sort(matches, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int d = Suggester.distance(name, a) - Suggester.distance(name, b);
+                return d != 0 ? d : a.compareTo(b);
+            }
+        });
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static String randomName(Random random) {
+        char[] chars = new char[3 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = (char) ('a' + random.nextInt(6));
+        }
+        return new String(chars);
+    }
+
+    private static String mutate(String name, Random random) {
+        StringBuilder sb = new StringBuilder(name);
+        int index = 2 + random.nextInt(sb.length() - 2);
+        sb.setCharAt(index, (char) ('a' + random.nextInt(6)));
+        return sb.toString();
+    }
+
+    private static ParseException parseError(JSpec spec, String... args) {
+        try {
+            spec.parse(args, false);
+        } catch (ParseException e) {
+            return e;
+        }
+        throw new AssertionError("Expected a ParseException");
+    }
+
+}
@@ -0,0 +1,130 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ValueSourceTest {
+
+    private static ValueSource source(String name, String... pairs) {
+        Map<String, String> values = new HashMap<String, String>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            values.put(pairs[i], pairs[i + 1]);
+        }
+        return ValueSource.of(name, values);
+    }
+
+    @Test
+    public void readsTheValuesByKey() {
+        ValueSource source = source("config", "name", "debug", "run.count", "7");
+        Jarg jarg = Fixtures.createJarg().addSource(source);
+        ParseResult result = jarg.compile().parse(new String[]{"run", "job"});
+
+        assertEquals("debug", result.getValue("name"));
+        assertEquals("7", result.getValue("count"));
+        assertFalse(result.isPresent("name"));
+        assertSame(source, result.getSource("name"));
+        assertSame(source, result.getSource("count"));
+    }
+
+    @Test
+    public void prefersTheArguments() {
+        Jarg jarg = Fixtures.createJarg().addSource(source("config", "name", "debug"));
+        ParseResult result = jarg.compile().parse(new String[]{"--name", "warn"});
+
+        assertEquals("warn", result.getValue("name"));
+        assertTrue(result.isPresent("name"));
+        assertNull(result.getSource("name"));
+    }
+
+    @Test
+    public void prefersTheSourceAddedFirst() {
+        ValueSource first = source("first", "name", "debug");
+        Jarg jarg = Fixtures.createJarg().addSource(first).addSource(source("second", "name", "info", "verbose", "true"));
+        ParseResult result = jarg.compile().parse(new String[0]);
+
+        assertEquals("debug", result.getValue("name"));
+        assertSame(first, result.getSource("name"));
+        assertEquals("true", result.getValue("verbose"));
+        assertEquals("second", result.getSource("verbose").getName());
+    }
+
+    @Test
+    public void prefersTheSourceOverTheDefaultValue() {
+        Jarg jarg = Fixtures.createJarg().addSource(source("config", "name", "debug"));
+        jarg.getOption("name").defaultValue("info");
+
+        assertEquals("debug", jarg.compile().parse(new String[0]).getValue("name"));
+        assertEquals("1", jarg.compile().parse(new String[]{"run", "job"}).getValue("count"));
+    }
+
+    @Test
+    public void copiesTheSourceToTheOptions() {
+        ValueSource source = source("config", "name", "debug");
+        Jarg jarg = Fixtures.createJarg().addSource(source);
+
+        jarg.parse(new String[0]);
+
+        assertEquals("debug", jarg.getValue("name"));
+        assertFalse(jarg.isPresent("name"));
+        assertSame(source, jarg.getOption("name").getSource());
+        assertNull(jarg.getOption("verbose").getSource());
+    }
+
+    @Test
+    public void readsTheSystemProperties() {
+        System.setProperty("jarg.test.run.count", "5");
+        try {
+            Jarg jarg = Fixtures.createJarg().addSource(ValueSource.systemProperties("jarg.test."));
+
+            assertEquals("5", jarg.compile().parse(new String[]{"run", "job"}).getValue("count"));
+        } finally {
+            System.clearProperty("jarg.test.run.count");
+        }
+    }
+
+    @Test
+    public void readsAPropertiesFile() throws IOException {
+        File file = File.createTempFile("jarg", ".properties");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write("name = caf\u00e9\nrun.count: 9\n".getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            Jarg jarg = Fixtures.createJarg().addSource(ValueSource.properties(file));
+            ParseResult result = jarg.compile().parse(new String[]{"run", "job"});
+
+            assertEquals("caf\u00e9", result.getValue("name"));
+            assertEquals("9", result.getValue("count"));
+            assertEquals(file.getPath(), result.getSource("name").getName());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void namesTheEnvironmentVariables() {
+        ValueSource source = ValueSource.environment("TOOL_");
+
+        assertTrue(source.isEnvironment());
+        assertEquals("TOOL_LEVEL", source.nameOf("level"));
+        assertEquals("TOOL_DRY_RUN", source.nameOf("dry-run"));
+        assertEquals("TOOL_CLUSTER_CONTEXT", source.nameOf("cluster.context"));
+        assertEquals("tool.dry-run", ValueSource.systemProperties("tool.").nameOf("dry-run"));
+        assertFalse(ValueSource.systemProperties("tool.").isEnvironment());
+    }
+
+}
@@ -0,0 +1,113 @@
+package cn.har01d.tool.jarg;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ValuesTest {
+
+    @Test
+    public void splitsASingleValueByTheDefaultSeparators() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.parse(new String[]{"-i", "1,2;3|4"});
+
+        assertEquals(Arrays.asList("1", "2", "3", "4"), jarg.getStringValues("ids"));
+        assertEquals(Arrays.asList(1, 2, 3, 4), jarg.getIntValues("ids"));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, jarg.getIntArray("ids"));
+        assertArrayEquals(new long[]{1, 2, 3, 4}, jarg.getLongArray("ids"));
+    }
+
+    @Test
+    public void keepsRepeatedValuesAsIs() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ratio|-r", "The ratios");
+        jarg.parse(new String[]{"-r", "0.5", "-r", "1.5"});
+
+        assertArrayEquals(new double[]{0.5, 1.5}, jarg.getDoubleArray("ratio"), 0);
+        assertEquals(Arrays.asList(0.5, 1.5), jarg.getDoubleValues("ratio"));
+    }
+
+    @Test
+    public void matchesTheParseResult() {
+        String[] args = {"-i", "7;8", "-r", "2.5"};
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.addOption("--ratio|-r", "The ratios");
+        jarg.parse(args);
+        ParseResult result = jarg.compile().parse(args);
+
+        assertArrayEquals(jarg.getIntArray("ids"), result.getIntArray("ids"));
+        assertArrayEquals(jarg.getDoubleArray("ratio"), result.getDoubleArray("ratio"), 0);
+        assertEquals(jarg.getIntValues("ids"), result.getIntValues("ids"));
+    }
+
+    @Test
+    public void reportsAnInvalidNumber() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.parse(new String[]{"-i", "1,x"});
+        try {
+            jarg.getIntArray("ids");
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_VALUE, e.getCode());
+        }
+    }
+
+    @Test
+    public void splitsByTheNewSeparatorsAfterTheValuesAreCached() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.parse(new String[]{"-i", "1:2,3"});
+        assertEquals(Arrays.asList("1:2", "3"), jarg.getStringValues("ids"));
+        try {
+            jarg.getIntValues("ids");
+            fail();
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_VALUE, e.getCode());
+        }
+
+        jarg.getOption("ids").setSeparators(":,");
+
+        assertEquals(Arrays.asList(1, 2, 3), jarg.getIntValues("ids"));
+        assertArrayEquals(new int[]{1, 2, 3}, jarg.getIntArray("ids"));
+    }
+
+    @Test
+    public void disablesSplittingAfterTheValuesAreCached() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.parse(new String[]{"-i", "1,2"});
+        assertEquals(Arrays.asList(1, 2), jarg.getIntValues("ids"));
+
+        jarg.getOption("ids").setSeparators("");
+
+        assertEquals(Arrays.asList("1,2"), jarg.getStringValues("ids"));
+        try {
+            jarg.getIntValues("ids");
+            fail("The cached values must not be returned");
+        } catch (ParseException e) {
+            assertEquals(ParseException.INVALID_VALUE, e.getCode());
+        }
+    }
+
+    @Test
+    public void recompilesAfterTheSeparatorsChange() {
+        Jarg jarg = Fixtures.createJarg();
+        jarg.addOption("--ids|-i", "The ids");
+        jarg.parse(new String[]{"-i", "1/2"});
+        assertEquals(Arrays.asList("1/2"), jarg.getStringValues("ids"));
+
+        jarg.getOption("ids").setSeparators("/");
+        jarg.parse(new String[]{"-i", "3/4"});
+
+        assertEquals(Arrays.asList(3, 4), jarg.getIntValues("ids"));
+        assertEquals(Arrays.asList(5, 6), jarg.compile().parse(new String[]{"-i", "5/6"}).getIntValues("ids"));
+    }
+
+}